@@ -24,16 +24,16 @@
 package com.vimeo.sample.model;
 
 import com.vimeo.stag.GsonAdapterKey;
+import com.vimeo.stag.StagAccessor;
 
 /**
  * Entity ensuring that all supported modifiers are allowed.
  * Public, protected, and package-private modifiers are allowed.
- * Private modifier is not allowed.
+ * Private modifier is only allowed if the class declares
+ * accessor methods for the field.
  */
 public class AccessModifiers {
 
-    // private modifier is not allowed
-
     @GsonAdapterKey
     String defaultModifier;
 
@@ -43,4 +43,39 @@ public class AccessModifiers {
     @GsonAdapterKey
     public String publicModifier;
 
+    @GsonAdapterKey
+    private String mPrivateModifier;
+
+    @GsonAdapterKey
+    private boolean mPrivateBoolean;
+
+    @GsonAdapterKey
+    private int privateAnnotatedAccessors;
+
+    public String getPrivateModifier() {
+        return mPrivateModifier;
+    }
+
+    public void setPrivateModifier(String privateModifier) {
+        mPrivateModifier = privateModifier;
+    }
+
+    public boolean isPrivateBoolean() {
+        return mPrivateBoolean;
+    }
+
+    public void setPrivateBoolean(boolean privateBoolean) {
+        mPrivateBoolean = privateBoolean;
+    }
+
+    @StagAccessor("privateAnnotatedAccessors")
+    public int annotatedAccessors() {
+        return privateAnnotatedAccessors;
+    }
+
+    @StagAccessor("privateAnnotatedAccessors")
+    public void annotatedAccessors(int value) {
+        privateAnnotatedAccessors = value;
+    }
+
 }
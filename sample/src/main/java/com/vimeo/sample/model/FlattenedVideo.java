@@ -0,0 +1,58 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.sample.model;
+
+import com.vimeo.stag.GsonAdapterKey;
+import com.vimeo.stag.StagIntern;
+
+import java.util.List;
+
+/**
+ * Ensures that values nested in other JSON
+ * objects can be read into, and written from,
+ * member variables of this class without
+ * requiring a class for each nested object.
+ */
+public class FlattenedVideo {
+
+    @GsonAdapterKey("name")
+    public String mName;
+
+    @GsonAdapterKey("stats.plays")
+    public int mPlays;
+
+    @GsonAdapterKey("user.name")
+    public String mUserName;
+
+    @GsonAdapterKey("user.location")
+    public String mUserLocation;
+
+    @GsonAdapterKey("metadata.connections.comments.total")
+    public int mCommentCount;
+
+    @StagIntern
+    @GsonAdapterKey("tags")
+    public List<String> mTags;
+
+}
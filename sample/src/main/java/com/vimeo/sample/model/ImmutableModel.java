@@ -0,0 +1,59 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.sample.model;
+
+import com.vimeo.stag.GsonAdapterKey;
+import com.vimeo.stag.StagCreator;
+
+import java.util.List;
+
+/**
+ * Ensures that immutable classes with final
+ * fields can be created by Stag using an
+ * annotated constructor, and that annotated
+ * fields which are not populated by the
+ * constructor are still assigned.
+ */
+public class ImmutableModel {
+
+    @GsonAdapterKey("name")
+    public final String mName;
+
+    @GsonAdapterKey("plays")
+    public final int mPlays;
+
+    @GsonAdapterKey("tags")
+    public final List<String> mTags;
+
+    @GsonAdapterKey("description")
+    String mDescription = "none";
+
+    @StagCreator
+    public ImmutableModel(String mName, int mPlays, List<String> mTags) {
+        this.mName = mName;
+        this.mPlays = mPlays;
+        this.mTags = mTags;
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.sample.model;
+
+import com.vimeo.sample.model.external.Location;
+import com.vimeo.stag.GsonAdapterKey;
+import com.vimeo.stag.StagCreator;
+import com.vimeo.stag.StagMirror;
+
+/**
+ * Ensures that Stag can generate an adapter
+ * for a class in another package that it
+ * cannot annotate, using public final fields,
+ * a getter and setter, and a creator declared
+ * by the mirror.
+ */
+@StagMirror(Location.class)
+public final class LocationMirror {
+
+    @GsonAdapterKey("lat")
+    double latitude;
+
+    @GsonAdapterKey("lng")
+    double longitude;
+
+    @GsonAdapterKey("name")
+    String mName;
+
+    private LocationMirror() {
+    }
+
+    @StagCreator
+    static Location create(double latitude, double longitude) {
+        return new Location(latitude, longitude);
+    }
+
+}
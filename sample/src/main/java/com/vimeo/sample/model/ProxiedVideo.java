@@ -0,0 +1,54 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.sample.model;
+
+import com.vimeo.stag.GsonAdapterKey;
+import com.vimeo.stag.StagUnknownFields;
+import com.vimeo.stag.UnknownFields;
+
+/**
+ * Ensures that the values of keys that are
+ * not mapped to member variables can be
+ * retained and written back out unchanged.
+ */
+public class ProxiedVideo {
+
+    @GsonAdapterKey("name")
+    public String mName;
+
+    @GsonAdapterKey("stats.plays")
+    public int mPlays;
+
+    @StagUnknownFields
+    private UnknownFields mUnknownFields;
+
+    public UnknownFields getUnknownFields() {
+        return mUnknownFields;
+    }
+
+    public void setUnknownFields(UnknownFields unknownFields) {
+        mUnknownFields = unknownFields;
+    }
+
+}
@@ -24,20 +24,27 @@
 package com.vimeo.sample.model;
 
 import com.vimeo.stag.GsonAdapterKey;
+import com.vimeo.stag.StagIdentity;
+import com.vimeo.stag.StagIntern;
 
 /**
  * Simple user model used by the sample app.
  */
 public class User {
 
+    @StagIdentity
+    @GsonAdapterKey("uri")
+    public String mUri;
+
     @GsonAdapterKey("name")
     public String mName;
 
+    @StagIntern
     @GsonAdapterKey("location")
     public String mLocation;
 
     @Override
     public String toString() {
-        return "name: " + mName + ", location: " + mLocation;
+        return "uri: " + mUri + ", name: " + mName + ", location: " + mLocation;
     }
 }
@@ -32,16 +32,16 @@ import android.util.Log;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
 import com.vimeo.sample.model.DateParser;
 import com.vimeo.sample.model.Video;
-import com.vimeo.sample.model.VideoList;
 import com.vimeo.sample.stag.generated.Stag;
+import com.vimeo.stag.JsonPath;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.ArrayList;
@@ -52,6 +52,7 @@ import java.util.concurrent.Executors;
 public final class NetworkRequest {
 
     private static final String TAG = NetworkRequest.class.getSimpleName();
+    private static final JsonPath VIDEOS_PATH = JsonPath.compile("data[*]");
 
     public interface Callback {
 
@@ -120,11 +121,10 @@ public final class NetworkRequest {
                         .registerTypeAdapterFactory(new Stag.Factory())
                         .create();
 
-                JsonObject jsonObject = new JsonParser().parse(builder.toString()).getAsJsonObject();
-
                 long time = System.currentTimeMillis();
 
-                videos.addAll(gson.fromJson(jsonObject, VideoList.class).data);
+                JsonReader reader = new JsonReader(new StringReader(builder.toString()));
+                videos.addAll(VIDEOS_PATH.readAll(reader, gson.getAdapter(Video.class)));
 
                 Log.d(TAG, "Time elapsed while parsing: " + (System.currentTimeMillis() - time) + " ms");
 
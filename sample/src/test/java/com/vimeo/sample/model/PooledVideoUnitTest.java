@@ -0,0 +1,83 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.sample.model;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.vimeo.sample.stag.generated.Stag;
+import com.vimeo.stag.ObjectPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Collections;
+
+public class PooledVideoUnitTest {
+
+    private static final Gson GSON = new GsonBuilder().registerTypeAdapterFactory(new Stag.Factory()).create();
+
+    private static PooledVideo read(ObjectPool<PooledVideo> pool, String json) throws Exception {
+        TypeAdapter<PooledVideo> adapter = GSON.getAdapter(PooledVideo.class);
+        return pool.read(adapter, new JsonReader(new StringReader(json)));
+    }
+
+    @Test
+    public void testRead_absentKeysHaveInitialValues() throws Exception {
+        ObjectPool<PooledVideo> pool = new ObjectPool<>(1);
+        PooledVideo first = read(pool, "{\"name\": \"a\", \"description\": \"b\", \"plays\": 3, \"tags\": [\"c\"]}");
+        Assert.assertEquals("b", first.mDescription);
+        pool.release(first);
+
+        PooledVideo second = read(pool, "{\"name\": \"d\"}");
+        Assert.assertSame(first, second);
+        Assert.assertEquals("d", second.mName);
+        Assert.assertEquals("none", second.mDescription);
+        Assert.assertEquals(-1, second.mPlays);
+        Assert.assertEquals(Collections.emptyList(), second.mTags);
+
+        PooledVideo fresh = GSON.fromJson("{\"name\": \"d\"}", PooledVideo.class);
+        Assert.assertEquals(fresh.mDescription, second.mDescription);
+        Assert.assertEquals(fresh.mPlays, second.mPlays);
+        Assert.assertEquals(fresh.mTags, second.mTags);
+    }
+
+    @Test
+    public void testRead_initialValuesAreNotShared() throws Exception {
+        ObjectPool<PooledVideo> pool = new ObjectPool<>(2);
+        PooledVideo first = read(pool, "{}");
+        PooledVideo second = read(pool, "{}");
+        pool.release(first);
+        pool.release(second);
+
+        first = read(pool, "{\"tags\": [\"a\"]}");
+        second = read(pool, "{}");
+        Assert.assertNotSame(first.mTags, second.mTags);
+        Assert.assertEquals(Collections.singletonList("a"), first.mTags);
+        Assert.assertEquals(Collections.emptyList(), second.mTags);
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.sample.model;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.vimeo.sample.stag.generated.Stag;
+import com.vimeo.stag.RawJson;
+import com.vimeo.stag.UnknownFields;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ProxiedVideoUnitTest {
+
+    private static final Gson GSON = new GsonBuilder().registerTypeAdapterFactory(new Stag.Factory()).create();
+
+    private static void assertRoundTrip(String json) {
+        Assert.assertEquals(json, GSON.toJson(GSON.fromJson(json, ProxiedVideo.class)));
+    }
+
+    @Test
+    public void testRoundTrip_unknownKeys() throws Exception {
+        assertRoundTrip("{\"name\":\"a\",\"stats\":{\"plays\":3,\"likes\":1.0e2,\"n\":null}," +
+                        "\"extra\":[1.50],\"z\":null}");
+    }
+
+    @Test
+    public void testRoundTrip_mismatchedKnownKeys() throws Exception {
+        assertRoundTrip("{\"name\":null,\"stats\":\"n/a\"}");
+        assertRoundTrip("{\"name\":7,\"stats\":{\"plays\":\"many\"}}");
+        assertRoundTrip("{\"name\":\"a\",\"stats\":{\"plays\":null,\"likes\":2}}");
+    }
+
+    @Test
+    public void testWrite_removedMismatchedValue() throws Exception {
+        ProxiedVideo video = GSON.fromJson("{\"name\":\"a\",\"stats\":{\"plays\":\"many\"}}", ProxiedVideo.class);
+        Assert.assertEquals(0, video.mPlays);
+        UnknownFields stats = video.getUnknownFields().getNested("stats");
+        Assert.assertEquals(new RawJson("\"many\""), stats.getMismatched("plays"));
+
+        video.mPlays = 5;
+        stats.removeMismatched("plays");
+        Assert.assertEquals("{\"name\":\"a\",\"stats\":{\"plays\":5}}", GSON.toJson(video));
+    }
+
+}
@@ -26,6 +26,7 @@ package com.vimeo.stag.processor;
 import com.google.auto.service.AutoService;
 import com.squareup.javapoet.JavaFile;
 import com.vimeo.stag.GsonAdapterKey;
+import com.vimeo.stag.StagProjection;
 import com.vimeo.stag.processor.generators.StagGenerator;
 import com.vimeo.stag.processor.generators.TypeAdapterFactoryGenerator;
 import com.vimeo.stag.processor.generators.TypeAdapterGenerator;
@@ -66,7 +67,7 @@ import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeMirror;
 
 @AutoService(Processor.class)
-@SupportedAnnotationTypes("com.vimeo.stag.GsonAdapterKey")
+@SupportedAnnotationTypes({"com.vimeo.stag.GsonAdapterKey", "com.vimeo.stag.StagProjection"})
 @SupportedOptions(value = {"stagGeneratedPackageName"})
 @SupportedSourceVersion(SourceVersion.RELEASE_7)
 public final class StagProcessor extends AbstractProcessor {
@@ -81,6 +82,7 @@ public final class StagProcessor extends AbstractProcessor {
     public Set<String> getSupportedAnnotationTypes() {
         Set<String> set = new HashSet<>();
         set.add(GsonAdapterKey.class.getCanonicalName());
+        set.add(StagProjection.class.getCanonicalName());
         return set;
     }
 
@@ -111,17 +113,23 @@ public final class StagProcessor extends AbstractProcessor {
             if (element instanceof VariableElement) {
                 final VariableElement variableElement = (VariableElement) element;
 
+                // The fields of a mirrored class are validated when its adapter is generated
+                boolean isMirror = ElementUtils.getMirroredType(variableElement.getEnclosingElement()) != null;
                 Set<Modifier> modifiers = variableElement.getModifiers();
-                if (modifiers.contains(Modifier.FINAL)) {
+                if (!isMirror && modifiers.contains(Modifier.FINAL) &&
+                    ElementUtils.getCreator(variableElement.getEnclosingElement()) == null) {
                     throw new RuntimeException("Unable to access field \"" +
                                                 variableElement.getSimpleName().toString() + "\" in class " +
                                                 variableElement.getEnclosingElement().asType() +
-                                                ", field must not be final.");
-                } else if (modifiers.contains(Modifier.PRIVATE)) {
+                                                ", field must not be final unless the class declares a " +
+                                                "@StagCreator.");
+                } else if (!isMirror && modifiers.contains(Modifier.PRIVATE) &&
+                           ElementUtils.getGetter(variableElement) == null) {
                     throw new RuntimeException("Unable to access field \"" +
                                                 variableElement.getSimpleName().toString() + "\" in class " +
                                                 variableElement.getEnclosingElement().asType() +
-                                                ", field must not be private.");
+                                                ", field must not be private unless the class declares a " +
+                                                "getter for it.");
                 }
 
                 Element enclosingClassElement = variableElement.getEnclosingElement();
@@ -139,6 +147,12 @@ public final class StagProcessor extends AbstractProcessor {
             }
         }
 
+        // The member variables of a projection are selected from the projected class
+        for (Element element : roundEnv.getElementsAnnotatedWith(StagProjection.class)) {
+            mSupportedTypes.add(element.asType().toString());
+            addToListMap(variableMap, element, null);
+        }
+
         Filer filer = processingEnv.getFiler();
         try {
             for (Entry<Element, List<VariableElement>> entry : variableMap.entrySet()) {
@@ -155,7 +169,8 @@ public final class StagProcessor extends AbstractProcessor {
             Set<Element> list = SupportedTypesModel.getInstance().getSupportedElements();
             for (Element element : list) {
                 if (TypeUtils.isConcreteType(element)) {
-                    ClassInfo classInfo = new ClassInfo(element.asType());
+                    AnnotatedClass annotatedClass = SupportedTypesModel.getInstance().getSupportedType(element.asType());
+                    ClassInfo classInfo = new ClassInfo(annotatedClass.getType(), element.asType());
                     TypeAdapterGenerator independentAdapter = new TypeAdapterGenerator(classInfo);
                     JavaFile javaFile = JavaFile.builder(classInfo.getPackageName(),
                             independentAdapter.getTypeAdapterSpec(typeTokenConstantsGenerator)).build();
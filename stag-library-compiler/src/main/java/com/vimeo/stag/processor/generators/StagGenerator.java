@@ -34,6 +34,7 @@ import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeVariableName;
+import com.vimeo.stag.StagMapTypeAdapterFactory;
 import com.vimeo.stag.processor.generators.model.ClassInfo;
 import com.vimeo.stag.processor.utils.ElementUtils;
 import com.vimeo.stag.processor.utils.FileGenUtils;
@@ -42,7 +43,6 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -104,16 +104,12 @@ public class StagGenerator {
         MethodSpec.Builder constructorBuilder = MethodSpec.constructorBuilder()
                 .addModifiers(Modifier.PUBLIC)
                 .addCode("mTypeAdapterFactories = java.util.Arrays.<TypeAdapterFactory>asList(\n");
-        Iterator<String> knownFactoriesIterator = mKnownTypeAdapterFactories.iterator();
-        while (knownFactoriesIterator.hasNext()) {
-            String knownFactory = knownFactoriesIterator.next();
-            constructorBuilder.addCode("\tnew " + knownFactory + "()");
-            if (knownFactoriesIterator.hasNext()) {
-                constructorBuilder.addCode(",\n");
-            } else {
-                constructorBuilder.addCode(");\n");
-            }
+        // Reads maps from the readers of the library, which Gson's own map adapter cannot
+        constructorBuilder.addCode("\tnew " + StagMapTypeAdapterFactory.class.getName() + "(this)");
+        for (String knownFactory : mKnownTypeAdapterFactories) {
+            constructorBuilder.addCode(",\n\tnew " + knownFactory + "()");
         }
+        constructorBuilder.addCode(");\n");
         MethodSpec constructorSpec = constructorBuilder.build();
 
         TypeSpec.Builder adapterFactoryBuilder = TypeSpec.classBuilder(CLASS_TYPE_ADAPTER_FACTORY)
@@ -33,11 +33,24 @@ import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeVariableName;
+import com.squareup.javapoet.WildcardTypeName;
 import com.vimeo.stag.GsonAdapterKey;
+import com.vimeo.stag.IdentityCache;
+import com.vimeo.stag.JsonSlice;
+import com.vimeo.stag.LazyList;
+import com.vimeo.stag.RawJson;
+import com.vimeo.stag.ReadFilter;
+import com.vimeo.stag.StagIdentity;
+import com.vimeo.stag.StagIntern;
+import com.vimeo.stag.StagTypeAdapter;
+import com.vimeo.stag.StagUnknownFields;
+import com.vimeo.stag.UnknownFields;
 import com.vimeo.stag.processor.generators.model.AnnotatedClass;
 import com.vimeo.stag.processor.generators.model.ClassInfo;
 import com.vimeo.stag.processor.generators.model.SupportedTypesModel;
+import com.vimeo.stag.processor.utils.ElementUtils;
 import com.vimeo.stag.processor.utils.FileGenUtils;
+import com.vimeo.stag.processor.utils.Preconditions;
 import com.vimeo.stag.processor.utils.TypeUtils;
 
 import org.jetbrains.annotations.NotNull;
@@ -47,18 +60,32 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 
 @SuppressWarnings("StringConcatenationMissingWhitespace")
 public class TypeAdapterGenerator {
 
     private static final String TYPE_ADAPTER_FIELD_PREFIX = "mTypeAdapter";
+    private static final String IDENTITY_CACHE_FIELD = "mIdentityCache";
+    private static final String UNKNOWN_FIELDS_VARIABLE = "unknownFields";
+    private static final String FILTER_KEYS_VARIABLE = "filterKeys";
+    private static final String DEFAULTS_FIELD = "mDefaults";
+    private static final String FRESH_DEFAULTS_FIELD = "mFreshDefaults";
+    private static final String DEFAULTS_VARIABLE = "defaults";
     @NotNull
     private final ClassInfo mInfo;
 
@@ -85,7 +112,7 @@ public class TypeAdapterGenerator {
         String className = FileGenUtils.unescapeEscapedString(mInfo.getTypeAdapterClassName());
         TypeSpec.Builder adapterBuilder = TypeSpec.classBuilder(className)
                 .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
-                .superclass(ParameterizedTypeName.get(ClassName.get(TypeAdapter.class), typeVariableName));
+                .superclass(ParameterizedTypeName.get(ClassName.get(StagTypeAdapter.class), typeVariableName));
 
         AnnotatedClass annotatedClass = SupportedTypesModel.getInstance().getSupportedType(typeMirror);
         Map<Element, TypeMirror> memberVariables = annotatedClass.getMemberVariables();
@@ -93,21 +120,93 @@ public class TypeAdapterGenerator {
         Map<String, String> adapterFieldMap =
                 addAdapterFields(adapterBuilder, constructorBuilder, memberVariables,
                                  typeTokenConstantsGenerator);
+        Element identity = getIdentityField(memberVariables);
+        if (identity != null) {
+            TypeMirror identityType = memberVariables.get(identity);
+            if (identityType.getKind().isPrimitive()) {
+                identityType = TypeUtils.getUtils().boxedClass((PrimitiveType) identityType).asType();
+            }
+            adapterBuilder.addField(ParameterizedTypeName.get(ClassName.get(IdentityCache.class),
+                                                              TypeVariableName.get(identityType), typeVariableName),
+                                    IDENTITY_CACHE_FIELD, Modifier.PRIVATE, Modifier.FINAL);
+            constructorBuilder.addStatement(IDENTITY_CACHE_FIELD + " = new com.vimeo.stag.IdentityCache<>(" +
+                                            identity.getAnnotation(StagIdentity.class).cacheSize() + ')');
+        }
+        if (annotatedClass.getCreator() == null && identity == null) {
+            addDefaultsFields(adapterBuilder, constructorBuilder, annotatedClass, memberVariables);
+        }
         adapterBuilder.addMethod(constructorBuilder.build());
 
-        MethodSpec writeMethod = getWriteMethodSpec(typeVariableName, memberVariables, adapterFieldMap);
-        MethodSpec readMethod = getReadMethodSpec(typeVariableName, memberVariables, adapterFieldMap);
+        MethodSpec writeMethod = getWriteMethodSpec(typeVariableName, annotatedClass, memberVariables,
+                                                    adapterFieldMap);
+        MethodSpec readMethod = getReadMethodSpec(typeVariableName, annotatedClass, memberVariables, identity,
+                                                  adapterFieldMap);
 
         adapterBuilder.addMethod(writeMethod);
+        adapterBuilder.addMethod(getUnfilteredReadMethodSpec(typeVariableName));
         adapterBuilder.addMethod(readMethod);
 
         return adapterBuilder.build();
     }
 
+    /**
+     * Adds an instance created by the default constructor, whose
+     * member variables hold the values that a reused target is reset
+     * to, so that it reads the same as a new instance. If any of them
+     * holds a mutable value, such as a list, a new instance is created
+     * for every reset instead, as the value must not be shared.
+     */
+    private void addDefaultsFields(@NotNull TypeSpec.Builder adapterBuilder,
+                                   @NotNull MethodSpec.Builder constructorBuilder,
+                                   @NotNull AnnotatedClass annotatedClass,
+                                   @NotNull Map<Element, TypeMirror> memberVariables) {
+        adapterBuilder.addField(TypeVariableName.get(mInfo.getClassAndPackage()), DEFAULTS_FIELD, Modifier.PRIVATE,
+                                Modifier.FINAL);
+        constructorBuilder.addStatement("$L = new $L()", DEFAULTS_FIELD, mInfo.getClassAndPackage());
+        StringBuilder mutableDefaults = new StringBuilder();
+        for (Map.Entry<Element, TypeMirror> element : memberVariables.entrySet()) {
+            if (!isImmutable(element.getValue())) {
+                if (mutableDefaults.length() > 0) {
+                    mutableDefaults.append(" || ");
+                }
+                Element field = annotatedClass.getAccessedField(element.getKey());
+                mutableDefaults.append(getFieldAccess(DEFAULTS_FIELD, field)).append(" != null");
+            }
+        }
+        if (mutableDefaults.length() > 0) {
+            adapterBuilder.addField(TypeName.BOOLEAN, FRESH_DEFAULTS_FIELD, Modifier.PRIVATE, Modifier.FINAL);
+            constructorBuilder.addStatement("$L = $L", FRESH_DEFAULTS_FIELD, mutableDefaults);
+        }
+    }
+
+    /**
+     * Determines whether values of the type can be shared between
+     * instances: primitives, strings, boxed primitives, enums,
+     * {@link RawJson} and {@link JsonSlice}.
+     */
+    private static boolean isImmutable(@NotNull TypeMirror type) {
+        if (type.getKind().isPrimitive() || isSupportedNative(type.toString()) || isRawJson(type) ||
+            type.toString().equals(JsonSlice.class.getName())) {
+            return true;
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        if (((DeclaredType) type).asElement().getKind() == ElementKind.ENUM) {
+            return true;
+        }
+        try {
+            TypeUtils.getUtils().unboxedType(type);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
     @NotNull
-    private static MethodSpec getWriteMethodSpec(@NotNull TypeName typeName,
-                                                 @NotNull Map<Element, TypeMirror> memberVariables,
-                                                 @NotNull Map<String, String> typeAdapterVariableNames) {
+    private MethodSpec getWriteMethodSpec(@NotNull TypeName typeName, @NotNull AnnotatedClass annotatedClass,
+                                          @NotNull Map<Element, TypeMirror> memberVariables,
+                                          @NotNull Map<String, String> typeAdapterVariableNames) {
         MethodSpec.Builder builder = MethodSpec.methodBuilder("write")
                 .addParameter(JsonWriter.class, "writer")
                 .addParameter(typeName, "object")
@@ -122,26 +221,148 @@ public class TypeAdapterGenerator {
                         "\t\treturn;\n" +
                         "\t}\n");
 
-        for (Map.Entry<Element, TypeMirror> element : memberVariables.entrySet()) {
-            String name = getJsonName(element.getKey());
-            String variableName = element.getKey().getSimpleName().toString();
+        Element unknownFields = getUnknownFieldsHolder(annotatedClass);
+        if (unknownFields != null) {
+            builder.addCode("\tcom.vimeo.stag.UnknownFields " + UNKNOWN_FIELDS_VARIABLE + " = " +
+                            getFieldAccess(annotatedClass.getAccessedField(unknownFields)) + ";\n");
+        }
+        addWriteCode(builder, "\t", getJsonObjectNode(memberVariables), annotatedClass, typeAdapterVariableNames,
+                     unknownFields != null ? UNKNOWN_FIELDS_VARIABLE : null);
+        builder.addCode("\twriter.endObject();\n");
+
+        return builder.build();
+    }
+
+    /**
+     * Adds the code that writes the member variables of a JSON object,
+     * followed by its nested objects and then its unknown fields, if
+     * they are retained. The unknown fields of a nested object are held
+     * in a variable whose name is suffixed with the index of the object
+     * within each of its enclosing objects, so that the names are unique.
+     */
+    private void addWriteCode(@NotNull MethodSpec.Builder builder, @NotNull String indent,
+                              @NotNull JsonObjectNode node, @NotNull AnnotatedClass annotatedClass,
+                              @NotNull Map<String, String> typeAdapterVariableNames,
+                              @Nullable String unknownFieldsVariable) {
+        for (Map.Entry<String, Map.Entry<Element, TypeMirror>> member : node.mMembers.entrySet()) {
+            Map.Entry<Element, TypeMirror> element = member.getValue();
+            String name = member.getKey();
+            Element field = annotatedClass.getAccessedField(element.getKey());
+            String variableName = getFieldAccess(field);
             String variableType = element.getValue().toString();
 
             boolean isPrimitive = isSupportedPrimitive(variableType);
 
-            String prefix = isPrimitive ? "\t" : "\t\t";
+            String memberIndent = getMismatchedCheckIndent(builder, indent, unknownFieldsVariable, name);
+            String prefix = isPrimitive ? memberIndent : memberIndent + '\t';
             if (!isPrimitive) {
-                builder.addCode("\tif (object." + variableName + " != null) {\n");
+                if (!isDirectlyAccessible(field)) {
+                    // Only call the getter once
+                    String localVariableName = getLocalVariableName(element.getKey());
+                    builder.addCode(memberIndent + variableType + ' ' + localVariableName + " = " + variableName +
+                                    ";\n");
+                    variableName = localVariableName;
+                }
+                builder.addCode(memberIndent + "if (" + variableName + " != null) {\n");
             }
-            builder.addCode(getWriteCode(prefix, element.getValue(), name, "object." + variableName,
+            builder.addCode(getWriteCode(prefix, element.getValue(), name, variableName,
                                          typeAdapterVariableNames));
             if (!isPrimitive) {
-                builder.addCode("\t}\n");
+                builder.addCode(memberIndent + "}\n");
+            }
+            if (unknownFieldsVariable != null) {
+                builder.addCode(indent + "}\n");
             }
         }
-        builder.addCode("\twriter.endObject();\n");
 
-        return builder.build();
+        int index = 0;
+        for (Map.Entry<String, JsonObjectNode> child : node.mChildren.entrySet()) {
+            String childUnknownFieldsVariable = null;
+            if (unknownFieldsVariable != null) {
+                childUnknownFieldsVariable = unknownFieldsVariable + '_' + index;
+                builder.addCode(indent + "com.vimeo.stag.UnknownFields " + childUnknownFieldsVariable + " = " +
+                                unknownFieldsVariable + " != null ? " + unknownFieldsVariable +
+                                ".getNested(\"" + child.getKey() + "\") : null;\n");
+            }
+            String childIndent = getMismatchedCheckIndent(builder, indent, unknownFieldsVariable, child.getKey());
+            builder.addCode(childIndent + "writer.name(\"" + child.getKey() + "\");\n" +
+                            childIndent + "writer.beginObject();\n");
+            addWriteCode(builder, childIndent, child.getValue(), annotatedClass, typeAdapterVariableNames,
+                         childUnknownFieldsVariable);
+            builder.addCode(childIndent + "writer.endObject();\n");
+            if (unknownFieldsVariable != null) {
+                builder.addCode(indent + "}\n");
+            }
+            index++;
+        }
+
+        if (unknownFieldsVariable != null) {
+            builder.addCode(indent + "if (" + unknownFieldsVariable + " != null) {\n" +
+                            indent + "\t" + unknownFieldsVariable + ".write(writer);\n" +
+                            indent + "}\n");
+        }
+    }
+
+    /**
+     * If the unknown fields are retained, opens a block that writes the
+     * value of a known key only if it has no mismatched value, which is
+     * written instead, and returns the indent of the code in the block.
+     */
+    @NotNull
+    private static String getMismatchedCheckIndent(@NotNull MethodSpec.Builder builder, @NotNull String indent,
+                                                   @Nullable String unknownFieldsVariable, @NotNull String name) {
+        if (unknownFieldsVariable == null) {
+            return indent;
+        }
+        builder.addCode(indent + "if (" + unknownFieldsVariable + " == null || !" + unknownFieldsVariable +
+                        ".writeMismatched(writer, \"" + name + "\")) {\n");
+        return indent + '\t';
+    }
+
+    /**
+     * Arranges the member variables by their JSON keys, where a key
+     * such as {@code "stats.plays"} places the member variable in
+     * the nested {@code "stats"} object. Throws an exception if a
+     * key is used more than once, or both for a member variable and
+     * as a path to other member variables.
+     *
+     * @param memberVariables the member variables of the class.
+     * @return the root JSON object.
+     */
+    @NotNull
+    private JsonObjectNode getJsonObjectNode(@NotNull Map<Element, TypeMirror> memberVariables) {
+        JsonObjectNode root = new JsonObjectNode();
+        for (Map.Entry<Element, TypeMirror> member : memberVariables.entrySet()) {
+            String jsonName = getJsonName(member.getKey());
+            String[] path = jsonName.split("\\.", -1);
+            JsonObjectNode node = root;
+            for (int n = 0; n < path.length; n++) {
+                String key = path[n];
+                if (key.isEmpty()) {
+                    throw new RuntimeException("JSON key \"" + jsonName + "\" of field \"" +
+                                               member.getKey().getSimpleName() + "\" in class " +
+                                               mInfo.getClassAndPackage() + " must not contain an empty path segment.");
+                }
+                boolean isLast = n == path.length - 1;
+                if (node.mMembers.containsKey(key) || (isLast && node.mChildren.containsKey(key))) {
+                    throw new RuntimeException("JSON key \"" + jsonName + "\" of field \"" +
+                                               member.getKey().getSimpleName() + "\" in class " +
+                                               mInfo.getClassAndPackage() + " conflicts with the key of another " +
+                                               "member variable.");
+                }
+                if (isLast) {
+                    node.mMembers.put(key, member);
+                } else {
+                    JsonObjectNode child = node.mChildren.get(key);
+                    if (child == null) {
+                        child = new JsonObjectNode();
+                        node.mChildren.put(key, child);
+                    }
+                    node = child;
+                }
+            }
+        }
+        return root;
     }
 
     private static Map<String, String> addAdapterFields(@NotNull TypeSpec.Builder adapterBuilder,
@@ -154,12 +375,18 @@ public class TypeAdapterGenerator {
         HashSet<TypeMirror> exclusiveTypeSet = new HashSet<>();
 
         for (TypeMirror fieldType : typeSet) {
-            if (isSupportedNative(fieldType.toString())) {
+            if (isSupportedNative(fieldType.toString()) || isRawJson(fieldType) || isSlice(fieldType)) {
                 continue;
             }
 
             if (isArray(fieldType)) {
                 fieldType = getInnerListType(fieldType);
+                if (isRawJson(fieldType) || isSlice(fieldType)) {
+                    continue;
+                }
+            } else if (isLazyList(fieldType)) {
+                // The elements of a lazy list are decoded by the adapter of their type
+                fieldType = getInnerListType(fieldType);
             }
 
             exclusiveTypeSet.add(fieldType);
@@ -189,6 +416,32 @@ public class TypeAdapterGenerator {
                type.equals(int.class.getName());
     }
 
+    /**
+     * Determines whether the type is {@link RawJson}, which is
+     * read and written directly rather than through an adapter.
+     */
+    static boolean isRawJson(@NotNull TypeMirror type) {
+        return type.toString().equals(RawJson.class.getName());
+    }
+
+    /**
+     * Determines whether the type is {@link JsonSlice} or {@link CharSequence},
+     * which are read as slices of the input rather than through an adapter.
+     */
+    static boolean isSlice(@NotNull TypeMirror type) {
+        return type.toString().equals(JsonSlice.class.getName()) ||
+               type.toString().equals(CharSequence.class.getName());
+    }
+
+    /**
+     * Determines whether the type is a {@link LazyList}, which is
+     * read and written directly, as Gson would otherwise treat it
+     * as a regular collection.
+     */
+    static boolean isLazyList(@NotNull TypeMirror type) {
+        return TypeUtils.getOuterClassType(type).equals(LazyList.class.getName());
+    }
+
     static boolean isArray(@NotNull TypeMirror type) {
         String outerClassType = TypeUtils.getOuterClassType(type);
         return outerClassType.equals(ArrayList.class.getName()) ||
@@ -222,13 +475,13 @@ public class TypeAdapterGenerator {
             return "com.google.gson.stream.JsonToken.NUMBER";
         } else if (type.toString().equals(boolean.class.getName())) {
             return "com.google.gson.stream.JsonToken.BOOLEAN";
-        } else if (type.toString().equals(String.class.getName())) {
+        } else if (type.toString().equals(String.class.getName()) || isSlice(type)) {
             return "com.google.gson.stream.JsonToken.STRING";
         } else if (type.toString().equals(int.class.getName())) {
             return "com.google.gson.stream.JsonToken.NUMBER";
         } else if (type.toString().equals(float.class.getName())) {
             return "com.google.gson.stream.JsonToken.NUMBER";
-        } else if (isArray(type)) {
+        } else if (isArray(type) || isLazyList(type)) {
             return "com.google.gson.stream.JsonToken.BEGIN_ARRAY";
         } else {
             return null;
@@ -240,27 +493,212 @@ public class TypeAdapterGenerator {
         return ((DeclaredType) type).getTypeArguments().get(0);
     }
 
+    /**
+     * Returns the code that reads a value and assigns it using the
+     * assignment format. If the previous value of the member variable
+     * is available in the recycled variable, it is populated instead
+     * of allocating a new value; for a list, the list itself and its
+     * elements are reused.
+     */
     @NotNull
-    private static String getReadCode(@NotNull String prefix, @NotNull String variableName,
-                                      @NotNull TypeMirror type,
+    private static String getReadCode(@NotNull String prefix, @NotNull String assignmentFormat,
+                                      @NotNull TypeMirror type, @Nullable String recycledVariable, boolean intern,
                                       @NotNull Map<String, String> typeAdapterFieldMap) {
-        if (isArray(type)) {
+        if (isArray(type) && recycledVariable != null) {
             TypeMirror innerType = getInnerListType(type);
-            String innerRead = getReadType(innerType, typeAdapterFieldMap);
+            String listType = "java.util.ArrayList<" + innerType + '>';
+            // A field declared as an ArrayList needs neither the type check nor the cast
+            String recycledList = TypeUtils.getOuterClassType(type).equals(ArrayList.class.getName()) ?
+                    recycledVariable + " != null ? " + recycledVariable :
+                    recycledVariable + " instanceof java.util.ArrayList ? (" + listType + ") " + recycledVariable;
             return prefix + "reader.beginArray();\n" +
-                   prefix + "object." + variableName + " = new java.util.ArrayList<>();\n" +
+                   prefix + listType + " list = " + recycledList + " : new " + listType + "();\n" +
+                   prefix + "int size = 0;\n" +
                    prefix + "while (reader.hasNext()) {\n" +
-                   prefix + "\tobject." + variableName + ".add(" + innerRead + ");\n" +
+                   prefix + "\tif (size < list.size()) {\n" +
+                   prefix + "\t\tlist.set(size, " + getReadType(innerType, "list.get(size)", intern,
+                                                                           typeAdapterFieldMap) +
+                   ");\n" +
+                   prefix + "\t} else {\n" +
+                   prefix + "\t\tlist.add(" + getReadType(innerType, null, intern, typeAdapterFieldMap) + ");\n" +
+                   prefix + "\t}\n" +
+                   prefix + "\tsize++;\n" +
                    prefix + "}\n" +
-                   prefix + "reader.endArray();";
+                   prefix + "list.subList(size, list.size()).clear();\n" +
+                   prefix + "reader.endArray();\n" +
+                   prefix + String.format(assignmentFormat, "list") + ';';
+        } else if (isArray(type)) {
+            TypeMirror innerType = getInnerListType(type);
+            String innerRead = getReadType(innerType, null, intern, typeAdapterFieldMap);
+            return prefix + "reader.beginArray();\n" +
+                   prefix + "java.util.ArrayList<" + innerType + "> list = new java.util.ArrayList<>();\n" +
+                   prefix + "while (reader.hasNext()) {\n" +
+                   prefix + "\tlist.add(" + innerRead + ");\n" +
+                   prefix + "}\n" +
+                   prefix + "reader.endArray();\n" +
+                   prefix + String.format(assignmentFormat, "list") + ';';
+        } else {
+            return prefix + String.format(assignmentFormat,
+                                          getReadType(type, recycledVariable, intern, typeAdapterFieldMap)) + ';';
+        }
+    }
+
+    /**
+     * Determines whether the generated adapter, which lives in
+     * the package of {@link #mInfo}, can access the field directly.
+     * This is not the case for private fields, nor for package
+     * private and protected fields of a class in another package,
+     * e.g. the fields of a class described by a mirror.
+     */
+    private boolean isDirectlyAccessible(@NotNull Element field) {
+        Set<Modifier> modifiers = field.getModifiers();
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return true;
+        } else if (modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        return ElementUtils.getPackage(field.getEnclosingElement().asType()).equals(mInfo.getPackageName());
+    }
+
+    /**
+     * Returns an expression that reads the value of
+     * the member variable from {@code object}, using
+     * its getter if the member variable is not accessible.
+     */
+    @NotNull
+    private String getFieldAccess(@NotNull Element element) {
+        return getFieldAccess("object", element);
+    }
+
+    /**
+     * Returns an expression that reads the value of the member
+     * variable from the named instance, using its getter if the
+     * member variable is not accessible.
+     */
+    @NotNull
+    private String getFieldAccess(@NotNull String instance, @NotNull Element element) {
+        if (isDirectlyAccessible(element)) {
+            return instance + '.' + element.getSimpleName();
+        }
+        ExecutableElement getter = ElementUtils.getGetter(element);
+        if (getter == null || !isDirectlyAccessible(getter)) {
+            throw new RuntimeException("Unable to access field \"" + element.getSimpleName() + "\" in class " +
+                                       mInfo.getClassAndPackage() + ", field must be accessible or the class " +
+                                       "must declare an accessible getter for it.");
+        }
+        return instance + '.' + getter.getSimpleName() + "()";
+    }
+
+    /**
+     * Returns a format string that assigns a value to the
+     * member variable of {@code object}, using its setter
+     * if the member variable is not accessible.
+     */
+    @NotNull
+    private String getAssignmentFormat(@NotNull Element element) {
+        if (isDirectlyAccessible(element) && !element.getModifiers().contains(Modifier.FINAL)) {
+            return "object." + element.getSimpleName() + " = %s";
+        }
+        ExecutableElement setter = ElementUtils.getSetter(element);
+        if (setter == null || !isDirectlyAccessible(setter)) {
+            throw new RuntimeException("Unable to access field \"" + element.getSimpleName() + "\" in class " +
+                                       mInfo.getClassAndPackage() + ", field must be accessible and not final " +
+                                       "unless the class declares a setter for it or populates it using a " +
+                                       "@StagCreator.");
+        }
+        return "object." + setter.getSimpleName() + "(%s)";
+    }
+
+    /**
+     * Determines whether the values of the member variable should be
+     * read through the {@link com.vimeo.stag.StringCache}. Throws an
+     * exception if the annotation is applied to a member variable that
+     * is neither a String nor a list of Strings.
+     */
+    private boolean isInterned(@NotNull Element element, @NotNull TypeMirror type) {
+        if (element.getAnnotation(StagIntern.class) == null) {
+            return false;
+        }
+        TypeMirror valueType = isArray(type) ? getInnerListType(type) : type;
+        if (!valueType.toString().equals(String.class.getName())) {
+            throw new RuntimeException("Field \"" + element.getSimpleName() + "\" in class " +
+                                       mInfo.getClassAndPackage() + " must be a String or a list of Strings " +
+                                       "to be annotated with @StagIntern.");
+        }
+        return true;
+    }
+
+    /**
+     * The name of the local variable used to hold the value of a
+     * member variable, e.g. while reading a class that is created
+     * by a creator.
+     */
+    @NotNull
+    private static String getLocalVariableName(@NotNull Element element) {
+        return element.getSimpleName().toString() + "Value";
+    }
+
+    @NotNull
+    private static String getDefaultValue(@NotNull TypeMirror type) {
+        if (type.toString().equals(boolean.class.getName())) {
+            return "false";
+        } else if (type.getKind().isPrimitive()) {
+            return "0";
         } else {
-            return prefix + "object." + variableName + " = " +
-                   getReadType(type, typeAdapterFieldMap) + ";";
+            return "null";
+        }
+    }
+
+    /**
+     * Maps the parameters of the creator to the member variables
+     * that populate them. Throws an exception if a parameter does
+     * not match a member variable, or if a final member variable
+     * is not populated by the creator.
+     *
+     * @param creator         the creator of the class.
+     * @param memberVariables the member variables of the class.
+     * @return the member variables in the order that they
+     * should be passed to the creator.
+     */
+    @NotNull
+    private List<Element> getCreatorArguments(@NotNull ExecutableElement creator,
+                                              @NotNull AnnotatedClass annotatedClass,
+                                              @NotNull Map<Element, TypeMirror> memberVariables) {
+        List<Element> arguments = new ArrayList<>(creator.getParameters().size());
+        for (VariableElement parameter : creator.getParameters()) {
+            Element argument = null;
+            for (Map.Entry<Element, TypeMirror> member : memberVariables.entrySet()) {
+                if (member.getKey().getSimpleName().contentEquals(parameter.getSimpleName())) {
+                    argument = member.getKey();
+                    if (!TypeUtils.getUtils().isAssignable(member.getValue(), parameter.asType())) {
+                        throw new RuntimeException("Creator parameter \"" + parameter.getSimpleName() +
+                                                   "\" in class " + mInfo.getClassAndPackage() +
+                                                   " must be assignable from " + member.getValue() + '.');
+                    }
+                    break;
+                }
+            }
+            if (argument == null) {
+                throw new RuntimeException("Creator parameter \"" + parameter.getSimpleName() + "\" in class " +
+                                           mInfo.getClassAndPackage() +
+                                           " must have the same name as an annotated member variable.");
+            }
+            arguments.add(argument);
+        }
+
+        for (Element member : memberVariables.keySet()) {
+            Element field = annotatedClass.getAccessedField(member);
+            if (field.getModifiers().contains(Modifier.FINAL) && !arguments.contains(member)) {
+                throw new RuntimeException("Final field \"" + member.getSimpleName() + "\" in class " +
+                                           mInfo.getClassAndPackage() +
+                                           " must be populated by the @StagCreator of the class.");
+            }
         }
+        return arguments;
     }
 
     @NotNull
-    private static String getReadType(@NotNull TypeMirror type,
+    private static String getReadType(@NotNull TypeMirror type, @Nullable String recycledValue, boolean intern,
                                       @NotNull Map<String, String> typeAdapterFieldMap) {
         if (type.toString().equals(long.class.getName())) {
             return "reader.nextLong()";
@@ -268,14 +706,23 @@ public class TypeAdapterGenerator {
             return "reader.nextDouble()";
         } else if (type.toString().equals(boolean.class.getName())) {
             return "reader.nextBoolean()";
+        } else if (type.toString().equals(String.class.getName()) && intern) {
+            return "com.vimeo.stag.StringCache.getDefault().nextString(reader)";
         } else if (type.toString().equals(String.class.getName())) {
             return "reader.nextString()";
         } else if (type.toString().equals(int.class.getName())) {
             return "reader.nextInt()";
         } else if (type.toString().equals(float.class.getName())) {
             return "(float) reader.nextDouble()";
+        } else if (isRawJson(type)) {
+            return "com.vimeo.stag.RawJson.read(reader)";
+        } else if (isSlice(type)) {
+            return "com.vimeo.stag.JsonSlice.read(reader)";
+        } else if (isLazyList(type)) {
+            return "com.vimeo.stag.LazyList.read(reader, " +
+                   typeAdapterFieldMap.get(getInnerListType(type).toString()) + ')';
         } else {
-            return getAdapterRead(type, typeAdapterFieldMap);
+            return getAdapterRead(type, recycledValue, typeAdapterFieldMap);
         }
     }
 
@@ -308,6 +755,12 @@ public class TypeAdapterGenerator {
             type.toString().equals(int.class.getName()) ||
             type.toString().equals(float.class.getName())) {
             return "writer.value(" + variableName + ");";
+        } else if (isRawJson(type)) {
+            return "com.vimeo.stag.RawJson.write(writer, " + variableName + ");";
+        } else if (isSlice(type)) {
+            return "com.vimeo.stag.JsonSlice.write(writer, " + variableName + ");";
+        } else if (isLazyList(type)) {
+            return variableName + ".write(writer);";
         } else {
             return getAdapterWrite(type, variableName, typeAdapterFieldMap) + ";";
         }
@@ -319,18 +772,38 @@ public class TypeAdapterGenerator {
         return adapterField + ".write(writer, " + variableName + ")";
     }
 
-    private static String getAdapterRead(@NotNull TypeMirror type,
+    private static String getAdapterRead(@NotNull TypeMirror type, @Nullable String recycledValue,
                                          @NotNull Map<String, String> typeAdapterFieldMap) {
         String adapterField = typeAdapterFieldMap.get(type.toString());
-        return adapterField + ".read(reader)";
+        if (recycledValue == null) {
+            return adapterField + ".read(reader)";
+        }
+        return "com.vimeo.stag.StagTypeAdapter.readInto(" + adapterField + ", reader, " + recycledValue + ')';
+    }
+
+    @NotNull
+    private static MethodSpec getUnfilteredReadMethodSpec(@NotNull TypeName typeName) {
+        return MethodSpec.methodBuilder("readInto")
+                .addParameter(JsonReader.class, "reader")
+                .addParameter(typeName, "target")
+                .returns(typeName)
+                .addModifiers(Modifier.PUBLIC)
+                .addAnnotation(Override.class)
+                .addException(IOException.class)
+                .addCode("\treturn readInto(reader, target, null);\n")
+                .build();
     }
 
     @NotNull
-    private MethodSpec getReadMethodSpec(@NotNull TypeName typeName,
-                                         @NotNull Map<Element, TypeMirror> elements,
+    private MethodSpec getReadMethodSpec(@NotNull TypeName typeName, @NotNull AnnotatedClass annotatedClass,
+                                         @NotNull Map<Element, TypeMirror> elements, @Nullable Element identity,
                                          @NotNull Map<String, String> typeAdapterFieldMap) {
-        MethodSpec.Builder builder = MethodSpec.methodBuilder("read")
+        ExecutableElement creator = annotatedClass.getCreator();
+        MethodSpec.Builder builder = MethodSpec.methodBuilder("readInto")
                 .addParameter(JsonReader.class, "reader")
+                .addParameter(typeName, "target")
+                .addParameter(ParameterizedTypeName.get(ClassName.get(ReadFilter.class),
+                                                        WildcardTypeName.supertypeOf(typeName)), "filter")
                 .returns(typeName)
                 .addModifiers(Modifier.PUBLIC)
                 .addAnnotation(Override.class)
@@ -345,52 +818,428 @@ public class TypeAdapterGenerator {
                         "\t\treturn null;\n" +
                         "\t}\n" +
                         "\treader.beginObject();\n" +
-                        '\n' +
-                        '\t' + mInfo.getClassAndPackage() + " object = new " + mInfo.getClassAndPackage() +
-                        "();\n" +
-                        "\twhile (reader.hasNext()) {\n" +
-                        "\t\tString name = reader.nextName();\n" +
-                        "\t\tcom.google.gson.stream.JsonToken jsonToken = reader.peek();\n" +
-                        "\t\tif (jsonToken == com.google.gson.stream.JsonToken.NULL) {\n" +
-                        "\t\t\treader.skipValue();\n" +
-                        "\t\t\tcontinue;\n" +
-                        "\t\t}\n" +
-                        "\t\tswitch (name) {\n");
+                        '\n');
+
+        List<Element> creatorArguments = null;
+        Map<Element, String> recycledVariables = new HashMap<>();
+        if (creator == null && identity != null) {
+            // Instances that are shared through the identity cache must not be reused
+            builder.addCode('\t' + mInfo.getClassAndPackage() + " object = new " + mInfo.getClassAndPackage() +
+                            "();\n");
+        } else if (creator == null) {
+            addTargetCode(builder, annotatedClass, elements, recycledVariables);
+        } else {
+            // Instances created by a creator cannot be reused, so the target is ignored
+            creatorArguments = getCreatorArguments(creator, annotatedClass, elements);
+            for (Map.Entry<Element, TypeMirror> element : elements.entrySet()) {
+                TypeMirror localType = element.getValue();
+                if (!creatorArguments.contains(element.getKey()) && localType.getKind().isPrimitive()) {
+                    // Boxed so that we can tell whether the value was present in the JSON.
+                    localType = TypeUtils.getUtils().boxedClass((PrimitiveType) localType).asType();
+                }
+                builder.addCode('\t' + localType.toString() + ' ' + getLocalVariableName(element.getKey()) +
+                                " = " + getDefaultValue(localType) + ";\n");
+            }
+        }
 
+        if (creator == null) {
+            // Counts down the keys the filter depends on, it is evaluated when the count reaches zero
+            builder.addCode("\tint " + FILTER_KEYS_VARIABLE + " = filter == null ? 0 : filter.getKeyCount();\n");
+        }
+        if (identity != null) {
+            builder.addCode("\tboolean hasIdentity = false;\n");
+        }
+        Element unknownFields = getUnknownFieldsHolder(annotatedClass);
+        if (unknownFields != null) {
+            builder.addCode("\tcom.vimeo.stag.UnknownFields " + UNKNOWN_FIELDS_VARIABLE + " = null;\n");
+        }
+        addReadCode(builder, "\t", 0, getJsonObjectNode(elements), annotatedClass, recycledVariables, identity,
+                    unknownFields != null ? "" : null, typeAdapterFieldMap);
+        builder.addCode("\n" +
+                        "\treader.endObject();\n");
+
+        if (creator != null) {
+            addCreatorCode(builder, annotatedClass, creatorArguments, elements);
+        }
+        if (unknownFields != null) {
+            builder.addCode('\t' + String.format(getAssignmentFormat(annotatedClass.getAccessedField(unknownFields)),
+                                                  UNKNOWN_FIELDS_VARIABLE) + ";\n");
+        }
+        if (identity != null) {
+            builder.addCode("\tif (hasIdentity) {\n" +
+                            "\t\t" + IDENTITY_CACHE_FIELD + ".put(" + getIdentityValue(annotatedClass, identity) +
+                            ", object);\n" +
+                            "\t}\n");
+        }
+        if (creator == null) {
+            builder.addCode("\tif (filter != null && (" + FILTER_KEYS_VARIABLE + " > 0 || filter.getKeyCount() == 0) " +
+                            "&& !filter.accept(object)) {\n" +
+                            "\t\treturn null;\n" +
+                            "\t}\n");
+        } else {
+            builder.addCode("\tif (filter != null && !filter.accept(object)) {\n" +
+                            "\t\treturn null;\n" +
+                            "\t}\n");
+        }
+
+        builder.addCode("\treturn object;\n");
+
+        return builder.build();
+    }
+
+    /**
+     * Retrieves the member variable annotated with {@link StagIdentity}.
+     * Throws an exception if there is more than one, or if it cannot
+     * be used as an identity.
+     *
+     * @param memberVariables the member variables of the class.
+     * @return the identity, or null if the class does not declare one.
+     */
+    @Nullable
+    private Element getIdentityField(@NotNull Map<Element, TypeMirror> memberVariables) {
+        Element identity = null;
+        for (Map.Entry<Element, TypeMirror> member : memberVariables.entrySet()) {
+            Element element = member.getKey();
+            if (element.getAnnotation(StagIdentity.class) == null) {
+                continue;
+            }
+            if (identity != null) {
+                throw new RuntimeException("Class " + mInfo.getClassAndPackage() +
+                                           " must not declare more than one @StagIdentity.");
+            }
+            String type = member.getValue().toString();
+            if (!type.equals(String.class.getName()) && !type.equals(int.class.getName()) &&
+                !type.equals(long.class.getName())) {
+                throw new RuntimeException("Field \"" + element.getSimpleName() + "\" in class " +
+                                           mInfo.getClassAndPackage() +
+                                           " must be a String, an int or a long to be annotated with @StagIdentity.");
+            }
+            if (getJsonName(element).contains(".")) {
+                throw new RuntimeException("Field \"" + element.getSimpleName() + "\" in class " +
+                                           mInfo.getClassAndPackage() +
+                                           " must not use a path as its key to be annotated with @StagIdentity.");
+            }
+            if (element.getAnnotation(StagIdentity.class).cacheSize() < 1) {
+                throw new RuntimeException("The cache size of @StagIdentity in class " + mInfo.getClassAndPackage() +
+                                           " must be positive.");
+            }
+            identity = element;
+        }
+        return identity;
+    }
+
+    /**
+     * Retrieves the member variable annotated with {@link StagUnknownFields}.
+     * Throws an exception if there is more than one, or if it cannot hold
+     * the unknown fields.
+     *
+     * @param annotatedClass the class.
+     * @return the holder of the unknown fields, or null if the
+     * class does not declare one.
+     */
+    @Nullable
+    private Element getUnknownFieldsHolder(@NotNull AnnotatedClass annotatedClass) {
+        List<VariableElement> fields =
+                ElementUtils.getAnnotatedFields(annotatedClass.getElement(), StagUnknownFields.class);
+        if (fields.isEmpty()) {
+            return null;
+        } else if (fields.size() > 1) {
+            throw new RuntimeException("Class " + mInfo.getClassAndPackage() +
+                                       " must not declare more than one @StagUnknownFields.");
+        }
+        VariableElement field = fields.get(0);
+        if (!field.asType().toString().equals(UnknownFields.class.getName()) ||
+            field.getAnnotation(GsonAdapterKey.class) != null) {
+            throw new RuntimeException("Field \"" + field.getSimpleName() + "\" in class " +
+                                       mInfo.getClassAndPackage() + " must be of type " +
+                                       UnknownFields.class.getName() + " and must not be annotated with " +
+                                       "@GsonAdapterKey to be annotated with @StagUnknownFields.");
+        }
+        return field;
+    }
+
+    /**
+     * Returns an expression for the identity of the object being read.
+     */
+    @NotNull
+    private String getIdentityValue(@NotNull AnnotatedClass annotatedClass, @NotNull Element identity) {
+        if (annotatedClass.getCreator() != null) {
+            return getLocalVariableName(identity);
+        }
+        return getFieldAccess(annotatedClass.getAccessedField(identity));
+    }
+
+    /**
+     * Returns the code that looks up the identity once it has been
+     * read. On a hit, the remaining values of the JSON object are
+     * skipped and the cached instance is returned instead.
+     */
+    @NotNull
+    private String getIdentityCheckCode(@NotNull String prefix, @NotNull AnnotatedClass annotatedClass,
+                                        @NotNull Element identity) {
+        return '\n' +
+               prefix + "hasIdentity = true;\n" +
+               prefix + mInfo.getClassAndPackage() + " cachedObject = " + IDENTITY_CACHE_FIELD + ".get(" +
+               getIdentityValue(annotatedClass, identity) + ");\n" +
+               prefix + "if (cachedObject != null) {\n" +
+               prefix + "\twhile (reader.hasNext()) {\n" +
+               prefix + "\t\treader.nextName();\n" +
+               prefix + "\t\treader.skipValue();\n" +
+               prefix + "\t}\n" +
+               prefix + "\treader.endObject();\n" +
+               prefix + "\treturn filter == null || filter.accept(cachedObject) ? cachedObject : null;\n" +
+               prefix + '}';
+    }
+
+    /**
+     * Returns the code that evaluates the filter once all the values
+     * it depends on have been read. If the filter rejects the object,
+     * the rest of the JSON object is skipped, including the remainder
+     * of the nested objects that enclose the value at the given depth.
+     */
+    @NotNull
+    private static String getFilterCheckCode(@NotNull String prefix, int depth, @NotNull String key) {
+        String skipCode = prefix + "\twhile (reader.hasNext()) {\n" +
+                          prefix + "\t\treader.nextName();\n" +
+                          prefix + "\t\treader.skipValue();\n" +
+                          prefix + "\t}\n" +
+                          prefix + "\treader.endObject();\n";
+        if (depth > 0) {
+            skipCode = prefix + "\tfor (int skipped = 0; skipped <= " + depth + "; skipped++) {\n" +
+                       skipCode.replace(prefix + '\t', prefix + "\t\t") +
+                       prefix + "\t}\n";
+        }
+        return '\n' +
+               prefix + "if (" + FILTER_KEYS_VARIABLE + " > 0 && filter.dependsOn(\"" + key + "\") && --" +
+               FILTER_KEYS_VARIABLE + " == 0 && !filter.accept(object)) {\n" +
+               skipCode +
+               prefix + "\treturn null;\n" +
+               prefix + '}';
+    }
+
+    /**
+     * Declares the object that is read into, which is either the target
+     * or a new instance. The member variables of the target are reset
+     * to the values of a new instance, after their nested objects and
+     * lists have been saved in local variables so that they can be reused.
+     */
+    private void addTargetCode(@NotNull MethodSpec.Builder builder, @NotNull AnnotatedClass annotatedClass,
+                               @NotNull Map<Element, TypeMirror> elements,
+                               @NotNull Map<Element, String> recycledVariables) {
+        StringBuilder resetCode = new StringBuilder();
+        builder.addCode('\t' + mInfo.getClassAndPackage() + " object;\n");
+        String defaults = DEFAULTS_FIELD;
+        for (TypeMirror type : elements.values()) {
+            if (!isImmutable(type)) {
+                defaults = DEFAULTS_VARIABLE;
+                resetCode.append("\t\t").append(mInfo.getClassAndPackage()).append(' ').append(DEFAULTS_VARIABLE)
+                        .append(" = ").append(FRESH_DEFAULTS_FIELD).append(" ? new ")
+                        .append(mInfo.getClassAndPackage()).append("() : ").append(DEFAULTS_FIELD).append(";\n");
+                break;
+            }
+        }
         for (Map.Entry<Element, TypeMirror> element : elements.entrySet()) {
-            String name = getJsonName(element.getKey());
-            String variableName = element.getKey().getSimpleName().toString();
+            Element field = annotatedClass.getAccessedField(element.getKey());
+            TypeMirror type = element.getValue();
+            if (!isSupportedNative(type.toString()) && !isRawJson(type) && !isSlice(type) && !isLazyList(type)) {
+                String recycledVariable = element.getKey().getSimpleName() + "Recycled";
+                builder.addCode('\t' + type.toString() + ' ' + recycledVariable + " = null;\n");
+                resetCode.append("\t\t").append(recycledVariable).append(" = ").append(getFieldAccess(field))
+                        .append(";\n");
+                recycledVariables.put(element.getKey(), recycledVariable);
+            }
+            resetCode.append("\t\t")
+                    .append(String.format(getAssignmentFormat(field), getFieldAccess(defaults, field)))
+                    .append(";\n");
+        }
+        builder.addCode("\tif (target == null) {\n" +
+                        "\t\tobject = new " + mInfo.getClassAndPackage() + "();\n" +
+                        "\t} else {\n" +
+                        "\t\tobject = target;\n" +
+                        resetCode +
+                        "\t}\n");
+    }
+
+    /**
+     * Adds a loop that reads the names and values of a JSON object,
+     * descending into nested objects that contain member variables.
+     * The names of the loop variables are suffixed with the depth of
+     * the object, as they would otherwise shadow the outer ones.
+     * If the unknown fields are retained, the values of unknown keys,
+     * including null values, are captured instead of skipped, those of
+     * nested objects into the nested unknown fields named by the path.
+     * So are the values of known keys that are null or of another type
+     * than the generated code reads, as mismatched values.
+     */
+    private void addReadCode(@NotNull MethodSpec.Builder builder, @NotNull String indent, int depth,
+                             @NotNull JsonObjectNode node, @NotNull AnnotatedClass annotatedClass,
+                             @NotNull Map<Element, String> recycledVariables, @Nullable Element identity,
+                             @Nullable String unknownFieldsPath,
+                             @NotNull Map<String, String> typeAdapterFieldMap) {
+        boolean retainUnknownFields = unknownFieldsPath != null;
+        String nameVariable = depth == 0 ? "name" : "name" + depth;
+        String tokenVariable = depth == 0 ? "jsonToken" : "jsonToken" + depth;
+        builder.addCode(indent + "while (reader.hasNext()) {\n" +
+                        indent + "\tString " + nameVariable + " = reader.nextName();\n" +
+                        indent + "\tcom.google.gson.stream.JsonToken " + tokenVariable + " = reader.peek();\n" +
+                        indent + "\tif (" + tokenVariable + " == com.google.gson.stream.JsonToken.NULL) {\n");
+        if (!retainUnknownFields) {
+            builder.addCode(indent + "\t\treader.skipValue();\n" +
+                            indent + "\t\tcontinue;\n");
+        } else if (!node.mMembers.isEmpty() || !node.mChildren.isEmpty()) {
+            // The null values of known keys are mismatched, the others are retained by the default case
+            builder.addCode(indent + "\t\tswitch (" + nameVariable + ") {\n");
+            for (String name : node.mMembers.keySet()) {
+                builder.addCode(indent + "\t\t\tcase \"" + name + "\":\n");
+            }
+            for (String name : node.mChildren.keySet()) {
+                builder.addCode(indent + "\t\t\tcase \"" + name + "\":\n");
+            }
+            builder.addCode(getRetainCode(indent + "\t\t\t\t", unknownFieldsPath, "readMismatched", nameVariable) +
+                            indent + "\t\t\t\tcontinue;\n" +
+                            indent + "\t\t}\n");
+        }
+        builder.addCode(indent + "\t}\n" +
+                        indent + "\tswitch (" + nameVariable + ") {\n");
+
+        for (Map.Entry<String, Map.Entry<Element, TypeMirror>> member : node.mMembers.entrySet()) {
+            Map.Entry<Element, TypeMirror> element = member.getValue();
+            String name = member.getKey();
+            String assignmentFormat = annotatedClass.getCreator() == null ?
+                                      getAssignmentFormat(annotatedClass.getAccessedField(element.getKey())) :
+                                      getLocalVariableName(element.getKey()) + " = %s";
             String jsonTokenType = getReadTokenType(element.getValue());
+            String recycledVariable = recycledVariables.get(element.getKey());
+            boolean intern = isInterned(element.getKey(), element.getValue());
+            // Models created by a creator do not exist yet, so they are filtered once complete
+            String filterCheckCode = annotatedClass.getCreator() == null ?
+                                     getFilterCheckCode(indent + "\t\t\t\t", depth, getJsonName(element.getKey())) :
+                                     "";
 
             if (jsonTokenType != null) {
-                builder.addCode("\t\t\tcase \"" + name + "\":\n" +
-                                "\t\t\t\tif (jsonToken == " + jsonTokenType +
+                builder.addCode(indent + "\t\tcase \"" + name + "\":\n" +
+                                indent + "\t\t\tif (" + tokenVariable + " == " + jsonTokenType +
                                 ") {\n" +
-                                getReadCode("\t\t\t\t\t", variableName, element.getValue(),
-                                            typeAdapterFieldMap) +
-                                "\n\t\t\t\t} else {" +
-                                "\n\t\t\t\t\treader.skipValue();" +
-                                "\n\t\t\t\t}" +
-                                '\n' +
-                                "\t\t\t\tbreak;\n");
+                                getReadCode(indent + "\t\t\t\t", assignmentFormat, element.getValue(),
+                                            recycledVariable, intern, typeAdapterFieldMap) +
+                                (element.getKey().equals(identity) ?
+                                 getIdentityCheckCode(indent + "\t\t\t\t", annotatedClass, identity) : "") +
+                                filterCheckCode +
+                                '\n' + indent + "\t\t\t} else {\n" +
+                                getSkipCode(indent + "\t\t\t\t", unknownFieldsPath, nameVariable) +
+                                indent + "\t\t\t}\n" +
+                                indent + "\t\t\tbreak;\n");
             } else {
-                builder.addCode("\t\t\tcase \"" + name + "\":\n" +
-                                getReadCode("\t\t\t\t\t", variableName, element.getValue(),
-                                            typeAdapterFieldMap) +
+                builder.addCode(indent + "\t\tcase \"" + name + "\":\n" +
+                                getReadCode(indent + "\t\t\t\t", assignmentFormat, element.getValue(),
+                                            recycledVariable, intern, typeAdapterFieldMap) +
+                                filterCheckCode +
                                 '\n' +
-                                "\t\t\t\tbreak;\n");
+                                indent + "\t\t\tbreak;\n");
             }
         }
 
-        builder.addCode("\t\t\tdefault:\n" +
-                        "\t\t\t\treader.skipValue();\n" +
-                        "\t\t\t\tbreak;\n" +
-                        "\t\t}\n" +
-                        "\t}\n" +
-                        '\n' +
-                        "\treader.endObject();\n" +
-                        "\treturn object;\n");
+        for (Map.Entry<String, JsonObjectNode> child : node.mChildren.entrySet()) {
+            builder.addCode(indent + "\t\tcase \"" + child.getKey() + "\":\n" +
+                            indent + "\t\t\tif (" + tokenVariable +
+                            " == com.google.gson.stream.JsonToken.BEGIN_OBJECT) {\n" +
+                            indent + "\t\t\t\treader.beginObject();\n");
+            addReadCode(builder, indent + "\t\t\t\t", depth + 1, child.getValue(), annotatedClass,
+                        recycledVariables, identity,
+                        retainUnknownFields ? unknownFieldsPath + ".nested(\"" + child.getKey() + "\")" : null,
+                        typeAdapterFieldMap);
+            builder.addCode(indent + "\t\t\t\treader.endObject();\n" +
+                            indent + "\t\t\t} else {\n" +
+                            getSkipCode(indent + "\t\t\t\t", unknownFieldsPath, nameVariable) +
+                            indent + "\t\t\t}\n" +
+                            indent + "\t\t\tbreak;\n");
+        }
 
-        return builder.build();
+        builder.addCode(indent + "\t\tdefault:\n");
+        if (retainUnknownFields) {
+            builder.addCode(getRetainCode(indent + "\t\t\t", unknownFieldsPath, "read", nameVariable));
+        } else {
+            builder.addCode(indent + "\t\t\treader.skipValue();\n");
+        }
+        builder.addCode(indent + "\t\t\tbreak;\n" +
+                        indent + "\t}\n" +
+                        indent + "}\n");
+    }
+
+    /**
+     * Returns the code that captures the next value into the
+     * unknown fields named by the path, creating them if needed.
+     */
+    @NotNull
+    private static String getRetainCode(@NotNull String indent, @NotNull String unknownFieldsPath,
+                                        @NotNull String method, @NotNull String nameVariable) {
+        return indent + "if (" + UNKNOWN_FIELDS_VARIABLE + " == null) {\n" +
+               indent + '\t' + UNKNOWN_FIELDS_VARIABLE + " = new com.vimeo.stag.UnknownFields();\n" +
+               indent + "}\n" +
+               indent + UNKNOWN_FIELDS_VARIABLE + unknownFieldsPath + '.' + method + '(' + nameVariable +
+               ", reader);\n";
+    }
+
+    /**
+     * Returns the code that skips a value of a known key that is of
+     * another type than expected, or captures it as a mismatched
+     * value if the unknown fields are retained.
+     */
+    @NotNull
+    private static String getSkipCode(@NotNull String indent, @Nullable String unknownFieldsPath,
+                                      @NotNull String nameVariable) {
+        if (unknownFieldsPath == null) {
+            return indent + "reader.skipValue();\n";
+        }
+        return getRetainCode(indent, unknownFieldsPath, "readMismatched", nameVariable);
+    }
+
+    private void addCreatorCode(@NotNull MethodSpec.Builder builder, @NotNull AnnotatedClass annotatedClass,
+                                @NotNull List<Element> arguments, @NotNull Map<Element, TypeMirror> elements) {
+        ExecutableElement creator = annotatedClass.getCreator();
+        Preconditions.checkNotNull(creator);
+        StringBuilder argumentList = new StringBuilder();
+        for (Element argument : arguments) {
+            if (argumentList.length() > 0) {
+                argumentList.append(", ");
+            }
+            argumentList.append(getLocalVariableName(argument));
+        }
+
+        if (creator.getKind() == ElementKind.CONSTRUCTOR) {
+            builder.addCode('\t' + mInfo.getClassAndPackage() + " object = new " + mInfo.getClassAndPackage() +
+                            '(' + argumentList + ");\n");
+        } else {
+            // The creator of a mirror is declared by the mirror rather than the model class
+            String declaringClass = ((TypeElement) creator.getEnclosingElement()).getQualifiedName().toString();
+            builder.addCode('\t' + mInfo.getClassAndPackage() + " object = " + declaringClass + '.' +
+                            creator.getSimpleName() + '(' + argumentList + ");\n");
+        }
+
+        // Member variables that the creator does not populate are assigned afterwards,
+        // but only if they were present in the JSON, so that their initial values are kept.
+        for (Map.Entry<Element, TypeMirror> element : elements.entrySet()) {
+            if (arguments.contains(element.getKey())) {
+                continue;
+            }
+            String localVariableName = getLocalVariableName(element.getKey());
+            builder.addCode("\tif (" + localVariableName + " != null) {\n" +
+                            "\t\t" + String.format(getAssignmentFormat(annotatedClass.getAccessedField(element.getKey())),
+                                                   localVariableName) +
+                            ";\n" +
+                            "\t}\n");
+        }
     }
-}
\ No newline at end of file
+
+    /**
+     * A JSON object described by the keys of the member variables.
+     */
+    private static final class JsonObjectNode {
+
+        final Map<String, Map.Entry<Element, TypeMirror>> mMembers = new LinkedHashMap<>();
+
+        final Map<String, JsonObjectNode> mChildren = new LinkedHashMap<>();
+
+    }
+
+}
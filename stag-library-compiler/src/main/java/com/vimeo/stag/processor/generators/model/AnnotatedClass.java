@@ -23,8 +23,12 @@
  */
 package com.vimeo.stag.processor.generators.model;
 
+import com.vimeo.stag.GsonAdapterKey;
+import com.vimeo.stag.StagUnknownFields;
 import com.vimeo.stag.processor.StagProcessor;
 import com.vimeo.stag.processor.utils.DebugLog;
+import com.vimeo.stag.processor.utils.ElementUtils;
+import com.vimeo.stag.processor.utils.Preconditions;
 import com.vimeo.stag.processor.utils.TypeUtils;
 
 import org.jetbrains.annotations.NotNull;
@@ -37,8 +41,11 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
 
 public class AnnotatedClass {
 
@@ -56,23 +63,116 @@ public class AnnotatedClass {
     @Nullable
     private final TypeMirror mInheritedType;
 
+    @Nullable
+    private final ExecutableElement mCreator;
+
+    @Nullable
+    private final TypeMirror mMirroredType;
+
+    @Nullable
+    private final TypeMirror mProjectedType;
+
     public AnnotatedClass(@NotNull Element element, @NotNull List<VariableElement> members) {
-        mType = element.asType();
+        mMirroredType = ElementUtils.getMirroredType(element);
+        mProjectedType = ElementUtils.getProjectedType(element);
+        mType = mMirroredType != null ? mMirroredType : element.asType();
         mElement = element;
-        mInheritedType = TypeUtils.getInheritedType(element);
+        mInheritedType = mMirroredType != null || mProjectedType != null ? null :
+                         TypeUtils.getInheritedType(element);
         mMemberVariables = new ArrayList<>(members);
+        mCreator = ElementUtils.getCreator(element, mType);
     }
 
+    /**
+     * The type that the TypeAdapter is generated for. This is
+     * the type of the annotated class, or the mirrored type if
+     * the class is annotated with {@link com.vimeo.stag.StagMirror}.
+     *
+     * @return the type of the model.
+     */
     @NotNull
     public TypeMirror getType() {
         return mType;
     }
 
+    /**
+     * The type described by this class if it is annotated
+     * with {@link com.vimeo.stag.StagMirror}.
+     *
+     * @return the mirrored type, or null if this class
+     * is not a mirror.
+     */
+    @Nullable
+    public TypeMirror getMirroredType() {
+        return mMirroredType;
+    }
+
+    /**
+     * The model that this class is a projection of, if it
+     * is annotated with {@link com.vimeo.stag.StagProjection}.
+     *
+     * @return the projected type, or null if this class
+     * is not a projection.
+     */
+    @Nullable
+    public TypeMirror getProjectedType() {
+        return mProjectedType;
+    }
+
+    /**
+     * Returns the field that should be read and written
+     * for a member variable of this class. For a mirror,
+     * this is the field of the mirrored type that has the
+     * same name as the member variable. For a projection,
+     * whose member variables are those of the projected
+     * model, it is the field of the projection that has the
+     * same name. Otherwise it is the member variable itself.
+     *
+     * @param member a member variable of this class.
+     * @return the field of the model type.
+     */
+    @NotNull
+    public Element getAccessedField(@NotNull Element member) {
+        if (mProjectedType != null) {
+            Element field = ElementUtils.getField(mElement.asType(), member.getSimpleName().toString());
+            Preconditions.checkNotNull(field);
+            return field;
+        }
+        if (mMirroredType == null || !member.getEnclosingElement().equals(mElement)) {
+            return member;
+        }
+        Element field = ElementUtils.getField(mMirroredType, member.getSimpleName().toString());
+        if (field == null) {
+            throw new RuntimeException("Mirrored class " + mMirroredType + " must declare a field named \"" +
+                                       member.getSimpleName() + "\" to match the mirror " + mElement.asType() +
+                                       '.');
+        }
+        if (!TypeUtils.getUtils().isSameType(field.asType(), member.asType())) {
+            throw new RuntimeException("Field \"" + member.getSimpleName() + "\" in mirror " + mElement.asType() +
+                                       " must have the same type as the field in class " + mMirroredType +
+                                       ", expected " + field.asType() + '.');
+        }
+        return field;
+    }
+
     @NotNull
     public Element getElement() {
         return mElement;
     }
 
+    /**
+     * The constructor or static method annotated with
+     * {@link com.vimeo.stag.StagCreator} that should be
+     * used to create instances of this class.
+     *
+     * @return the creator, or null if instances should be
+     * created using the zero argument constructor.
+     */
+    @Nullable
+    public ExecutableElement getCreator() {
+        return mCreator;
+    }
+
     /**
      * Returns a map of the member variables (Elements) to
      * their concrete types (TypeMirror). If the type of this
@@ -87,6 +187,9 @@ public class AnnotatedClass {
      */
     @NotNull
     public Map<Element, TypeMirror> getMemberVariables() {
+        if (mProjectedType != null) {
+            return getProjectedMemberVariables(mProjectedType);
+        }
         Map<Element, TypeMirror> map = new HashMap<>();
         for (VariableElement element : mMemberVariables) {
             map.put(element, element.asType());
@@ -113,4 +216,48 @@ public class AnnotatedClass {
         return map;
     }
 
+    /**
+     * Selects the member variables of the projected model
+     * that have the same names as the fields of this class.
+     * Throws an exception if a field of this class does not
+     * correspond to a member variable of the projected model.
+     */
+    @NotNull
+    private Map<Element, TypeMirror> getProjectedMemberVariables(@NotNull TypeMirror projectedType) {
+        Map<Element, TypeMirror> projectedMembers =
+                SupportedTypesModel.getInstance().getSupportedType(projectedType).getMemberVariables();
+        Map<Element, TypeMirror> map = new HashMap<>();
+        for (VariableElement field : ElementFilter.fieldsIn(mElement.getEnclosedElements())) {
+            if (field.getModifiers().contains(Modifier.STATIC) ||
+                field.getAnnotation(StagUnknownFields.class) != null) {
+                continue;
+            }
+            if (field.getAnnotation(GsonAdapterKey.class) != null) {
+                throw new RuntimeException("Field \"" + field.getSimpleName() + "\" in projection " +
+                                           mElement.asType() + " must not be annotated with @GsonAdapterKey, " +
+                                           "its key is taken from class " + projectedType + '.');
+            }
+            Map.Entry<Element, TypeMirror> projectedMember = null;
+            for (Map.Entry<Element, TypeMirror> member : projectedMembers.entrySet()) {
+                if (member.getKey().getSimpleName().contentEquals(field.getSimpleName())) {
+                    projectedMember = member;
+                    break;
+                }
+            }
+            if (projectedMember == null) {
+                throw new RuntimeException("Class " + projectedType + " must declare a member variable named \"" +
+                                           field.getSimpleName() + "\" annotated with @GsonAdapterKey to match " +
+                                           "the projection " + mElement.asType() + '.');
+            }
+            if (!TypeUtils.getUtils().isSameType(field.asType(), projectedMember.getValue())) {
+                throw new RuntimeException("Field \"" + field.getSimpleName() + "\" in projection " +
+                                           mElement.asType() + " must have the same type as the member variable " +
+                                           "in class " + projectedType + ", expected " + projectedMember.getValue() +
+                                           '.');
+            }
+            map.put(projectedMember.getKey(), projectedMember.getValue());
+        }
+        return map;
+    }
+
 }
@@ -42,11 +42,24 @@ public class ClassInfo {
     private final TypeMirror mType;
 
     public ClassInfo(@NotNull TypeMirror typeMirror) {
+        this(typeMirror, typeMirror);
+    }
+
+    /**
+     * Creates a ClassInfo for a model type whose generated
+     * classes are named after, and placed in the package of,
+     * another type, e.g. a {@link com.vimeo.stag.StagMirror}.
+     *
+     * @param typeMirror    the type of the model.
+     * @param declaringType the type that the generated
+     *                      classes are named after.
+     */
+    public ClassInfo(@NotNull TypeMirror typeMirror, @NotNull TypeMirror declaringType) {
         mType = typeMirror;
 
-        mPackageName = ElementUtils.getPackage(typeMirror);
+        mPackageName = ElementUtils.getPackage(declaringType);
 
-        String classAndPackage = typeMirror.toString();
+        String classAndPackage = declaringType.toString();
         mClassName = classAndPackage.substring(mPackageName.length() + 1, classAndPackage.length())
                 .replaceAll("\\.", "\\$");
     }
@@ -59,12 +59,15 @@ public final class SupportedTypesModel {
 
     /**
      * Tells the model that we support this type.
+     * A mirror can be retrieved both by its own
+     * type and by the type that it mirrors.
      *
      * @param object the annotated class that we
      *               should track.
      */
     public void addSupportedType(@NotNull AnnotatedClass object) {
         mSupportedTypesMap.put(TypeUtils.getOuterClassType(object.getType()), object);
+        mSupportedTypesMap.put(TypeUtils.getOuterClassType(object.getElement().asType()), object);
         mSupportedTypes.add(object.getElement());
     }
 
@@ -23,14 +23,31 @@
  */
 package com.vimeo.stag.processor.utils;
 
+import com.vimeo.stag.StagAccessor;
+import com.vimeo.stag.StagCreator;
+import com.vimeo.stag.StagMirror;
+import com.vimeo.stag.StagProjection;
+
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
 import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.MirroredTypeException;
 import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
 import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
 
 public final class ElementUtils {
 
@@ -64,4 +81,249 @@ public final class ElementUtils {
         return packageElement.getQualifiedName().toString();
     }
 
+    /**
+     * Retrieves the constructor or static method of the class
+     * that has been annotated with {@link StagCreator}. Throws
+     * an exception if the class declares more than one creator,
+     * or if the creator cannot be used to create an instance
+     * of the class.
+     *
+     * @param element the class element to search.
+     * @return the creator of the class, or null if the class
+     * does not declare one.
+     */
+    @Nullable
+    public static ExecutableElement getCreator(@NotNull Element element) {
+        return getCreator(element, element.asType());
+    }
+
+    /**
+     * Retrieves the constructor or static method of the class
+     * that has been annotated with {@link StagCreator} and creates
+     * instances of the provided type. A class annotated with
+     * {@link StagMirror} may only declare a static method that
+     * returns an instance of the mirrored type.
+     *
+     * @param element     the class element to search.
+     * @param createdType the type that the creator must create.
+     * @return the creator, or null if the class does not declare one.
+     */
+    @Nullable
+    public static ExecutableElement getCreator(@NotNull Element element, @NotNull TypeMirror createdType) {
+        Types types = TypeUtils.getUtils();
+        ExecutableElement creator = null;
+        for (Element enclosedElement : element.getEnclosedElements()) {
+            if (!(enclosedElement instanceof ExecutableElement) ||
+                enclosedElement.getAnnotation(StagCreator.class) == null) {
+                continue;
+            }
+            if (creator != null) {
+                throw new RuntimeException("Class " + element.asType() +
+                                           " must not declare more than one @StagCreator.");
+            }
+
+            ExecutableElement executableElement = (ExecutableElement) enclosedElement;
+            Set<Modifier> modifiers = executableElement.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)) {
+                throw new RuntimeException("Unable to access creator \"" + executableElement.getSimpleName() +
+                                           "\" in class " + element.asType() +
+                                           ", creator must not be private.");
+            }
+            boolean isConstructor = executableElement.getKind() == ElementKind.CONSTRUCTOR;
+            TypeMirror returnType = isConstructor ? element.asType() : executableElement.getReturnType();
+            if ((!isConstructor && !modifiers.contains(Modifier.STATIC)) ||
+                !types.isSameType(types.erasure(returnType), types.erasure(createdType))) {
+                throw new RuntimeException("Unable to use \"" + executableElement.getSimpleName() +
+                                           "\" in class " + element.asType() +
+                                           " as a creator, creator must be a constructor or a static method " +
+                                           "that returns " + createdType + '.');
+            }
+            creator = executableElement;
+        }
+        return creator;
+    }
+
+    /**
+     * Retrieves the class that is described by a class
+     * annotated with {@link StagMirror}.
+     *
+     * @param element the class element.
+     * @return the mirrored type, or null if the class
+     * is not annotated with {@link StagMirror}.
+     */
+    @Nullable
+    public static TypeMirror getMirroredType(@NotNull Element element) {
+        StagMirror mirror = element.getAnnotation(StagMirror.class);
+        if (mirror == null) {
+            return null;
+        }
+        try {
+            mirror.value();
+        } catch (MirroredTypeException e) {
+            return e.getTypeMirror();
+        }
+        throw new RuntimeException("Unable to read the mirrored class of " + element.asType() + '.');
+    }
+
+    /**
+     * Retrieves the model that is projected by a class
+     * annotated with {@link StagProjection}.
+     *
+     * @param element the class element.
+     * @return the projected type, or null if the class
+     * is not annotated with {@link StagProjection}.
+     */
+    @Nullable
+    public static TypeMirror getProjectedType(@NotNull Element element) {
+        StagProjection projection = element.getAnnotation(StagProjection.class);
+        if (projection == null) {
+            return null;
+        }
+        try {
+            projection.value();
+        } catch (MirroredTypeException e) {
+            return e.getTypeMirror();
+        }
+        throw new RuntimeException("Unable to read the projected class of " + element.asType() + '.');
+    }
+
+    /**
+     * Retrieves a field declared or inherited by a class.
+     *
+     * @param type the type of the class.
+     * @param name the name of the field.
+     * @return the field, or null if the class has
+     * no field with that name.
+     */
+    @Nullable
+    public static VariableElement getField(@NotNull TypeMirror type, @NotNull String name) {
+        TypeElement typeElement = (TypeElement) TypeUtils.getUtils().asElement(type);
+        for (VariableElement field : ElementFilter.fieldsIn(getUtils().getAllMembers(typeElement))) {
+            if (field.getSimpleName().contentEquals(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retrieves the fields declared or inherited by a class
+     * that have been annotated with the provided annotation.
+     *
+     * @param element    the class element to search.
+     * @param annotation the annotation of the fields.
+     * @return the annotated fields, which may be empty.
+     */
+    @NotNull
+    public static List<VariableElement> getAnnotatedFields(@NotNull Element element,
+                                                           @NotNull Class<? extends Annotation> annotation) {
+        List<VariableElement> fields = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(getUtils().getAllMembers((TypeElement) element))) {
+            if (field.getAnnotation(annotation) != null) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Retrieves the method that should be used to read the value of
+     * a member variable. This is either a method annotated with
+     * {@link StagAccessor} that takes no parameters, or a method that
+     * follows the JavaBeans naming conventions, e.g. {@code getName()}
+     * or {@code isName()} for a member variable named {@code mName}.
+     *
+     * @param field the member variable.
+     * @return the getter, or null if the class does not declare one.
+     */
+    @Nullable
+    public static ExecutableElement getGetter(@NotNull Element field) {
+        String fieldName = field.getSimpleName().toString();
+        String propertyName = getPropertyName(fieldName);
+        boolean isBoolean = field.asType().toString().equals(boolean.class.getName());
+        Types types = TypeUtils.getUtils();
+
+        ExecutableElement getter = null;
+        for (ExecutableElement method : getAccessibleMethods(field)) {
+            if (!method.getParameters().isEmpty() || !types.isSameType(method.getReturnType(), field.asType())) {
+                continue;
+            }
+            StagAccessor accessor = method.getAnnotation(StagAccessor.class);
+            String methodName = method.getSimpleName().toString();
+            if (accessor != null) {
+                if (accessor.value().equals(fieldName)) {
+                    return method;
+                }
+            } else if (methodName.equals("get" + propertyName) ||
+                       (isBoolean && methodName.equals("is" + propertyName))) {
+                getter = method;
+            }
+        }
+        return getter;
+    }
+
+    /**
+     * Retrieves the method that should be used to set the value of
+     * a member variable. This is either a method annotated with
+     * {@link StagAccessor} that takes one parameter, or a method that
+     * follows the JavaBeans naming conventions, e.g. {@code setName(String)}
+     * for a member variable named {@code mName}.
+     *
+     * @param field the member variable.
+     * @return the setter, or null if the class does not declare one.
+     */
+    @Nullable
+    public static ExecutableElement getSetter(@NotNull Element field) {
+        String fieldName = field.getSimpleName().toString();
+        String propertyName = getPropertyName(fieldName);
+        Types types = TypeUtils.getUtils();
+
+        ExecutableElement setter = null;
+        for (ExecutableElement method : getAccessibleMethods(field)) {
+            if (method.getParameters().size() != 1 ||
+                !types.isAssignable(field.asType(), method.getParameters().get(0).asType())) {
+                continue;
+            }
+            StagAccessor accessor = method.getAnnotation(StagAccessor.class);
+            if (accessor != null) {
+                if (accessor.value().equals(fieldName)) {
+                    return method;
+                }
+            } else if (method.getSimpleName().contentEquals("set" + propertyName)) {
+                setter = method;
+            }
+        }
+        return setter;
+    }
+
+    /**
+     * Converts the name of a member variable to the name of the
+     * property it represents, as used by the names of its accessor
+     * methods. A leading {@code m} prefix is removed, so that both
+     * {@code mName} and {@code name} become {@code Name}.
+     *
+     * @param fieldName the name of the member variable.
+     * @return the capitalized name of the property.
+     */
+    @NotNull
+    public static String getPropertyName(@NotNull String fieldName) {
+        if (fieldName.length() > 1 && fieldName.charAt(0) == 'm' && Character.isUpperCase(fieldName.charAt(1))) {
+            return fieldName.substring(1);
+        }
+        return Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+    }
+
+    @NotNull
+    private static List<ExecutableElement> getAccessibleMethods(@NotNull Element field) {
+        TypeElement enclosingClass = (TypeElement) field.getEnclosingElement();
+        List<ExecutableElement> methods = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(getUtils().getAllMembers(enclosingClass))) {
+            Set<Modifier> modifiers = method.getModifiers();
+            if (!modifiers.contains(Modifier.PRIVATE) && !modifiers.contains(Modifier.STATIC)) {
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
+
 }
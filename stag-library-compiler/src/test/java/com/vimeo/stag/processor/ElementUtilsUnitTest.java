@@ -23,9 +23,14 @@
  */
 package com.vimeo.stag.processor;
 
+import com.vimeo.stag.StagUnknownFields;
+import com.vimeo.stag.processor.dummy.DummyAccessorClass;
 import com.vimeo.stag.processor.dummy.DummyConcreteClass;
+import com.vimeo.stag.processor.dummy.DummyCreatorClass;
 import com.vimeo.stag.processor.dummy.DummyGenericClass;
 import com.vimeo.stag.processor.dummy.DummyInheritedClass;
+import com.vimeo.stag.processor.dummy.DummyMirrorClass;
+import com.vimeo.stag.processor.dummy.DummyUnknownFieldsClass;
 import com.vimeo.stag.processor.utils.ElementUtils;
 import com.vimeo.stag.processor.utils.TypeUtils;
 
@@ -36,6 +41,12 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+
 public class ElementUtilsUnitTest extends BaseUnitTest {
 
     @Before
@@ -99,4 +110,87 @@ public class ElementUtilsUnitTest extends BaseUnitTest {
                                ElementUtils.getPackage(Utils.getTypeMirrorFromClass(Object.class)));
     }
 
+    @Test
+    public void testGetCreator() throws Exception {
+        ExecutableElement creator = ElementUtils.getCreator(Utils.getElementFromClass(DummyCreatorClass.class));
+        Assert.assertNotNull(creator);
+        Assert.assertEquals(ElementKind.CONSTRUCTOR, creator.getKind());
+        Assert.assertEquals(2, creator.getParameters().size());
+
+        Assert.assertNull(ElementUtils.getCreator(Utils.getElementFromClass(DummyConcreteClass.class)));
+        Assert.assertNull(ElementUtils.getCreator(Utils.getElementFromClass(DummyGenericClass.class)));
+
+        ExecutableElement mirrorCreator =
+                ElementUtils.getCreator(Utils.getElementFromClass(DummyMirrorClass.class),
+                                        Utils.getTypeMirrorFromClass(DummyAccessorClass.class));
+        Assert.assertNotNull(mirrorCreator);
+        Assert.assertEquals(ElementKind.METHOD, mirrorCreator.getKind());
+    }
+
+    @Test
+    public void testGetMirroredType() throws Exception {
+        TypeMirror mirroredType = ElementUtils.getMirroredType(Utils.getElementFromClass(DummyMirrorClass.class));
+        Assert.assertNotNull(mirroredType);
+        Assert.assertTrue(types.isSameType(Utils.getTypeMirrorFromClass(DummyAccessorClass.class), mirroredType));
+        Assert.assertNull(ElementUtils.getMirroredType(Utils.getElementFromClass(DummyConcreteClass.class)));
+    }
+
+    @Test
+    public void testGetField() throws Exception {
+        VariableElement field = ElementUtils.getField(Utils.getTypeMirrorFromClass(DummyAccessorClass.class),
+                                                      "testInt");
+        Assert.assertNotNull(field);
+        Assert.assertEquals(Utils.getElementFromClass(DummyAccessorClass.class), field.getEnclosingElement());
+
+        Assert.assertNull(ElementUtils.getField(Utils.getTypeMirrorFromClass(DummyAccessorClass.class), "missing"));
+    }
+
+    @Test
+    public void testGetAnnotatedFields() throws Exception {
+        List<VariableElement> fields =
+                ElementUtils.getAnnotatedFields(Utils.getElementFromClass(DummyUnknownFieldsClass.class),
+                                                StagUnknownFields.class);
+        Assert.assertEquals(1, fields.size());
+        Assert.assertEquals("mUnknownFields", fields.get(0).getSimpleName().toString());
+
+        Assert.assertTrue(ElementUtils.getAnnotatedFields(Utils.getElementFromClass(DummyConcreteClass.class),
+                                                          StagUnknownFields.class).isEmpty());
+    }
+
+    @Test
+    public void testGetPropertyName() throws Exception {
+        Assert.assertEquals("Name", ElementUtils.getPropertyName("mName"));
+        Assert.assertEquals("Name", ElementUtils.getPropertyName("name"));
+        Assert.assertEquals("Mom", ElementUtils.getPropertyName("mom"));
+        Assert.assertEquals("M", ElementUtils.getPropertyName("m"));
+    }
+
+    @Test
+    public void testGetAccessors() throws Exception {
+        Element accessorElement = Utils.getElementFromClass(DummyAccessorClass.class);
+        Assert.assertNotNull(accessorElement);
+        for (Element element : accessorElement.getEnclosedElements()) {
+            if (!(element instanceof VariableElement)) {
+                continue;
+            }
+            ExecutableElement getter = ElementUtils.getGetter(element);
+            ExecutableElement setter = ElementUtils.getSetter(element);
+            String name = element.getSimpleName().toString();
+            if ("mTestString".equals(name)) {
+                Assert.assertEquals("getTestString", getter.getSimpleName().toString());
+                Assert.assertEquals("setTestString", setter.getSimpleName().toString());
+            } else if ("testBoolean".equals(name)) {
+                Assert.assertEquals("isTestBoolean", getter.getSimpleName().toString());
+                Assert.assertEquals("setTestBoolean", setter.getSimpleName().toString());
+            } else if ("testInt".equals(name)) {
+                Assert.assertEquals("readTestInt", getter.getSimpleName().toString());
+                Assert.assertEquals("writeTestInt", setter.getSimpleName().toString());
+            } else {
+                // The getter has the wrong type and the setter is private
+                Assert.assertNull(getter);
+                Assert.assertNull(setter);
+            }
+        }
+    }
+
 }
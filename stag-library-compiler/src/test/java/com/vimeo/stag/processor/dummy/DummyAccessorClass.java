@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag.processor.dummy;
+
+import com.vimeo.stag.StagAccessor;
+
+public class DummyAccessorClass {
+
+    private String mTestString;
+
+    private boolean testBoolean;
+
+    private int testInt;
+
+    private Object testNoAccessors;
+
+    public String getTestString() {
+        return mTestString;
+    }
+
+    public void setTestString(String testString) {
+        mTestString = testString;
+    }
+
+    public boolean isTestBoolean() {
+        return testBoolean;
+    }
+
+    public void setTestBoolean(boolean testBoolean) {
+        this.testBoolean = testBoolean;
+    }
+
+    @StagAccessor("testInt")
+    public int readTestInt() {
+        return testInt;
+    }
+
+    @StagAccessor("testInt")
+    public void writeTestInt(int testInt) {
+        this.testInt = testInt;
+    }
+
+    public String getTestNoAccessors() {
+        return null;
+    }
+
+    private void setTestNoAccessors(Object testNoAccessors) {
+        this.testNoAccessors = testNoAccessors;
+    }
+}
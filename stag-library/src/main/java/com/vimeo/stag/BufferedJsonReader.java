@@ -0,0 +1,810 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * The tokenizer shared by the readers that hold their input, or
+ * a window of it, in a buffer of their own: {@link StagJsonReader}
+ * for chars and {@link Utf8JsonReader} for UTF-8 bytes.
+ * <p/>
+ * This class implements the grammar of JSON, the state of the reader
+ * and the parsing of literals and numbers, in terms of a position in
+ * the buffer. The subclasses implement access to the buffer and the
+ * scanning and decoding of strings, which depend on its encoding.
+ * <p/>
+ * All methods of {@link JsonReader} are overridden, so the input of
+ * the superclass is never read. Gson's own map adapter however reads
+ * the keys of a JSON object through the internals of JsonReader, which
+ * these readers cannot support; maps are read by the adapters of
+ * {@link StagMapTypeAdapterFactory} instead.
+ */
+abstract class BufferedJsonReader extends JsonReader {
+
+    static final int PEEKED_NONE = 0;
+    static final int PEEKED_BEGIN_OBJECT = 1;
+    static final int PEEKED_END_OBJECT = 2;
+    static final int PEEKED_BEGIN_ARRAY = 3;
+    static final int PEEKED_END_ARRAY = 4;
+    static final int PEEKED_TRUE = 5;
+    static final int PEEKED_FALSE = 6;
+    static final int PEEKED_NULL = 7;
+    static final int PEEKED_STRING = 8;
+    static final int PEEKED_NAME = 9;
+    static final int PEEKED_NUMBER = 10;
+    static final int PEEKED_EOF = 11;
+
+    private static final int EMPTY_ARRAY = 1;
+    private static final int NONEMPTY_ARRAY = 2;
+    private static final int EMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int NONEMPTY_OBJECT = 5;
+    private static final int EMPTY_DOCUMENT = 6;
+    private static final int NONEMPTY_DOCUMENT = 7;
+    private static final int CLOSED = 8;
+
+    /**
+     * The powers of ten that are exactly representable as doubles.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * The input of the superclass, which is only read if
+     * code other than this class uses its internals.
+     */
+    private static final Reader UNSUPPORTED_INPUT = new Reader() {
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            throw new IOException("The internals of JsonReader are not supported by this reader, register " +
+                                  StagMapTypeAdapterFactory.class.getName() + " to read maps with it");
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    /**
+     * The position of the next character or byte in the buffer.
+     */
+    int mPos;
+
+    /**
+     * The end of the input in the buffer.
+     */
+    int mLimit;
+
+    /**
+     * The end of the number literal that starts
+     * at {@link #mPos}, if a number was peeked.
+     */
+    int mNumberEnd;
+
+    /**
+     * Whether the string that was last scanned
+     * contains escape sequences.
+     */
+    boolean mEscaped;
+
+    /**
+     * The start of the value whose text is being captured by
+     * {@link #nextSource()}, which {@link #fill(int)} must keep
+     * in the buffer, or -1.
+     */
+    int mMark = -1;
+
+    private int mPeeked = PEEKED_NONE;
+
+    private int[] mStack = new int[32];
+    private int mStackSize;
+    private String[] mPathNames = new String[32];
+    private int[] mPathIndices = new int[32];
+
+    BufferedJsonReader() {
+        super(UNSUPPORTED_INPUT);
+        mStack[mStackSize++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Ensures that at least the minimum number of characters
+     * follow the current position in the buffer, reading more
+     * of the input if necessary, which may move the contents of
+     * the buffer and therefore {@link #mPos} and {@link #mMark}.
+     *
+     * @return false if the input ends before the minimum.
+     */
+    abstract boolean fill(int minimum) throws IOException;
+
+    /**
+     * @return the character at a position in the buffer, which is
+     * only meaningful for ASCII characters, as the structure of JSON,
+     * the literals and numbers are made up of.
+     */
+    abstract int charAt(int position);
+
+    /**
+     * Moves the position past any whitespace.
+     *
+     * @return false if the input ends.
+     */
+    abstract boolean skipWhitespace() throws IOException;
+
+    /**
+     * Validates the string that starts at the current position,
+     * which is just after its opening quote, and returns the
+     * position of its closing quote. Sets {@link #mEscaped}.
+     */
+    abstract int scanString() throws IOException;
+
+    /**
+     * Decodes the string between the current position
+     * and its closing quote at the end, which has
+     * been validated by {@link #scanString()}.
+     */
+    abstract String decodeString(int end) throws IOException;
+
+    /**
+     * @return the ASCII characters in the range [start, end).
+     */
+    abstract String asciiString(int start, int end);
+
+    /**
+     * Moves the position past the array or object whose opening
+     * bracket or brace precedes the current position.
+     */
+    abstract void skipNested() throws IOException;
+
+    /**
+     * @return the text of the input in the range [start, end).
+     */
+    abstract String source(int start, int end) throws IOException;
+
+    /**
+     * Describes the current position for error messages.
+     */
+    abstract String getPosition();
+
+    /**
+     * Called once, before the first value of
+     * the document is read, e.g. to skip a BOM.
+     */
+    void beginDocument() throws IOException {
+    }
+
+    /**
+     * Decodes the name between the current position and its
+     * closing quote at the end, see {@link #decodeString(int)}.
+     */
+    String decodeName(int end) throws IOException {
+        return decodeString(end);
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+        if (peekInternal() != PEEKED_BEGIN_ARRAY) {
+            throw unexpected("BEGIN_ARRAY");
+        }
+        push(EMPTY_ARRAY);
+        mPathIndices[mStackSize - 1] = 0;
+        mPeeked = PEEKED_NONE;
+    }
+
+    @Override
+    public void endArray() throws IOException {
+        if (peekInternal() != PEEKED_END_ARRAY) {
+            throw unexpected("END_ARRAY");
+        }
+        mStackSize--;
+        mPathIndices[mStackSize - 1]++;
+        mPeeked = PEEKED_NONE;
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        if (peekInternal() != PEEKED_BEGIN_OBJECT) {
+            throw unexpected("BEGIN_OBJECT");
+        }
+        push(EMPTY_OBJECT);
+        mPeeked = PEEKED_NONE;
+    }
+
+    @Override
+    public void endObject() throws IOException {
+        if (peekInternal() != PEEKED_END_OBJECT) {
+            throw unexpected("END_OBJECT");
+        }
+        mStackSize--;
+        mPathNames[mStackSize] = null;
+        mPathIndices[mStackSize - 1]++;
+        mPeeked = PEEKED_NONE;
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        int peeked = peekInternal();
+        return peeked != PEEKED_END_OBJECT && peeked != PEEKED_END_ARRAY && peeked != PEEKED_EOF;
+    }
+
+    @Override
+    public JsonToken peek() throws IOException {
+        switch (peekInternal()) {
+            case PEEKED_BEGIN_OBJECT:
+                return JsonToken.BEGIN_OBJECT;
+            case PEEKED_END_OBJECT:
+                return JsonToken.END_OBJECT;
+            case PEEKED_BEGIN_ARRAY:
+                return JsonToken.BEGIN_ARRAY;
+            case PEEKED_END_ARRAY:
+                return JsonToken.END_ARRAY;
+            case PEEKED_TRUE:
+            case PEEKED_FALSE:
+                return JsonToken.BOOLEAN;
+            case PEEKED_NULL:
+                return JsonToken.NULL;
+            case PEEKED_STRING:
+                return JsonToken.STRING;
+            case PEEKED_NAME:
+                return JsonToken.NAME;
+            case PEEKED_NUMBER:
+                return JsonToken.NUMBER;
+            case PEEKED_EOF:
+                return JsonToken.END_DOCUMENT;
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    @Override
+    public String nextName() throws IOException {
+        if (peekInternal() != PEEKED_NAME) {
+            throw unexpected("a name");
+        }
+        int end = scanString();
+        String name = decodeName(end);
+        mPos = end + 1;
+        mPathNames[mStackSize - 1] = name;
+        mPeeked = PEEKED_NONE;
+        return name;
+    }
+
+    @Override
+    public String nextString() throws IOException {
+        int peeked = peekInternal();
+        String value;
+        if (peeked == PEEKED_STRING) {
+            int end = scanString();
+            value = decodeString(end);
+            mPos = end + 1;
+        } else if (peeked == PEEKED_NUMBER) {
+            value = asciiString(mPos, mNumberEnd);
+            mPos = mNumberEnd;
+        } else {
+            throw unexpected("a string");
+        }
+        endValue();
+        return value;
+    }
+
+    @Override
+    public boolean nextBoolean() throws IOException {
+        int peeked = peekInternal();
+        if (peeked != PEEKED_TRUE && peeked != PEEKED_FALSE) {
+            throw unexpected("a boolean");
+        }
+        endValue();
+        return peeked == PEEKED_TRUE;
+    }
+
+    @Override
+    public void nextNull() throws IOException {
+        if (peekInternal() != PEEKED_NULL) {
+            throw unexpected("null");
+        }
+        endValue();
+    }
+
+    @Override
+    public double nextDouble() throws IOException {
+        double value = parseDouble("a double");
+        if (!isLenient() && (Double.isNaN(value) || Double.isInfinite(value))) {
+            throw new MalformedJsonException("JSON forbids NaN and infinities: " + value + getLocation());
+        }
+        consumeNumber();
+        return value;
+    }
+
+    @Override
+    public long nextLong() throws IOException {
+        long value = parseLong("a long");
+        consumeNumber();
+        return value;
+    }
+
+    @Override
+    public int nextInt() throws IOException {
+        long value = parseLong("an int");
+        if ((int) value != value) {
+            throw new NumberFormatException("Expected an int but was " + value + getLocation());
+        }
+        consumeNumber();
+        return (int) value;
+    }
+
+    /**
+     * Skips the next value. Arrays and objects are skipped by scanning
+     * for the bracket or brace that closes them, taking strings and
+     * their escape sequences into account, without reading their
+     * values one by one. The skipped contents are only checked for
+     * being terminated, not for being well formed.
+     */
+    @Override
+    public void skipValue() throws IOException {
+        int peeked = peekInternal();
+        if (peeked == PEEKED_BEGIN_ARRAY || peeked == PEEKED_BEGIN_OBJECT) {
+            skipNested();
+            mPeeked = PEEKED_NONE;
+            mPathIndices[mStackSize - 1]++;
+            mPathNames[mStackSize - 1] = "null";
+            return;
+        }
+        int count = 0;
+        do {
+            switch (peekInternal()) {
+                case PEEKED_BEGIN_ARRAY:
+                    push(EMPTY_ARRAY);
+                    count++;
+                    break;
+                case PEEKED_BEGIN_OBJECT:
+                    push(EMPTY_OBJECT);
+                    count++;
+                    break;
+                case PEEKED_END_ARRAY:
+                case PEEKED_END_OBJECT:
+                    mStackSize--;
+                    count--;
+                    break;
+                case PEEKED_STRING:
+                case PEEKED_NAME:
+                    mPos = scanString() + 1;
+                    break;
+                case PEEKED_NUMBER:
+                    mPos = mNumberEnd;
+                    break;
+                case PEEKED_EOF:
+                    return;
+                default:
+                    // Literals have already been consumed while peeking
+                    break;
+            }
+            mPeeked = PEEKED_NONE;
+        } while (count > 0);
+
+        mPathIndices[mStackSize - 1]++;
+        mPathNames[mStackSize - 1] = "null";
+    }
+
+    /**
+     * Reads the next value, including all nested values, and returns
+     * its text exactly as it appears in the input. The value is skipped
+     * rather than parsed, see {@link #skipValue()}, so nested values
+     * are only checked for being terminated.
+     *
+     * @return the JSON text of the value.
+     * @throws IOException if the value could not be read.
+     */
+    String nextSource() throws IOException {
+        int peeked = peekInternal();
+        int start;
+        switch (peeked) {
+            case PEEKED_BEGIN_OBJECT:
+            case PEEKED_BEGIN_ARRAY:
+            case PEEKED_STRING:
+                // The opening character has been consumed
+                start = mPos - 1;
+                break;
+            case PEEKED_NUMBER:
+                start = mPos;
+                break;
+            case PEEKED_TRUE:
+            case PEEKED_NULL:
+                start = mPos - 4;
+                break;
+            case PEEKED_FALSE:
+                start = mPos - 5;
+                break;
+            default:
+                throw unexpected("a value");
+        }
+        mMark = start;
+        try {
+            skipValue();
+            return source(mMark, mPos);
+        } finally {
+            mMark = -1;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        mPeeked = PEEKED_NONE;
+        mStack[0] = CLOSED;
+        mStackSize = 1;
+        super.close();
+    }
+
+    @Override
+    public String getPath() {
+        StringBuilder result = new StringBuilder().append('$');
+        for (int i = 0; i < mStackSize; i++) {
+            switch (mStack[i]) {
+                case EMPTY_ARRAY:
+                case NONEMPTY_ARRAY:
+                    result.append('[').append(mPathIndices[i]).append(']');
+                    break;
+                case EMPTY_OBJECT:
+                case DANGLING_NAME:
+                case NONEMPTY_OBJECT:
+                    result.append('.');
+                    if (mPathNames[i] != null) {
+                        result.append(mPathNames[i]);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return result.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + getLocation();
+    }
+
+    final int peekInternal() throws IOException {
+        int peeked = mPeeked;
+        if (peeked == PEEKED_NONE) {
+            peeked = doPeek();
+        }
+        return peeked;
+    }
+
+    /**
+     * Completes reading a value whose
+     * characters have been consumed.
+     */
+    final void endValue() {
+        mPeeked = PEEKED_NONE;
+        mPathIndices[mStackSize - 1]++;
+    }
+
+    private int doPeek() throws IOException {
+        int peekStack = mStack[mStackSize - 1];
+        if (peekStack == EMPTY_ARRAY) {
+            mStack[mStackSize - 1] = NONEMPTY_ARRAY;
+        } else if (peekStack == NONEMPTY_ARRAY) {
+            int c = nextNonWhitespace();
+            if (c == ']') {
+                return mPeeked = PEEKED_END_ARRAY;
+            } else if (c != ',') {
+                throw syntaxError("Unterminated array");
+            }
+        } else if (peekStack == EMPTY_OBJECT || peekStack == NONEMPTY_OBJECT) {
+            mStack[mStackSize - 1] = DANGLING_NAME;
+            if (peekStack == NONEMPTY_OBJECT) {
+                int c = nextNonWhitespace();
+                if (c == '}') {
+                    return mPeeked = PEEKED_END_OBJECT;
+                } else if (c != ',') {
+                    throw syntaxError("Unterminated object");
+                }
+            }
+            int c = nextNonWhitespace();
+            if (c == '"') {
+                return mPeeked = PEEKED_NAME;
+            } else if (c == '}' && peekStack == EMPTY_OBJECT) {
+                return mPeeked = PEEKED_END_OBJECT;
+            }
+            throw syntaxError("Expected name");
+        } else if (peekStack == DANGLING_NAME) {
+            mStack[mStackSize - 1] = NONEMPTY_OBJECT;
+            if (nextNonWhitespace() != ':') {
+                throw syntaxError("Expected ':'");
+            }
+        } else if (peekStack == EMPTY_DOCUMENT) {
+            mStack[mStackSize - 1] = NONEMPTY_DOCUMENT;
+            beginDocument();
+            if (!skipWhitespace()) {
+                throw new EOFException("End of input" + getLocation());
+            }
+        } else if (peekStack == NONEMPTY_DOCUMENT) {
+            if (!skipWhitespace()) {
+                return mPeeked = PEEKED_EOF;
+            } else if (!isLenient()) {
+                throw syntaxError("Expected the end of the document");
+            }
+        } else if (peekStack == CLOSED) {
+            throw new IllegalStateException("JsonReader is closed");
+        }
+
+        int c = nextNonWhitespace();
+        switch (c) {
+            case '"':
+                return mPeeked = PEEKED_STRING;
+            case '{':
+                return mPeeked = PEEKED_BEGIN_OBJECT;
+            case '[':
+                return mPeeked = PEEKED_BEGIN_ARRAY;
+            case ']':
+                if (peekStack == EMPTY_ARRAY) {
+                    return mPeeked = PEEKED_END_ARRAY;
+                }
+                throw syntaxError("Unexpected value");
+            case -1:
+                throw new EOFException("End of input" + getLocation());
+            default:
+                mPos--;
+                return mPeeked = peekLiteral();
+        }
+    }
+
+    private int peekLiteral() throws IOException {
+        int c = charAt(mPos);
+        if (c == 't' && isKeyword("true")) {
+            mPos += 4;
+            return PEEKED_TRUE;
+        } else if (c == 'f' && isKeyword("false")) {
+            mPos += 5;
+            return PEEKED_FALSE;
+        } else if (c == 'n' && isKeyword("null")) {
+            mPos += 4;
+            return PEEKED_NULL;
+        } else if (c == '-' || (c >= '0' && c <= '9')) {
+            mNumberEnd = scanNumber();
+            return PEEKED_NUMBER;
+        }
+        throw syntaxError("Unexpected character");
+    }
+
+    private boolean isKeyword(String keyword) throws IOException {
+        int length = keyword.length();
+        if (!fill(length + 1) && mLimit - mPos < length) {
+            return false;
+        }
+        for (int i = 1; i < length; i++) {
+            if (charAt(mPos + i) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return mPos + length == mLimit || isDelimiter(charAt(mPos + length));
+    }
+
+    /**
+     * Validates the number literal that starts at the
+     * current position and returns its end.
+     */
+    private int scanNumber() throws IOException {
+        int length = 0;
+        while (mPos + length < mLimit || fill(length + 1)) {
+            if (isDelimiter(charAt(mPos + length))) {
+                break;
+            }
+            length++;
+        }
+        int end = mPos + length;
+        int p = mPos;
+        if (charAt(p) == '-') {
+            p++;
+        }
+        if (p < end && charAt(p) == '0') {
+            p++;
+        } else {
+            p = scanDigits(p, end);
+        }
+        if (p < end && charAt(p) == '.') {
+            p = scanDigits(p + 1, end);
+        }
+        if (p < end && (charAt(p) == 'e' || charAt(p) == 'E')) {
+            p++;
+            if (p < end && (charAt(p) == '+' || charAt(p) == '-')) {
+                p++;
+            }
+            p = scanDigits(p, end);
+        }
+        if (p != end) {
+            throw syntaxError("Malformed number");
+        }
+        return end;
+    }
+
+    private int scanDigits(int p, int end) throws IOException {
+        int start = p;
+        while (p < end && isDigit(charAt(p))) {
+            p++;
+        }
+        if (p == start) {
+            throw syntaxError("Malformed number");
+        }
+        return p;
+    }
+
+    private String getNumberText(String expected) throws IOException {
+        int peeked = peekInternal();
+        if (peeked == PEEKED_NUMBER) {
+            return asciiString(mPos, mNumberEnd);
+        } else if (peeked == PEEKED_STRING) {
+            return decodeString(scanString());
+        }
+        throw unexpected(expected);
+    }
+
+    /**
+     * Parses the next number, or string, as a long. Integers
+     * with up to 18 digits are parsed without allocating.
+     */
+    private long parseLong(String expected) throws IOException {
+        if (peekInternal() == PEEKED_NUMBER) {
+            int p = mPos;
+            boolean negative = charAt(p) == '-';
+            if (negative) {
+                p++;
+            }
+            if (mNumberEnd - p <= 18) {
+                long value = 0;
+                while (p < mNumberEnd && isDigit(charAt(p))) {
+                    value = value * 10 + (charAt(p++) - '0');
+                }
+                if (p == mNumberEnd) {
+                    return negative ? -value : value;
+                }
+            }
+        }
+        String text = getNumberText(expected);
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            double value = Double.parseDouble(text);
+            long result = (long) value;
+            if (result != value) {
+                throw new NumberFormatException("Expected " + expected + " but was " + text + getLocation());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Parses the next number, or string, as a double. Numbers
+     * with up to 15 digits and a small exponent are parsed
+     * without allocating, as the quotient or product of two
+     * exactly representable doubles, which is correctly rounded.
+     * <p/>
+     * Like {@link JsonReader} of Gson 2.7, which reads integer
+     * literals that fit in a long as longs, -0 is read as 0.0.
+     */
+    private double parseDouble(String expected) throws IOException {
+        if (peekInternal() == PEEKED_NUMBER) {
+            int p = mPos;
+            boolean negative = charAt(p) == '-';
+            if (negative) {
+                p++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int scale = 0;
+            boolean fraction = false;
+            boolean integer = true;
+            for (; p < mNumberEnd; p++) {
+                int c = charAt(p);
+                if (isDigit(c)) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    digits++;
+                    if (fraction) {
+                        scale--;
+                    }
+                } else if (c == '.') {
+                    fraction = true;
+                    integer = false;
+                } else {
+                    break;
+                }
+            }
+            if (p < mNumberEnd && mNumberEnd - p <= 5) {
+                // An exponent of up to three digits
+                integer = false;
+                p++;
+                boolean negativeExponent = charAt(p) == '-';
+                if (charAt(p) == '+' || negativeExponent) {
+                    p++;
+                }
+                int exponent = 0;
+                while (p < mNumberEnd) {
+                    exponent = exponent * 10 + (charAt(p++) - '0');
+                }
+                scale += negativeExponent ? -exponent : exponent;
+            }
+            if (p == mNumberEnd && digits <= 15 && scale >= -22 && scale <= 22) {
+                double value = scale < 0 ? mantissa / POWERS_OF_TEN[-scale] : mantissa * POWERS_OF_TEN[scale];
+                return negative && (mantissa != 0 || !integer) ? -value : value;
+            }
+        }
+        return Double.parseDouble(getNumberText(expected));
+    }
+
+    private void consumeNumber() throws IOException {
+        if (mPeeked == PEEKED_NUMBER) {
+            mPos = mNumberEnd;
+        } else {
+            mPos = scanString() + 1;
+        }
+        endValue();
+    }
+
+    private void push(int scope) {
+        if (mStackSize == mStack.length) {
+            mStack = Arrays.copyOf(mStack, mStackSize * 2);
+            mPathIndices = Arrays.copyOf(mPathIndices, mStackSize * 2);
+            mPathNames = Arrays.copyOf(mPathNames, mStackSize * 2);
+        }
+        mStack[mStackSize++] = scope;
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        if (!skipWhitespace()) {
+            return -1;
+        }
+        return charAt(mPos++);
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isDelimiter(int c) {
+        return c == ',' || c == ']' || c == '}' || c == ':' || c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    final IllegalStateException unexpected(String expected) throws IOException {
+        return new IllegalStateException("Expected " + expected + " but was " + peek() + getLocation());
+    }
+
+    final MalformedJsonException syntaxError(String message) {
+        return new MalformedJsonException(message + getLocation());
+    }
+
+    final String getLocation() {
+        return getPosition() + " path " + getPath();
+    }
+
+}
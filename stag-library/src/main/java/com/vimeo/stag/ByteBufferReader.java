@@ -0,0 +1,161 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * A {@link Reader} of UTF-8 text held in a {@link ByteBuffer},
+ * e.g. a {@link java.nio.MappedByteBuffer} of a large file.
+ * <p/>
+ * The bytes are decoded directly from the buffer as the reader
+ * is read, so a {@link JsonReader} on top of it, and the adapters
+ * generated by Stag, can read a file of any size without it being
+ * copied onto the heap first: the pages of a mapped file are read
+ * through the page cache of the operating system as they are needed,
+ * and the only buffer on the heap is the one of the JsonReader.
+ * <p/>
+ * The reader reads from the position of the buffer to its limit
+ * without modifying either, and skips a leading byte order mark.
+ */
+public final class ByteBufferReader extends Reader {
+
+    private final ByteBuffer mInput;
+    private final CharsetDecoder mDecoder;
+    private final CharBuffer mPending = CharBuffer.allocate(2);
+    private boolean mFlushed;
+    private boolean mClosed;
+
+    /**
+     * @param buffer the UTF-8 input.
+     */
+    public ByteBufferReader(ByteBuffer buffer) {
+        mInput = buffer.duplicate();
+        mDecoder = Utf8.CHARSET.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        mPending.flip();
+        int position = mInput.position();
+        if (mInput.remaining() >= 3 && mInput.get(position) == (byte) 0xEF &&
+            mInput.get(position + 1) == (byte) 0xBB && mInput.get(position + 2) == (byte) 0xBF) {
+            mInput.position(position + 3);
+        }
+    }
+
+    /**
+     * Reads a single JSON value from a buffer with an adapter,
+     * e.g. the one generated by Stag.
+     *
+     * @param buffer  the UTF-8 input, which must contain
+     *                exactly one value and is not modified.
+     * @param adapter the adapter that reads the value.
+     * @param <T>     the type of the value.
+     * @return the value.
+     * @throws IOException if the value could not be read.
+     */
+    public static <T> T read(ByteBuffer buffer, TypeAdapter<T> adapter) throws IOException {
+        JsonReader reader = new JsonReader(new ByteBufferReader(buffer));
+        try {
+            T value = adapter.read(reader);
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new MalformedJsonException("Unexpected characters after the value at " + reader.getPath());
+            }
+            return value;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * @return the number of bytes of the
+     * input that have not been read yet.
+     */
+    public int remaining() {
+        return mInput.remaining();
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        if (mClosed) {
+            throw new IOException("The reader is closed");
+        }
+        if (offset < 0 || length < 0 || offset + length > buffer.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (length == 0) {
+            return 0;
+        }
+        CharBuffer out = CharBuffer.wrap(buffer, offset, length);
+        while (mPending.hasRemaining() && out.hasRemaining()) {
+            out.put(mPending.get());
+        }
+        if (!mPending.hasRemaining() && !mFlushed) {
+            decode(out);
+            if (out.position() == offset && !mFlushed) {
+                // A character that takes two chars does not fit
+                mPending.clear();
+                decode(mPending);
+                mPending.flip();
+                while (mPending.hasRemaining() && out.hasRemaining()) {
+                    out.put(mPending.get());
+                }
+            }
+        }
+        int count = out.position() - offset;
+        return count == 0 ? -1 : count;
+    }
+
+    private void decode(CharBuffer out) throws IOException {
+        CoderResult result = mDecoder.decode(mInput, out, true);
+        if (result.isUnderflow()) {
+            result = mDecoder.flush(out);
+            mFlushed = result.isUnderflow();
+        }
+        if (result.isError()) {
+            throw new MalformedJsonException("Invalid UTF-8 input at byte " + mInput.position());
+        }
+    }
+
+    @Override
+    public boolean ready() {
+        return !mClosed && (mPending.hasRemaining() || mInput.hasRemaining());
+    }
+
+    @Override
+    public void close() {
+        mClosed = true;
+    }
+
+}
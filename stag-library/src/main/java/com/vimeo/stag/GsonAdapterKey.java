@@ -59,6 +59,16 @@ public @interface GsonAdapterKey {
      * mapped. If none is supplied, then the
      * name of the member variable will be
      * used as the key.
+     * <p/>
+     * A key containing dots is treated as a path
+     * into nested JSON objects, e.g. {@code "stats.plays"}
+     * maps the member variable to the {@code plays}
+     * value of the {@code stats} object. No class is
+     * needed for the nested object, it is read into,
+     * and written from, the annotated member variable
+     * directly. Because of this, a key cannot contain
+     * a literal dot, and a key must not be used both
+     * for a member variable and as a path to others.
      *
      * @return the value for the JSON key
      * or empty if there is none.
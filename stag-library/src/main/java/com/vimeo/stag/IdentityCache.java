@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of model instances by their identity, see
+ * {@link StagIdentity}. When the cache is full, the least
+ * recently used instance is evicted. The cache is thread safe.
+ *
+ * @param <K> the type of the identity.
+ * @param <V> the type of the model.
+ */
+public final class IdentityCache<K, V> {
+
+    private final Map<K, V> mCache;
+
+    private long mHits;
+    private long mMisses;
+
+    /**
+     * @param maxSize the maximum number of
+     *                instances that are cached.
+     */
+    public IdentityCache(final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The size of the cache must be positive");
+        }
+        mCache = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Looks up the instance with an identity.
+     *
+     * @param key the identity.
+     * @return the cached instance, or null if
+     * there is none.
+     */
+    public synchronized V get(K key) {
+        V value = mCache.get(key);
+        if (value != null) {
+            mHits++;
+        } else {
+            mMisses++;
+        }
+        return value;
+    }
+
+    /**
+     * Caches an instance by its identity.
+     *
+     * @param key   the identity, ignored if null.
+     * @param value the instance.
+     */
+    public synchronized void put(K key, V value) {
+        if (key != null && value != null) {
+            mCache.put(key, value);
+        }
+    }
+
+    /**
+     * @return the number of cached instances.
+     */
+    public synchronized int size() {
+        return mCache.size();
+    }
+
+    /**
+     * @return the number of lookups that
+     * returned a cached instance.
+     */
+    public synchronized long getHitCount() {
+        return mHits;
+    }
+
+    /**
+     * @return the number of lookups of identities
+     * that were not cached.
+     */
+    public synchronized long getMissCount() {
+        return mMisses;
+    }
+
+    /**
+     * Removes all cached instances.
+     */
+    public synchronized void clear() {
+        mCache.clear();
+    }
+
+}
@@ -0,0 +1,370 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An index of the elements of a JSON array in UTF-8 input, e.g.
+ * a memory mapped file, that allows single elements to be read
+ * without parsing the rest of the array.
+ * <p/>
+ * The index is built by scanning the structure of the array once,
+ * and holds the byte offsets of the start and end of each element.
+ * Optionally, the elements can also be keyed by the value of one
+ * of their top level members, such as an id. An index can be
+ * written to a side file and read back, so that the array only
+ * has to be scanned the first time it is used.
+ * <p/>
+ * Reading an element decodes only the bytes of that element and
+ * parses them with the adapter, e.g. the one generated by Stag.
+ * The index is immutable and safe to use from multiple threads,
+ * and so are its read methods, which never modify the buffer.
+ */
+public final class JsonArrayIndex {
+
+    private static final int MAGIC = 0x53544149;
+    private static final int VERSION = 1;
+
+    private final int mInputLimit;
+    private final int[] mBoundaries;
+    private final String mKeyName;
+    private final Map<String, Integer> mKeys;
+
+    private JsonArrayIndex(int inputLimit, int[] boundaries, String keyName, Map<String, Integer> keys) {
+        mInputLimit = inputLimit;
+        mBoundaries = boundaries;
+        mKeyName = keyName;
+        mKeys = keys;
+    }
+
+    /**
+     * Builds an index of the array that makes up the remaining
+     * bytes of the buffer.
+     *
+     * @param buffer the UTF-8 input, which is scanned from its
+     *               position to its limit, neither of which
+     *               are modified.
+     * @return the index.
+     * @throws MalformedJsonException if the input is not an array.
+     */
+    public static JsonArrayIndex build(ByteBuffer buffer) throws MalformedJsonException {
+        return new JsonArrayIndex(buffer.limit(), JsonArrayScanner.scan(buffer), null, null);
+    }
+
+    /**
+     * Builds an index of the array that makes up the remaining
+     * bytes of the buffer, keyed by the value of a top level member
+     * of the elements. String values are keyed by their contents
+     * and numbers by their literal text, e.g. {@code "42"}. Elements
+     * that are not objects, that lack the member, or whose value of
+     * it is not a string or a number are not keyed. If several
+     * elements have the same key, the first of them is indexed.
+     * <p/>
+     * The member name is matched against the names as they appear in
+     * the input, so names containing escape sequences are not matched.
+     *
+     * @param buffer  the UTF-8 input, which is scanned from its
+     *                position to its limit, neither of which
+     *                are modified.
+     * @param keyName the name of the member that keys the elements.
+     * @return the index.
+     * @throws MalformedJsonException if the input is not an array.
+     */
+    public static JsonArrayIndex build(ByteBuffer buffer, String keyName) throws MalformedJsonException {
+        if (keyName == null) {
+            throw new NullPointerException("The key name must not be null");
+        }
+        int[] boundaries = JsonArrayScanner.scan(buffer);
+        byte[] name = keyName.getBytes(Utf8.CHARSET);
+        Map<String, Integer> keys = new HashMap<>();
+        for (int n = 0; n < boundaries.length; n += 2) {
+            String key = findKey(buffer, boundaries[n], boundaries[n + 1], name);
+            if (key != null && !keys.containsKey(key)) {
+                keys.put(key, n / 2);
+            }
+        }
+        return new JsonArrayIndex(buffer.limit(), boundaries, keyName, keys);
+    }
+
+    /**
+     * Reads an index that was written by {@link #writeTo(OutputStream)}.
+     * Exactly the bytes of the index are read, so the stream can
+     * carry other data after it.
+     *
+     * @param in the stream to read from, which is not closed.
+     * @return the index.
+     * @throws IOException if the stream could not be read or
+     *                     does not contain an index.
+     */
+    public static JsonArrayIndex readFrom(InputStream in) throws IOException {
+        DataInputStream input = new DataInputStream(in);
+        if (input.readInt() != MAGIC) {
+            throw new IOException("The stream does not contain a JSON array index");
+        }
+        int version = input.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported JSON array index version " + version);
+        }
+        int inputLimit = input.readInt();
+        int[] boundaries = new int[2 * input.readInt()];
+        for (int n = 0; n < boundaries.length; n++) {
+            boundaries[n] = input.readInt();
+        }
+        String keyName = null;
+        Map<String, Integer> keys = null;
+        if (input.readBoolean()) {
+            keyName = readString(input);
+            int count = input.readInt();
+            keys = new HashMap<>(count * 4 / 3 + 1);
+            for (int n = 0; n < count; n++) {
+                keys.put(readString(input), input.readInt());
+            }
+        }
+        return new JsonArrayIndex(inputLimit, boundaries, keyName, keys);
+    }
+
+    /**
+     * Writes the index, so that it can be read back
+     * with {@link #readFrom(InputStream)}.
+     *
+     * @param out the stream to write to, which is
+     *            flushed but not closed.
+     * @throws IOException if the index could not be written.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(out));
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(mInputLimit);
+        output.writeInt(mBoundaries.length / 2);
+        for (int boundary : mBoundaries) {
+            output.writeInt(boundary);
+        }
+        output.writeBoolean(mKeys != null);
+        if (mKeys != null) {
+            writeString(output, mKeyName);
+            output.writeInt(mKeys.size());
+            for (Map.Entry<String, Integer> entry : mKeys.entrySet()) {
+                writeString(output, entry.getKey());
+                output.writeInt(entry.getValue());
+            }
+        }
+        output.flush();
+    }
+
+    /**
+     * Writes a string as its length in UTF-8 bytes followed by the
+     * bytes. Unlike {@link DataOutputStream#writeUTF(String)}, this
+     * has no limit of 65535 bytes, which a key could exceed.
+     */
+    private static void writeString(DataOutputStream output, String string) throws IOException {
+        byte[] bytes = string.getBytes(Utf8.CHARSET);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+     */
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid string length " + length + " in JSON array index");
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, Utf8.CHARSET);
+    }
+
+    /**
+     * @return the number of elements in the array.
+     */
+    public int size() {
+        return mBoundaries.length / 2;
+    }
+
+    /**
+     * @param index the index of the element.
+     * @return the absolute index in the input of
+     * the first byte of the element.
+     */
+    public int getStart(int index) {
+        checkIndex(index);
+        return mBoundaries[2 * index];
+    }
+
+    /**
+     * @param index the index of the element.
+     * @return the absolute index in the input of the
+     * byte that follows the last byte of the element.
+     */
+    public int getEnd(int index) {
+        checkIndex(index);
+        return mBoundaries[2 * index + 1];
+    }
+
+    /**
+     * @return the name of the member that keys the elements,
+     * or null if the elements are not keyed.
+     */
+    public String getKeyName() {
+        return mKeyName;
+    }
+
+    /**
+     * @param key the key of an element.
+     * @return the index of the element with the key, or -1
+     * if there is none or the elements are not keyed.
+     */
+    public int indexOf(String key) {
+        Integer index = mKeys == null ? null : mKeys.get(key);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Reads a single element of the array.
+     *
+     * @param buffer  the input that was indexed, which is
+     *                not modified.
+     * @param index   the index of the element.
+     * @param adapter the adapter that reads the element.
+     * @param <T>     the type of the element.
+     * @return the element.
+     * @throws IOException if the element could not be read.
+     */
+    public <T> T read(ByteBuffer buffer, int index, TypeAdapter<T> adapter) throws IOException {
+        checkIndex(index);
+        if (buffer.limit() != mInputLimit) {
+            throw new IllegalArgumentException("The buffer is not the input that was indexed");
+        }
+        int start = mBoundaries[2 * index];
+        char[] chars = new char[mBoundaries[2 * index + 1] - start];
+        int length = Utf8.decode(buffer, start, mBoundaries[2 * index + 1], chars, 0);
+        StagJsonReader reader = new StagJsonReader(chars, 0, length);
+        T value = adapter.read(reader);
+        if (reader.peek() != JsonToken.END_DOCUMENT) {
+            throw new MalformedJsonException("Unexpected characters after the element at byte " + start);
+        }
+        return value;
+    }
+
+    /**
+     * Reads the element of the array with a key.
+     *
+     * @param buffer  the input that was indexed, which is
+     *                not modified.
+     * @param key     the key of the element.
+     * @param adapter the adapter that reads the element.
+     * @param <T>     the type of the element.
+     * @return the element, or null if there is no element with
+     * the key or the elements are not keyed.
+     * @throws IOException if the element could not be read.
+     */
+    public <T> T read(ByteBuffer buffer, String key, TypeAdapter<T> adapter) throws IOException {
+        int index = indexOf(key);
+        return index < 0 ? null : read(buffer, index, adapter);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + size() + " elements");
+        }
+    }
+
+    /**
+     * Returns the key of the element between start and end,
+     * or null if the element does not have one.
+     */
+    private static String findKey(ByteBuffer buffer, int start, int end, byte[] name)
+            throws MalformedJsonException {
+        if (buffer.get(start) != '{') {
+            return null;
+        }
+        int n = JsonArrayScanner.skipWhitespace(buffer, start + 1, end);
+        while (n < end && buffer.get(n) == '"') {
+            int nameEnd = JsonArrayScanner.skipString(buffer, n + 1, end);
+            boolean matches = equals(buffer, n + 1, nameEnd - 1, name);
+            n = JsonArrayScanner.skipWhitespace(buffer, nameEnd, end);
+            if (n == end || buffer.get(n) != ':') {
+                throw JsonArrayScanner.syntaxError("Expected ':'", n);
+            }
+            n = JsonArrayScanner.skipWhitespace(buffer, n + 1, end);
+            int valueEnd = JsonArrayScanner.skipValue(buffer, n, end);
+            if (matches) {
+                return toKey(buffer, n, valueEnd);
+            }
+            n = JsonArrayScanner.skipWhitespace(buffer, valueEnd, end);
+            if (n == end || buffer.get(n) != ',') {
+                break;
+            }
+            n = JsonArrayScanner.skipWhitespace(buffer, n + 1, end);
+        }
+        return null;
+    }
+
+    private static String toKey(ByteBuffer buffer, int start, int end) throws MalformedJsonException {
+        byte first = buffer.get(start);
+        if (first != '"' && first != '-' && (first < '0' || first > '9')) {
+            return null;
+        }
+        char[] chars = new char[end - start];
+        int length = Utf8.decode(buffer, start, end, chars, 0);
+        if (first != '"') {
+            return new String(chars, 0, length);
+        }
+        try {
+            return new StagJsonReader(chars, 0, length).nextString();
+        } catch (MalformedJsonException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new MalformedJsonException("Invalid key at byte " + start);
+        }
+    }
+
+    private static boolean equals(ByteBuffer buffer, int start, int end, byte[] bytes) {
+        if (end - start != bytes.length) {
+            return false;
+        }
+        for (int n = 0; n < bytes.length; n++) {
+            if (buffer.get(start + n) != bytes[n]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the elements of a JSON array as they are read,
+ * so that only one element is in memory at a time, regardless
+ * of the size of the array. The elements are decoded with the
+ * supplied {@link TypeAdapter}, which for Stag models is the
+ * generated adapter returned by {@code gson.getAdapter(Model.class)}.
+ * <p/>
+ * As an {@link Iterator} cannot throw checked exceptions, errors
+ * are reported like {@link com.google.gson.Gson} does: malformed
+ * JSON as a {@link JsonSyntaxException} and failures to read the
+ * input as a {@link JsonIOException}.
+ * <p/>
+ * The iterator reads from the reader lazily, so the reader must
+ * not be used for anything else until the iteration has finished.
+ * It is not thread safe.
+ *
+ * @param <T> the type of the elements.
+ */
+public final class JsonArrayIterator<T> implements Iterator<T>, Closeable {
+
+    private final JsonReader mReader;
+    private final TypeAdapter<T> mAdapter;
+    private boolean mFinished;
+
+    private JsonArrayIterator(JsonReader reader, TypeAdapter<T> adapter, boolean finished) {
+        mReader = reader;
+        mAdapter = adapter;
+        mFinished = finished;
+    }
+
+    /**
+     * Creates an iterator over the array at which the reader
+     * is positioned. A null value is treated as an empty array.
+     *
+     * @param reader  the reader positioned at the array.
+     * @param adapter the adapter that decodes the elements.
+     * @param <T>     the type of the elements.
+     * @return the iterator.
+     * @throws IOException if the JSON could not be read or
+     *                     the value is not an array.
+     */
+    public static <T> JsonArrayIterator<T> of(JsonReader reader, TypeAdapter<T> adapter) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return new JsonArrayIterator<>(reader, adapter, true);
+        }
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            throw new MalformedJsonException("Expected an array but was " + reader.peek() + " at path " +
+                                             reader.getPath());
+        }
+        reader.beginArray();
+        return new JsonArrayIterator<>(reader, adapter, false);
+    }
+
+    /**
+     * Creates an iterator over the array at a path, e.g.
+     * {@code data} for the videos of a video list. If nothing
+     * matches the path, the iterator is empty.
+     *
+     * @param reader  the reader positioned at the root value.
+     * @param path    the path of the array.
+     * @param adapter the adapter that decodes the elements.
+     * @param <T>     the type of the elements.
+     * @return the iterator.
+     * @throws IOException if the JSON could not be read or
+     *                     the value at the path is not an array.
+     */
+    public static <T> JsonArrayIterator<T> of(JsonReader reader, JsonPath path, TypeAdapter<T> adapter)
+            throws IOException {
+        if (!path.seek(reader)) {
+            return new JsonArrayIterator<>(reader, adapter, true);
+        }
+        return of(reader, adapter);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (mFinished) {
+            return false;
+        }
+        try {
+            if (mReader.hasNext()) {
+                return true;
+            }
+            mReader.endArray();
+            mFinished = true;
+            return false;
+        } catch (MalformedJsonException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            return mAdapter.read(mReader);
+        } catch (MalformedJsonException | IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("The elements of a JSON array cannot be removed");
+    }
+
+    /**
+     * Stops the iteration and closes the underlying reader.
+     *
+     * @throws IOException if the reader could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        mFinished = true;
+        mReader.close();
+    }
+
+}
@@ -0,0 +1,302 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the elements of a JSON array to a subscriber as they
+ * are read, following the protocol of Reactive Streams: elements are
+ * only read from the reader when the subscriber has requested them,
+ * so memory use stays bounded by the demand no matter how slow the
+ * subscriber is, and the subscriber may cancel at any time, which
+ * closes the reader.
+ * <p/>
+ * Since the library targets Java 7, the publisher does not implement
+ * {@code java.util.concurrent.Flow.Publisher}; its {@link Subscriber}
+ * and {@link Subscription} have the same methods and contracts, so a
+ * bridge to {@code Flow} or to a Reactive Streams library only needs
+ * to forward the calls.
+ * <p/>
+ * The elements are read and delivered on the supplied executor,
+ * one batch of requested elements at a time; signals are never
+ * delivered concurrently. Null elements are skipped, since they
+ * cannot be delivered. The reader can only be consumed once, so
+ * the publisher accepts a single subscriber.
+ *
+ * @param <T> the type of the elements.
+ */
+public final class JsonArrayPublisher<T> {
+
+    /**
+     * Receives the elements of a {@link JsonArrayPublisher},
+     * equivalent to {@code java.util.concurrent.Flow.Subscriber}.
+     *
+     * @param <T> the type of the elements.
+     */
+    public interface Subscriber<T> {
+
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable throwable);
+
+        void onComplete();
+    }
+
+    /**
+     * Controls the flow of elements to a {@link Subscriber},
+     * equivalent to {@code java.util.concurrent.Flow.Subscription}.
+     */
+    public interface Subscription {
+
+        /**
+         * Requests more elements. A non-positive number
+         * cancels the subscription with an error.
+         *
+         * @param n the number of additional elements.
+         */
+        void request(long n);
+
+        /**
+         * Stops the delivery of elements and closes the reader.
+         */
+        void cancel();
+    }
+
+    private final JsonReader mReader;
+    private final JsonPath mPath;
+    private final TypeAdapter<T> mAdapter;
+    private final Executor mExecutor;
+    private final AtomicBoolean mSubscribed = new AtomicBoolean();
+
+    /**
+     * @param reader   the reader positioned at the array.
+     * @param adapter  the adapter that decodes the elements.
+     * @param executor the executor that reads and delivers
+     *                 the elements.
+     */
+    public JsonArrayPublisher(JsonReader reader, TypeAdapter<T> adapter, Executor executor) {
+        this(reader, null, adapter, executor);
+    }
+
+    /**
+     * @param reader   the reader positioned at the root value.
+     * @param path     the path of the array, or null if the
+     *                 reader is positioned at the array.
+     * @param adapter  the adapter that decodes the elements.
+     * @param executor the executor that reads and delivers
+     *                 the elements.
+     */
+    public JsonArrayPublisher(JsonReader reader, JsonPath path, TypeAdapter<T> adapter, Executor executor) {
+        mReader = reader;
+        mPath = path;
+        mAdapter = adapter;
+        mExecutor = executor;
+    }
+
+    /**
+     * Subscribes to the elements. Subscribing a second time
+     * signals an {@link IllegalStateException} to the subscriber.
+     *
+     * @param subscriber the subscriber.
+     */
+    public void subscribe(Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("The subscriber must not be null");
+        }
+        if (!mSubscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("The publisher only supports a single subscriber"));
+            return;
+        }
+        ArraySubscription subscription = new ArraySubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private final class ArraySubscription implements Subscription, Runnable {
+
+        private final Subscriber<? super T> mSubscriber;
+        private final AtomicLong mRequested = new AtomicLong();
+        private final AtomicInteger mWorkInProgress = new AtomicInteger();
+        private volatile boolean mCancelled;
+        private volatile Throwable mInvalidRequest;
+        private Throwable mDeferredError;
+        private JsonArrayIterator<T> mIterator;
+        private boolean mDone;
+
+        ArraySubscription(Subscriber<? super T> subscriber) {
+            mSubscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                mInvalidRequest = new IllegalArgumentException("The number of requested elements must be " +
+                                                               "positive, but was " + n);
+            } else {
+                long current;
+                long next;
+                do {
+                    current = mRequested.get();
+                    next = current + n < 0 ? Long.MAX_VALUE : current + n;
+                } while (!mRequested.compareAndSet(current, next));
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            mCancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (mWorkInProgress.getAndIncrement() == 0) {
+                try {
+                    mExecutor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    mWorkInProgress.set(0);
+                    terminate(e);
+                }
+            }
+        }
+
+        /**
+         * Delivers the requested elements. Only one thread runs this
+         * at a time, and signals that arrive meanwhile are handled by
+         * running the loop again.
+         */
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = mWorkInProgress.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (mDone) {
+                return;
+            }
+            if (mCancelled) {
+                mDone = true;
+                close();
+                return;
+            }
+            if (mInvalidRequest != null) {
+                terminate(mInvalidRequest);
+                return;
+            }
+            long requested = mRequested.get();
+            if (mDeferredError != null && requested != 0) {
+                terminate(mDeferredError);
+                return;
+            }
+            long emitted = 0;
+            while (true) {
+                if (mCancelled) {
+                    mDone = true;
+                    close();
+                    return;
+                }
+                T item;
+                try {
+                    if (mIterator == null) {
+                        mIterator = mPath == null ? JsonArrayIterator.of(mReader, mAdapter) :
+                                    JsonArrayIterator.of(mReader, mPath, mAdapter);
+                    }
+                    // Checked even without demand, as completion does not need to be requested
+                    boolean hasNext;
+                    try {
+                        hasNext = mIterator.hasNext();
+                    } catch (RuntimeException e) {
+                        if (emitted != requested) {
+                            throw e;
+                        }
+                        // Signalled once more elements are requested, as they were not read yet
+                        mDeferredError = e;
+                        break;
+                    }
+                    if (!hasNext) {
+                        mDone = true;
+                        close();
+                        mSubscriber.onComplete();
+                        return;
+                    }
+                    if (emitted == requested) {
+                        break;
+                    }
+                    item = mIterator.next();
+                } catch (IOException | RuntimeException e) {
+                    terminate(e);
+                    return;
+                }
+                if (item != null) {
+                    mSubscriber.onNext(item);
+                    emitted++;
+                }
+            }
+            if (requested != Long.MAX_VALUE) {
+                mRequested.addAndGet(-emitted);
+            }
+        }
+
+        private void terminate(Throwable throwable) {
+            if (!mDone) {
+                mDone = true;
+                close();
+                mSubscriber.onError(throwable);
+            }
+        }
+
+        private void close() {
+            try {
+                mReader.close();
+            } catch (IOException ignored) {
+                // The elements have been delivered, or are no longer needed
+            }
+        }
+
+    }
+
+}
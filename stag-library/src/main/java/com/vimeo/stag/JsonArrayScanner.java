@@ -0,0 +1,236 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.stream.MalformedJsonException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Finds the boundaries of the elements of a JSON array in UTF-8
+ * input without parsing the elements. As all the characters that
+ * make up the structure of JSON are ASCII, and the bytes of multi-byte
+ * UTF-8 characters are never ASCII, the input is scanned as bytes.
+ * <p/>
+ * The scan validates the structure of the array itself, i.e. its
+ * brackets, separators and the nesting of the elements, but not
+ * the contents of the elements, which is left to their parser.
+ * <p/>
+ * Within strings and nested values, the input is read eight bytes
+ * at a time as a long, and a mask of the bytes that matter there,
+ * i.e. quotes and backslashes within a string, or quotes, brackets
+ * and braces within a nested value, is computed without branching.
+ * Words without any such byte are skipped as a whole, and otherwise
+ * the scan jumps straight to the first byte in the mask.
+ */
+final class JsonArrayScanner {
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long LOWER_CASE = 0x2020202020202020L;
+
+    private JsonArrayScanner() {
+        throw new UnsupportedOperationException("This class is not instantiable");
+    }
+
+    /**
+     * Scans the array that makes up the remaining bytes of the buffer,
+     * optionally surrounded by whitespace.
+     *
+     * @param buffer the UTF-8 input, which is scanned from its position
+     *               to its limit, neither of which are modified.
+     * @return the boundaries of the elements as pairs of absolute
+     * indices in the buffer: the start of element n at index 2n, and
+     * the end of element n, exclusive, at index 2n + 1.
+     * @throws MalformedJsonException if the input is not an array.
+     */
+    static int[] scan(ByteBuffer buffer) throws MalformedJsonException {
+        int limit = buffer.limit();
+        int n = skipWhitespace(buffer, buffer.position(), limit);
+        if (n == limit || buffer.get(n) != '[') {
+            throw syntaxError("Expected an array", n);
+        }
+        int[] boundaries = new int[16];
+        int count = 0;
+        n = skipWhitespace(buffer, n + 1, limit);
+        if (n < limit && buffer.get(n) == ']') {
+            n++;
+        } else {
+            while (true) {
+                int end = skipValue(buffer, n, limit);
+                if (count == boundaries.length) {
+                    boundaries = Arrays.copyOf(boundaries, count * 2);
+                }
+                boundaries[count++] = n;
+                boundaries[count++] = end;
+                n = skipWhitespace(buffer, end, limit);
+                if (n == limit) {
+                    throw syntaxError("Unterminated array", n);
+                }
+                byte b = buffer.get(n);
+                if (b == ']') {
+                    n++;
+                    break;
+                } else if (b != ',') {
+                    throw syntaxError("Expected ',' or ']'", n);
+                }
+                n = skipWhitespace(buffer, n + 1, limit);
+            }
+        }
+        if (skipWhitespace(buffer, n, limit) != limit) {
+            throw syntaxError("Unexpected characters after the array", n);
+        }
+        return Arrays.copyOf(boundaries, count);
+    }
+
+    /**
+     * Returns the index that follows the value that starts at the index.
+     */
+    static int skipValue(ByteBuffer buffer, int start, int limit) throws MalformedJsonException {
+        if (start == limit) {
+            throw syntaxError("Expected a value", start);
+        }
+        byte b = buffer.get(start);
+        switch (b) {
+            case '"':
+                return skipString(buffer, start + 1, limit);
+            case '{':
+            case '[':
+                boolean littleEndian = buffer.order() == ByteOrder.LITTLE_ENDIAN;
+                int depth = 1;
+                int n = start + 1;
+                while (depth > 0) {
+                    if (n + 8 <= limit) {
+                        long mask = nestingMask(buffer.getLong(n));
+                        if (mask == 0) {
+                            n += 8;
+                            continue;
+                        }
+                        n += firstByte(mask, littleEndian);
+                    } else if (n == limit) {
+                        throw syntaxError("Unterminated value", start);
+                    }
+                    b = buffer.get(n);
+                    if (b == '"') {
+                        n = skipString(buffer, n + 1, limit);
+                        continue;
+                    } else if (b == '{' || b == '[') {
+                        depth++;
+                    } else if (b == '}' || b == ']') {
+                        depth--;
+                    }
+                    n++;
+                }
+                return n;
+            case ',':
+            case ']':
+            case '}':
+            case ':':
+                throw syntaxError("Expected a value", start);
+            default:
+                n = start + 1;
+                while (n < limit) {
+                    b = buffer.get(n);
+                    if (b == ',' || b == ']' || b == '}' || b == ' ' || b == '\t' || b == '\n' || b == '\r') {
+                        break;
+                    }
+                    n++;
+                }
+                return n;
+        }
+    }
+
+    /**
+     * Returns the index that follows the closing quote of a string.
+     */
+    static int skipString(ByteBuffer buffer, int n, int limit) throws MalformedJsonException {
+        boolean littleEndian = buffer.order() == ByteOrder.LITTLE_ENDIAN;
+        while (n + 8 <= limit) {
+            long word = buffer.getLong(n);
+            long mask = equalBytes(word, '"') | equalBytes(word, '\\');
+            if (mask == 0) {
+                n += 8;
+                continue;
+            }
+            n += firstByte(mask, littleEndian);
+            if (buffer.get(n) == '"') {
+                return n + 1;
+            }
+            // Skips the backslash and the escaped byte
+            n += 2;
+        }
+        while (n < limit) {
+            byte b = buffer.get(n);
+            if (b == '"') {
+                return n + 1;
+            }
+            n += b == '\\' ? 2 : 1;
+        }
+        throw syntaxError("Unterminated string", n);
+    }
+
+    static int skipWhitespace(ByteBuffer buffer, int n, int limit) {
+        while (n < limit) {
+            byte b = buffer.get(n);
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                break;
+            }
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Returns the mask of the quotes, brackets and braces in the word.
+     */
+    private static long nestingMask(long word) {
+        // Setting the 0x20 bit maps '[' to '{' and ']' to '}'
+        long lowerCase = word | LOWER_CASE;
+        return equalBytes(word, '"') | equalBytes(lowerCase, '{') | equalBytes(lowerCase, '}');
+    }
+
+    /**
+     * Returns a mask with the high bit set in each of the bytes of
+     * the word that are equal to the value, and no other bits set.
+     */
+    private static long equalBytes(long word, char value) {
+        long x = word ^ (ONES * value);
+        return ~(((x & LOW_BITS) + LOW_BITS) | x | LOW_BITS);
+    }
+
+    /**
+     * Returns the index in its word of the first byte in a mask,
+     * which depends on the byte order the word was read in.
+     */
+    private static int firstByte(long mask, boolean littleEndian) {
+        return (littleEndian ? Long.numberOfTrailingZeros(mask) : Long.numberOfLeadingZeros(mask)) >>> 3;
+    }
+
+    static MalformedJsonException syntaxError(String message, int position) {
+        return new MalformedJsonException(message + " at byte " + position);
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+/**
+ * Captures JSON values as text without
+ * materializing them as objects.
+ */
+final class JsonCapture {
+
+    private JsonCapture() {
+        throw new UnsupportedOperationException("This class is not instantiable");
+    }
+
+    /**
+     * Reads the next value, including all nested values, and
+     * returns it as JSON text.
+     * <p/>
+     * The readers of this library, {@link StagJsonReader} and
+     * {@link Utf8JsonReader}, skip the value and return its text
+     * exactly as it appears in the input, without parsing it. Any
+     * other reader does not expose its input, so the value is read
+     * and written again as compact JSON instead, in which names,
+     * strings and literals are kept as they are and numbers keep
+     * their original representation.
+     *
+     * @param reader the reader positioned at the value.
+     * @return the JSON text of the value.
+     * @throws IOException if the value could not be read.
+     */
+    static String capture(JsonReader reader) throws IOException {
+        if (reader instanceof BufferedJsonReader) {
+            return ((BufferedJsonReader) reader).nextSource();
+        }
+        StringWriter stringWriter = new StringWriter();
+        JsonWriter writer = newWriter(stringWriter);
+        copy(reader, writer);
+        writer.flush();
+        return stringWriter.toString();
+    }
+
+    /**
+     * Creates a writer that captured values can be copied to.
+     * The writer is lenient, so several values may be written
+     * one after another without a separator, and it writes null
+     * values rather than omitting them.
+     *
+     * @param out the destination of the text.
+     * @return the writer.
+     */
+    private static JsonWriter newWriter(Writer out) {
+        JsonWriter writer = new JsonWriter(out);
+        writer.setLenient(true);
+        writer.setSerializeNulls(true);
+        return writer;
+    }
+
+    /**
+     * Copies the next value, including all nested
+     * values, from the reader to the writer.
+     *
+     * @param reader the reader positioned at the value.
+     * @param writer the writer to copy the value to.
+     * @throws IOException if the value could not be read
+     *                     or written.
+     */
+    private static void copy(JsonReader reader, JsonWriter writer) throws IOException {
+        int depth = 0;
+        do {
+            switch (reader.peek()) {
+                case BEGIN_ARRAY:
+                    reader.beginArray();
+                    writer.beginArray();
+                    depth++;
+                    break;
+                case END_ARRAY:
+                    reader.endArray();
+                    writer.endArray();
+                    depth--;
+                    break;
+                case BEGIN_OBJECT:
+                    reader.beginObject();
+                    writer.beginObject();
+                    depth++;
+                    break;
+                case END_OBJECT:
+                    reader.endObject();
+                    writer.endObject();
+                    depth--;
+                    break;
+                case NAME:
+                    writer.name(reader.nextName());
+                    break;
+                case STRING:
+                    writer.value(reader.nextString());
+                    break;
+                case NUMBER:
+                    writer.jsonValue(reader.nextString());
+                    break;
+                case BOOLEAN:
+                    writer.value(reader.nextBoolean());
+                    break;
+                case NULL:
+                    reader.nextNull();
+                    writer.nullValue();
+                    break;
+                default:
+                    throw new IOException("Unexpected end of the JSON document");
+            }
+        } while (depth > 0);
+    }
+
+}
@@ -0,0 +1,346 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A non-blocking parser that is fed UTF-8 input in chunks as it
+ * arrives, e.g. from a non-blocking channel, and produces objects
+ * as soon as their JSON is complete. It never waits for input, so
+ * a single thread can parse many documents concurrently, one
+ * parser per document.
+ * <p/>
+ * The parser scans the input incrementally for the boundaries of
+ * values, keeping track of nesting and strings, which can be
+ * suspended and resumed at any byte. Each complete value is then
+ * decoded with the supplied {@link TypeAdapter}, which for Stag
+ * models is the generated adapter, through a {@link StagJsonReader}
+ * over the buffered characters. Only the value being received is
+ * buffered, so memory use is bounded by the largest value.
+ * <p/>
+ * Depending on how it was created, the parser produces either
+ * every top-level value of a stream of values, such as newline
+ * delimited JSON, or the elements of a single top-level array.
+ * A parser is not thread safe and cannot be reused.
+ *
+ * @param <T> the type of the values.
+ */
+public final class JsonFeedParser<T> {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final TypeAdapter<T> mAdapter;
+    private final boolean mArrayElements;
+    private final CharsetDecoder mDecoder = Charset.forName("UTF-8").newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+    private ByteBuffer mBytes = ByteBuffer.allocate(INITIAL_CAPACITY);
+    private char[] mChars = new char[INITIAL_CAPACITY];
+    private int mLength;
+    private int mPosition;
+    private int mValueStart = -1;
+    private int mDepth;
+    private boolean mInString;
+    private boolean mEscaped;
+    private boolean mScalar;
+    private boolean mArrayStarted;
+    private boolean mArrayEnded;
+    private boolean mAfterValue;
+    private boolean mAfterComma;
+    private boolean mFinished;
+    private long mConsumed;
+
+    private JsonFeedParser(TypeAdapter<T> adapter, boolean arrayElements) {
+        mAdapter = adapter;
+        mArrayElements = arrayElements;
+    }
+
+    /**
+     * Creates a parser that produces each top-level value of the
+     * input, which may be separated by whitespace or newlines.
+     *
+     * @param adapter the adapter that decodes the values.
+     * @param <T>     the type of the values.
+     * @return the parser.
+     */
+    public static <T> JsonFeedParser<T> forValues(TypeAdapter<T> adapter) {
+        return new JsonFeedParser<>(adapter, false);
+    }
+
+    /**
+     * Creates a parser that produces the elements
+     * of an input that consists of a single array.
+     *
+     * @param adapter the adapter that decodes the elements.
+     * @param <T>     the type of the elements.
+     * @return the parser.
+     */
+    public static <T> JsonFeedParser<T> forArrayElements(TypeAdapter<T> adapter) {
+        return new JsonFeedParser<>(adapter, true);
+    }
+
+    /**
+     * Consumes a chunk of input and adds the values that it completes
+     * to the results. The chunk is consumed entirely, and may be reused
+     * by the caller afterwards; a multi-byte character may be split
+     * across chunks.
+     *
+     * @param chunk   the next bytes of the input.
+     * @param results the collection that the completed
+     *                values are added to.
+     * @return the number of values that were added.
+     * @throws IOException if the input is not valid JSON, in which
+     *                     case the parser cannot be used any further.
+     */
+    public int feed(ByteBuffer chunk, Collection<? super T> results) throws IOException {
+        if (mFinished) {
+            throw new IllegalStateException("The parser has already finished");
+        }
+        if (mBytes.remaining() < chunk.remaining()) {
+            ByteBuffer bytes = ByteBuffer.allocate(Math.max(mBytes.capacity() * 2,
+                                                            mBytes.position() + chunk.remaining()));
+            mBytes.flip();
+            bytes.put(mBytes);
+            mBytes = bytes;
+        }
+        mBytes.put(chunk);
+        mBytes.flip();
+        decode(false);
+        mBytes.compact();
+        return scan(results);
+    }
+
+    /**
+     * Signals the end of the input, and adds the last value to the
+     * results if it was only terminated by the end of the input,
+     * such as a number.
+     *
+     * @param results the collection that the last value is added to.
+     * @return the number of values that were added.
+     * @throws IOException if the input ended in the middle of a value.
+     */
+    public int finish(Collection<? super T> results) throws IOException {
+        if (mFinished) {
+            return 0;
+        }
+        mBytes.flip();
+        decode(true);
+        int count = scan(results);
+        mFinished = true;
+        if (mScalar && mDepth == level()) {
+            count += complete(mLength, results);
+        }
+        if (mValueStart >= 0 || mInString || mDepth > level() || mBytes.hasRemaining()) {
+            throw syntaxError("Unexpected end of the input", mLength);
+        }
+        if (mArrayElements && !mArrayEnded) {
+            throw syntaxError(mArrayStarted ? "Unterminated array" : "Expected an array", mLength);
+        }
+        return count;
+    }
+
+    private void decode(boolean endOfInput) throws IOException {
+        int required = mLength + mBytes.remaining();
+        if (required > mChars.length) {
+            // A new buffer is allocated rather than reusing the old one, as values
+            // that were read as JsonSlices may still refer to the characters in it.
+            int live = mValueStart >= 0 ? mValueStart : mPosition;
+            char[] chars = new char[Math.max(INITIAL_CAPACITY, (required - live) * 2)];
+            System.arraycopy(mChars, live, chars, 0, mLength - live);
+            mConsumed += live;
+            mChars = chars;
+            mLength -= live;
+            mPosition -= live;
+            if (mValueStart >= 0) {
+                mValueStart -= live;
+            }
+        }
+        CharBuffer out = CharBuffer.wrap(mChars, mLength, mChars.length - mLength);
+        CoderResult result = mDecoder.decode(mBytes, out, endOfInput);
+        if (endOfInput && !result.isError()) {
+            result = mDecoder.flush(out);
+        }
+        if (result.isError()) {
+            mFinished = true;
+            try {
+                result.throwException();
+            } catch (CharacterCodingException e) {
+                throw new MalformedJsonException("Invalid UTF-8 input at position " + (mConsumed + out.position()));
+            }
+        }
+        mLength = out.position();
+    }
+
+    /**
+     * The depth of the values that are produced.
+     */
+    private int level() {
+        return mArrayElements ? 1 : 0;
+    }
+
+    /**
+     * Scans the characters that have not been scanned yet, and
+     * decodes the values that are completed by them.
+     */
+    private int scan(Collection<? super T> results) throws IOException {
+        int count = 0;
+        int level = level();
+        char[] chars = mChars;
+        for (int n = mPosition; n < mLength; n++) {
+            char c = chars[n];
+            if (mInString) {
+                if (mEscaped) {
+                    mEscaped = false;
+                } else if (c == '\\') {
+                    mEscaped = true;
+                } else if (c == '"') {
+                    mInString = false;
+                    if (mDepth == level) {
+                        count += complete(n + 1, results);
+                    }
+                }
+                continue;
+            }
+            boolean whitespace = c == ' ' || c == '\t' || c == '\n' || c == '\r';
+            if (mScalar) {
+                if (!whitespace && c != ',' && c != ']' && c != '}' && c != '[' && c != '{' && c != '"') {
+                    continue;
+                }
+                count += complete(n, results);
+            }
+            if (whitespace) {
+                continue;
+            }
+            if (mArrayElements && mDepth == 0) {
+                // Outside of the array, only its opening bracket is expected
+                if (mArrayStarted || c != '[') {
+                    throw syntaxError(mArrayStarted ? "Unexpected characters after the array" :
+                                      "Expected an array", n);
+                }
+                mArrayStarted = true;
+                mDepth = 1;
+                continue;
+            }
+            switch (c) {
+                case '"':
+                    if (mDepth == level) {
+                        startValue(n);
+                    }
+                    mInString = true;
+                    break;
+                case '{':
+                case '[':
+                    if (mDepth == level) {
+                        startValue(n);
+                    }
+                    mDepth++;
+                    break;
+                case '}':
+                case ']':
+                    if (mDepth == level) {
+                        if (!mArrayElements || c != ']' || mAfterComma) {
+                            throw syntaxError("Unexpected '" + c + "'", n);
+                        }
+                        mArrayEnded = true;
+                        mDepth = 0;
+                        break;
+                    }
+                    mDepth--;
+                    if (mDepth == level) {
+                        count += complete(n + 1, results);
+                    }
+                    break;
+                case ',':
+                    if (mDepth == level) {
+                        if (!mArrayElements || !mAfterValue) {
+                            throw syntaxError("Unexpected ','", n);
+                        }
+                        mAfterValue = false;
+                        mAfterComma = true;
+                    }
+                    break;
+                default:
+                    if (mDepth == level) {
+                        startValue(n);
+                        mScalar = true;
+                    }
+                    break;
+            }
+        }
+        mPosition = mLength;
+        return count;
+    }
+
+    private void startValue(int position) throws IOException {
+        if (mAfterValue) {
+            throw syntaxError("Expected ','", position);
+        }
+        mAfterComma = false;
+        mValueStart = position;
+    }
+
+    /**
+     * Decodes the value that ends at the given position.
+     */
+    private int complete(int end, Collection<? super T> results) throws IOException {
+        int start = mValueStart;
+        mValueStart = -1;
+        mScalar = false;
+        mAfterValue = mArrayElements;
+        StagJsonReader reader = new StagJsonReader(mChars, start, end - start);
+        T value;
+        try {
+            value = mAdapter.read(reader);
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new MalformedJsonException("Unexpected characters after the value");
+            }
+        } catch (IOException | RuntimeException e) {
+            mFinished = true;
+            throw e;
+        }
+        results.add(value);
+        return 1;
+    }
+
+    private MalformedJsonException syntaxError(String message, int position) {
+        mFinished = true;
+        return new MalformedJsonException(message + " at position " + (mConsumed + position));
+    }
+
+}
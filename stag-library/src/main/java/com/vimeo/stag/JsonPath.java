@@ -0,0 +1,316 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compiled path expression that extracts the values it
+ * matches while streaming through a JSON document, without
+ * building the objects that surround them. Values that are
+ * not on the path are skipped.
+ * <p/>
+ * A path is a sequence of segments, optionally preceded
+ * by {@code $}, which denotes the root value:
+ * <ul>
+ * <li>{@code .name} or {@code ['name']} selects the member of an object with that name,</li>
+ * <li>{@code .*} selects every member of an object,</li>
+ * <li>{@code [n]} selects the element of an array at index n,</li>
+ * <li>{@code [*]} selects every element of an array.</li>
+ * </ul>
+ * For instance {@code data[*].user.name} selects the name of
+ * the user of every element of the {@code data} array. Matches
+ * are decoded with the supplied {@link TypeAdapter}, which for
+ * Stag models is the generated adapter returned by
+ * {@code gson.getAdapter(Model.class)}.
+ * <p/>
+ * A compiled path is immutable and may be shared between threads.
+ */
+public final class JsonPath {
+
+    private static final int MEMBER = 0;
+    private static final int ANY_MEMBER = 1;
+    private static final int ELEMENT = 2;
+    private static final int ANY_ELEMENT = 3;
+
+    private final String mExpression;
+    private final int[] mKinds;
+    private final String[] mNames;
+    private final int[] mIndices;
+    private final boolean mSingular;
+
+    private JsonPath(String expression, List<Object> segments, List<Integer> kinds) {
+        mExpression = expression;
+        int size = segments.size();
+        mKinds = new int[size];
+        mNames = new String[size];
+        mIndices = new int[size];
+        boolean singular = true;
+        for (int n = 0; n < size; n++) {
+            int kind = kinds.get(n);
+            mKinds[n] = kind;
+            if (kind == MEMBER) {
+                mNames[n] = (String) segments.get(n);
+            } else if (kind == ELEMENT) {
+                mIndices[n] = (Integer) segments.get(n);
+            } else {
+                singular = false;
+            }
+        }
+        mSingular = singular;
+    }
+
+    /**
+     * Compiles a path expression.
+     *
+     * @param expression the expression, e.g. {@code data[*].user.name}.
+     * @return the compiled path.
+     * @throws IllegalArgumentException if the expression is malformed.
+     */
+    public static JsonPath compile(String expression) {
+        if (expression == null) {
+            throw new NullPointerException("The expression must not be null");
+        }
+        List<Object> segments = new ArrayList<>();
+        List<Integer> kinds = new ArrayList<>();
+        int length = expression.length();
+        int pos = 0;
+        if (length > 0 && expression.charAt(0) == '$') {
+            pos++;
+        }
+        boolean first = true;
+        while (pos < length) {
+            char c = expression.charAt(pos);
+            if (c == '[') {
+                int close = expression.indexOf(']', pos);
+                if (close < 0) {
+                    throw malformed(expression, pos, "unterminated '['");
+                }
+                String content = expression.substring(pos + 1, close);
+                if (content.equals("*")) {
+                    segments.add(null);
+                    kinds.add(ANY_ELEMENT);
+                } else if (content.length() >= 2 && (content.charAt(0) == '\'' || content.charAt(0) == '"')) {
+                    char quote = content.charAt(0);
+                    if (content.charAt(content.length() - 1) != quote) {
+                        throw malformed(expression, pos, "unterminated name");
+                    }
+                    segments.add(content.substring(1, content.length() - 1));
+                    kinds.add(MEMBER);
+                } else {
+                    int index;
+                    try {
+                        index = Integer.parseInt(content);
+                    } catch (NumberFormatException e) {
+                        throw malformed(expression, pos, "expected an index, '*' or a quoted name");
+                    }
+                    if (index < 0) {
+                        throw malformed(expression, pos, "negative index");
+                    }
+                    segments.add(index);
+                    kinds.add(ELEMENT);
+                }
+                pos = close + 1;
+            } else {
+                if (c == '.') {
+                    pos++;
+                } else if (!first) {
+                    throw malformed(expression, pos, "expected '.' or '['");
+                }
+                int end = pos;
+                while (end < length && expression.charAt(end) != '.' && expression.charAt(end) != '[') {
+                    end++;
+                }
+                if (end == pos) {
+                    throw malformed(expression, pos, "empty name");
+                }
+                String name = expression.substring(pos, end);
+                if (name.equals("*")) {
+                    segments.add(null);
+                    kinds.add(ANY_MEMBER);
+                } else {
+                    segments.add(name);
+                    kinds.add(MEMBER);
+                }
+                pos = end;
+            }
+            first = false;
+        }
+        return new JsonPath(expression, segments, kinds);
+    }
+
+    private static IllegalArgumentException malformed(String expression, int pos, String message) {
+        return new IllegalArgumentException("Malformed path \"" + expression + "\" at position " + pos + ": " +
+                                            message);
+    }
+
+    /**
+     * Reads the next value from the reader and returns all the
+     * values that match the path, in document order. The value is
+     * consumed entirely, unless the path has no wildcards, in which
+     * case reading stops at the single possible match.
+     *
+     * @param reader  the reader positioned at the root value.
+     * @param adapter the adapter that decodes the matches.
+     * @param <T>     the type of the matches.
+     * @return the matches, which may be empty.
+     * @throws IOException if the JSON could not be read.
+     */
+    public <T> List<T> readAll(JsonReader reader, TypeAdapter<T> adapter) throws IOException {
+        return readAll(reader, adapter, null);
+    }
+
+    /**
+     * Returns the values that match the path and are accepted by
+     * the filter, see {@link #readAll(JsonReader, TypeAdapter)}. With
+     * a generated adapter, the rest of a rejected value is skipped as
+     * soon as the filter rejects it, which allows large arrays to be
+     * filtered while they are streamed.
+     *
+     * @param reader  the reader positioned at the root value.
+     * @param adapter the adapter that decodes the matches.
+     * @param filter  the filter, or null to keep every match.
+     *                Null values are never accepted.
+     * @param <T>     the type of the matches.
+     * @return the accepted matches, which may be empty.
+     * @throws IOException if the JSON could not be read.
+     */
+    public <T> List<T> readAll(JsonReader reader, TypeAdapter<T> adapter, ReadFilter<? super T> filter)
+            throws IOException {
+        List<T> results = new ArrayList<>();
+        match(reader, 0, adapter, filter, results, mSingular);
+        return results;
+    }
+
+    /**
+     * Returns the first value that matches the path. Reading stops
+     * at the match, so the rest of the document is left unread and
+     * the reader should not be used for anything else afterwards.
+     *
+     * @param reader  the reader positioned at the root value.
+     * @param adapter the adapter that decodes the match.
+     * @param <T>     the type of the match.
+     * @return the match, or null if nothing matched
+     * or the matching JSON value was null.
+     * @throws IOException if the JSON could not be read.
+     */
+    public <T> T readFirst(JsonReader reader, TypeAdapter<T> adapter) throws IOException {
+        List<T> results = new ArrayList<>(1);
+        match(reader, 0, adapter, null, results, true);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * Advances the reader to the first value that matches the path,
+     * without reading the value itself. Everything before the match
+     * is skipped, and the reader is left positioned at the match so
+     * that it can be read, e.g. as an array with a {@link JsonArrayIterator}.
+     *
+     * @param reader the reader positioned at the root value.
+     * @return true if the reader is positioned at a match, false
+     * if nothing matched, in which case the root value has been
+     * consumed.
+     * @throws IOException if the JSON could not be read.
+     */
+    public boolean seek(JsonReader reader) throws IOException {
+        return match(reader, 0, null, null, null, true);
+    }
+
+    /**
+     * Descends into the current value along the segment, skipping
+     * everything that does not match it. Without an adapter, the
+     * descent stops at the first match, which is not read.
+     *
+     * @return true if a match was found and reading should stop.
+     */
+    private <T> boolean match(JsonReader reader, int segment, TypeAdapter<T> adapter, ReadFilter<? super T> filter,
+                              List<T> results, boolean stopAtFirst) throws IOException {
+        if (segment == mKinds.length) {
+            if (adapter == null) {
+                return true;
+            }
+            if (filter == null) {
+                results.add(adapter.read(reader));
+                return stopAtFirst;
+            }
+            T value = StagTypeAdapter.read(adapter, reader, filter);
+            if (value == null) {
+                return false;
+            }
+            results.add(value);
+            return stopAtFirst;
+        }
+        JsonToken token = reader.peek();
+        int kind = mKinds[segment];
+        if (kind == MEMBER || kind == ANY_MEMBER) {
+            if (token != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                return false;
+            }
+            String name = mNames[segment];
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String memberName = reader.nextName();
+                if (kind == ANY_MEMBER || name.equals(memberName)) {
+                    if (match(reader, segment + 1, adapter, filter, results, stopAtFirst)) {
+                        return true;
+                    }
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } else {
+            if (token != JsonToken.BEGIN_ARRAY) {
+                reader.skipValue();
+                return false;
+            }
+            int index = mIndices[segment];
+            reader.beginArray();
+            for (int n = 0; reader.hasNext(); n++) {
+                if (kind == ANY_ELEMENT || n == index) {
+                    if (match(reader, segment + 1, adapter, filter, results, stopAtFirst)) {
+                        return true;
+                    }
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endArray();
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return mExpression;
+    }
+
+}
@@ -0,0 +1,270 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * A string value that refers to the characters of the JSON
+ * input instead of holding a copy of them.
+ * <p/>
+ * Slices are created by {@link StagJsonReader#nextSlice()},
+ * which neither copies the characters of the value nor decodes
+ * its escape sequences. The value is only converted to a String
+ * when {@link #toString()} is called, and the result is kept.
+ * Until then, the characters of a value without escape sequences
+ * are read from the input directly. Note that a slice keeps the
+ * entire input in memory for as long as the slice is used.
+ * <p/>
+ * Declare a member variable as {@code JsonSlice} or as
+ * {@code CharSequence} to have it read as a slice. When it is
+ * read by a regular {@link JsonReader}, a slice wrapping a copy
+ * of the string is used instead.
+ */
+@JsonAdapter(JsonSlice.JsonSliceTypeAdapter.class)
+public final class JsonSlice implements CharSequence {
+
+    private final char[] mBuffer;
+    private final int mOffset;
+    private final int mLength;
+    private final boolean mEscaped;
+
+    private String mString;
+
+    JsonSlice(char[] buffer, int offset, int length, boolean escaped) {
+        mBuffer = buffer;
+        mOffset = offset;
+        mLength = length;
+        mEscaped = escaped;
+    }
+
+    /**
+     * @param value the value of the slice.
+     */
+    public JsonSlice(String value) {
+        this(null, 0, value.length(), false);
+        mString = value;
+    }
+
+    /**
+     * Reads the next string value as a slice. The characters
+     * are only copied if the reader is not a {@link StagJsonReader}.
+     *
+     * @param reader the reader positioned at the value.
+     * @return the slice, or null if the JSON value was null.
+     * @throws IOException if the JSON could not be read.
+     */
+    public static JsonSlice read(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        } else if (reader instanceof StagJsonReader) {
+            return ((StagJsonReader) reader).nextSlice();
+        }
+        return new JsonSlice(reader.nextString());
+    }
+
+    /**
+     * Writes a sequence of characters as a string value.
+     *
+     * @param writer the writer.
+     * @param value  the value to write, may be null.
+     * @throws IOException if the value could not be written.
+     */
+    public static void write(JsonWriter writer, CharSequence value) throws IOException {
+        writer.value(value == null ? null : value.toString());
+    }
+
+    char[] getBuffer() {
+        return mBuffer;
+    }
+
+    int getOffset() {
+        return mOffset;
+    }
+
+    /**
+     * @return true if the value contains escape sequences,
+     * which are decoded when it is first converted to a String.
+     */
+    public boolean isEscaped() {
+        return mEscaped;
+    }
+
+    @Override
+    public int length() {
+        return mEscaped ? toString().length() : mLength;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (mBuffer == null || mEscaped) {
+            return toString().charAt(index);
+        }
+        if (index < 0 || index >= mLength) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + mLength);
+        }
+        return mBuffer[mOffset + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (mBuffer == null || mEscaped) {
+            return toString().subSequence(start, end);
+        }
+        if (start < 0 || end > mLength || start > end) {
+            throw new IndexOutOfBoundsException("Range: " + start + '-' + end + ", Length: " + mLength);
+        }
+        return new JsonSlice(mBuffer, mOffset + start, end - start, false);
+    }
+
+    /**
+     * Compares the characters of the value to a sequence of
+     * characters, without converting the value to a String.
+     *
+     * @param other the characters to compare to.
+     * @return true if the characters are equal.
+     */
+    public boolean contentEquals(CharSequence other) {
+        if (mBuffer == null || mEscaped) {
+            return toString().contentEquals(other);
+        }
+        if (other.length() != mLength) {
+            return false;
+        }
+        for (int n = 0; n < mLength; n++) {
+            if (mBuffer[mOffset + n] != other.charAt(n)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof JsonSlice && contentEquals((JsonSlice) o));
+    }
+
+    /**
+     * @return the same hash code as the String
+     * holding the characters of the value.
+     */
+    @Override
+    public int hashCode() {
+        if (mBuffer == null || mEscaped) {
+            return toString().hashCode();
+        }
+        int hashCode = 0;
+        for (int n = 0; n < mLength; n++) {
+            hashCode = 31 * hashCode + mBuffer[mOffset + n];
+        }
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        String string = mString;
+        if (string == null) {
+            string = mEscaped ? unescape(mBuffer, mOffset, mOffset + mLength) : new String(mBuffer, mOffset, mLength);
+            mString = string;
+        }
+        return string;
+    }
+
+    /**
+     * Decodes the escape sequences of a string value,
+     * which must have been validated by the reader.
+     *
+     * @param buffer the buffer holding the value.
+     * @param start  the start of the value.
+     * @param end    the end of the value.
+     * @return the decoded value.
+     */
+    static String unescape(char[] buffer, int start, int end) {
+        StringBuilder builder = new StringBuilder(end - start);
+        int runStart = start;
+        int p = start;
+        while (p < end) {
+            if (buffer[p] != '\\') {
+                p++;
+                continue;
+            }
+            builder.append(buffer, runStart, p - runStart);
+            char escaped = buffer[p + 1];
+            switch (escaped) {
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'u':
+                    int value = 0;
+                    for (int i = 2; i < 6; i++) {
+                        value = (value << 4) + Character.digit(buffer[p + i], 16);
+                    }
+                    builder.append((char) value);
+                    p += 4;
+                    break;
+                default:
+                    builder.append(escaped);
+                    break;
+            }
+            p += 2;
+            runStart = p;
+        }
+        builder.append(buffer, runStart, end - runStart);
+        return builder.toString();
+    }
+
+    static final class JsonSliceTypeAdapter extends TypeAdapter<JsonSlice> {
+
+        @Override
+        public void write(JsonWriter out, JsonSlice value) throws IOException {
+            JsonSlice.write(out, value);
+        }
+
+        @Override
+        public JsonSlice read(JsonReader in) throws IOException {
+            return JsonSlice.read(in);
+        }
+
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+/**
+ * A value that is only decoded when it is first accessed.
+ * <p/>
+ * Use it as the type of a member variable holding a nested
+ * object that is rarely needed, e.g. {@code Lazy<Stats>}.
+ * While reading, the JSON of the nested object is captured as
+ * text, which is cheaper than building the object and all of
+ * its nested objects: from a {@link StagJsonReader} or a
+ * {@link Utf8JsonReader}, the text is copied from the input
+ * without parsing it, see {@link RawJson}. The object is decoded
+ * by the first call to {@link #get()}, and the result is kept for
+ * later calls. A value that was never accessed is written back out
+ * as the text that was captured.
+ * <p/>
+ * Lazy values are (de)serialized by their own TypeAdapter,
+ * which Gson finds through the {@link JsonAdapter} annotation,
+ * so they can be used in any model, whether it is handled by
+ * Stag or not. The adapters generated by Stag look it up like
+ * the adapter of any other type they do not generate.
+ *
+ * @param <T> the type of the value.
+ */
+@JsonAdapter(Lazy.Factory.class)
+public final class Lazy<T> {
+
+    private final TypeAdapter<T> mAdapter;
+
+    private volatile String mJson;
+    private T mValue;
+
+    private Lazy(TypeAdapter<T> adapter, String json, T value) {
+        mAdapter = adapter;
+        mJson = json;
+        mValue = value;
+    }
+
+    /**
+     * Creates a lazy value that has already been decoded.
+     *
+     * @param value the value.
+     * @param <T>   the type of the value.
+     * @return a lazy value holding the value.
+     */
+    public static <T> Lazy<T> of(T value) {
+        return new Lazy<>(null, null, value);
+    }
+
+    /**
+     * Captures the next JSON value, so that it can be
+     * decoded by the adapter when it is accessed.
+     *
+     * @param reader  the reader positioned at the value.
+     * @param adapter the adapter used to decode the value.
+     * @param <T>     the type of the value.
+     * @return the lazy value, or null if the JSON value was null.
+     * @throws IOException if the JSON could not be read.
+     */
+    public static <T> Lazy<T> read(JsonReader reader, TypeAdapter<T> adapter) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return new Lazy<>(adapter, JsonCapture.capture(reader), null);
+    }
+
+    /**
+     * Returns the value, decoding it if this
+     * is the first time it is accessed.
+     *
+     * @return the value.
+     * @throws JsonParseException if the value
+     *                            could not be decoded.
+     */
+    public T get() {
+        if (mJson != null) {
+            synchronized (this) {
+                String json = mJson;
+                if (json != null) {
+                    try {
+                        mValue = mAdapter.read(new JsonReader(new StringReader(json)));
+                    } catch (IOException e) {
+                        throw new JsonParseException(e);
+                    }
+                    mJson = null;
+                }
+            }
+        }
+        return mValue;
+    }
+
+    /**
+     * @return true if the value has been decoded,
+     * false if it is still held as JSON text.
+     */
+    public boolean isDecoded() {
+        return mJson == null;
+    }
+
+    /**
+     * Writes the value. A value that has not been decoded
+     * is written as the JSON text that was captured.
+     *
+     * @param writer  the writer.
+     * @param adapter the adapter used to write a decoded value.
+     * @throws IOException if the value could not be written.
+     */
+    public void write(JsonWriter writer, TypeAdapter<T> adapter) throws IOException {
+        String json = mJson;
+        if (json != null) {
+            writer.jsonValue(json);
+        } else {
+            adapter.write(writer, mValue);
+        }
+    }
+
+    /**
+     * The factory that provides the TypeAdapter of a
+     * lazy value, based on the TypeAdapter of its type.
+     */
+    public static final class Factory implements TypeAdapterFactory {
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (type.getRawType() != Lazy.class) {
+                return null;
+            }
+            Type valueType = Object.class;
+            if (type.getType() instanceof ParameterizedType) {
+                valueType = ((ParameterizedType) type.getType()).getActualTypeArguments()[0];
+            }
+            return (TypeAdapter<T>) new LazyTypeAdapter<>(gson.getAdapter(TypeToken.get(valueType)));
+        }
+
+    }
+
+    private static final class LazyTypeAdapter<T> extends TypeAdapter<Lazy<T>> {
+
+        private final TypeAdapter<T> mAdapter;
+
+        LazyTypeAdapter(TypeAdapter<T> adapter) {
+            mAdapter = adapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, Lazy<T> value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                value.write(out, mAdapter);
+            }
+        }
+
+        @Override
+        public Lazy<T> read(JsonReader in) throws IOException {
+            return Lazy.read(in, mAdapter);
+        }
+
+    }
+
+}
@@ -0,0 +1,236 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A list whose elements are only decoded when they are accessed.
+ * <p/>
+ * Use it as the type of a member variable holding a large array
+ * of which usually only a few elements are used, e.g. the first
+ * page of {@code LazyList<Video>}. While reading, the JSON text
+ * of every element is captured, which from a {@link StagJsonReader}
+ * or a {@link Utf8JsonReader} copies it from the input without
+ * parsing it, see {@link RawJson}. An element is decoded by the
+ * first call to {@link #get(int)} for its index, and the result is
+ * kept for later calls. Elements that were never accessed are
+ * written back out as the captured text.
+ * <p/>
+ * The list is safe to use from multiple threads. Each element is
+ * published on its own once it is decoded, without locking; threads
+ * that access a new element at the same time may both decode it,
+ * but all of them return the element that was published first.
+ * <p/>
+ * The list can not be modified. Stag reads and writes member
+ * variables of this type directly. Since Gson handles every
+ * collection with its own TypeAdapter, using a lazy list in
+ * a model that is not handled by Stag requires registering
+ * the {@link Factory} with the {@code GsonBuilder}.
+ *
+ * @param <T> the type of the elements.
+ */
+public final class LazyList<T> extends AbstractList<T> implements RandomAccess {
+
+    /**
+     * Takes the place of an element that was decoded as null.
+     */
+    private static final Object NULL = new Object();
+
+    private final TypeAdapter<T> mAdapter;
+
+    private final String[] mJson;
+
+    /**
+     * The decoded elements, null for the elements
+     * that are still held as JSON text.
+     */
+    private final AtomicReferenceArray<Object> mValues;
+
+    private LazyList(TypeAdapter<T> adapter, String[] json) {
+        mAdapter = adapter;
+        mJson = json;
+        mValues = new AtomicReferenceArray<>(json.length);
+    }
+
+    /**
+     * Captures the elements of the next JSON array, so that
+     * they can be decoded by the adapter when they are accessed.
+     *
+     * @param reader  the reader positioned at the array.
+     * @param adapter the adapter used to decode the elements.
+     * @param <T>     the type of the elements.
+     * @return the lazy list, or null if the JSON value was null.
+     * @throws IOException if the JSON could not be read.
+     */
+    public static <T> LazyList<T> read(JsonReader reader, TypeAdapter<T> adapter) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        String[] json = new String[16];
+        int size = 0;
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (size == json.length) {
+                json = Arrays.copyOf(json, size * 2);
+            }
+            json[size++] = JsonCapture.capture(reader);
+        }
+        reader.endArray();
+
+        return new LazyList<>(adapter, Arrays.copyOf(json, size));
+    }
+
+    /**
+     * Returns the element at the index, decoding it if
+     * this is the first time it is accessed.
+     *
+     * @param index the index of the element.
+     * @return the element.
+     * @throws JsonParseException if the element
+     *                            could not be decoded.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= mJson.length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mJson.length);
+        }
+        Object value = mValues.get(index);
+        if (value == null) {
+            T decoded;
+            try {
+                decoded = mAdapter.read(new JsonReader(new StringReader(mJson[index])));
+            } catch (IOException e) {
+                throw new JsonParseException(e);
+            }
+            value = decoded != null ? decoded : NULL;
+            if (!mValues.compareAndSet(index, null, value)) {
+                // Another thread published the element first
+                value = mValues.get(index);
+            }
+        }
+        return value != NULL ? (T) value : null;
+    }
+
+    @Override
+    public int size() {
+        return mJson.length;
+    }
+
+    /**
+     * @param index the index of the element.
+     * @return true if the element has been decoded,
+     * false if it is still held as JSON text.
+     */
+    public boolean isDecoded(int index) {
+        return mValues.get(index) != null;
+    }
+
+    /**
+     * Writes the list as a JSON array. Elements that have
+     * not been decoded are written as the JSON text that
+     * was captured.
+     *
+     * @param writer the writer.
+     * @throws IOException if the list could not be written.
+     */
+    @SuppressWarnings("unchecked")
+    public void write(JsonWriter writer) throws IOException {
+        writer.beginArray();
+        for (int n = 0; n < mJson.length; n++) {
+            Object value = mValues.get(n);
+            if (value == null) {
+                writer.jsonValue(mJson[n]);
+            } else {
+                mAdapter.write(writer, value != NULL ? (T) value : null);
+            }
+        }
+        writer.endArray();
+    }
+
+    /**
+     * The factory that provides the TypeAdapter of a lazy
+     * list, based on the TypeAdapter of its elements.
+     */
+    public static final class Factory implements TypeAdapterFactory {
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (type.getRawType() != LazyList.class) {
+                return null;
+            }
+            Type elementType = Object.class;
+            if (type.getType() instanceof ParameterizedType) {
+                elementType = ((ParameterizedType) type.getType()).getActualTypeArguments()[0];
+            }
+            return (TypeAdapter<T>) new LazyListTypeAdapter<>(gson.getAdapter(TypeToken.get(elementType)));
+        }
+
+    }
+
+    private static final class LazyListTypeAdapter<T> extends TypeAdapter<LazyList<T>> {
+
+        private final TypeAdapter<T> mAdapter;
+
+        LazyListTypeAdapter(TypeAdapter<T> adapter) {
+            mAdapter = adapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, LazyList<T> value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                value.write(out);
+            }
+        }
+
+        @Override
+        public LazyList<T> read(JsonReader in) throws IOException {
+            return LazyList.read(in, mAdapter);
+        }
+
+    }
+
+}
@@ -0,0 +1,475 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads newline delimited JSON, one value per line, in parallel.
+ * <p/>
+ * The pipeline has three stages. The calling thread reads the input
+ * in large blocks and splits them at the last newline of each block,
+ * so that every block holds complete lines. A pool of worker threads
+ * decodes the blocks and parses their lines with the supplied
+ * {@link TypeAdapter}, which for Stag models is the generated adapter.
+ * The parsed values are then delivered to a {@link Sink}, either as
+ * soon as their block has been parsed, or in the order of the input.
+ * <p/>
+ * The number of blocks in flight is bounded, so memory use does not
+ * depend on the size of the input, and each stage keeps counters of
+ * the work it has done and the time it spent, from which its throughput
+ * can be derived. The counters accumulate over all runs.
+ * <p/>
+ * The worker threads are shared by all runs of a pipeline, and
+ * terminate once they have been idle for a while.
+ *
+ * @param <T> the type of the values.
+ */
+public final class NdjsonPipeline<T> {
+
+    private static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+    private static final long WORKER_KEEP_ALIVE_SECONDS = 60;
+
+    /**
+     * Receives the values read by a {@link NdjsonPipeline}.
+     * The values are delivered one at a time, never concurrently.
+     *
+     * @param <T> the type of the values.
+     */
+    public interface Sink<T> {
+
+        void accept(T value);
+    }
+
+    private final TypeAdapter<T> mAdapter;
+    private final int mThreads;
+    private final boolean mOrdered;
+    private final int mBlockSize;
+    private final ThreadPoolExecutor mWorkers;
+
+    private final AtomicLong mBytesSplit = new AtomicLong();
+    private final AtomicLong mBlocksSplit = new AtomicLong();
+    private final AtomicLong mSplitNanos = new AtomicLong();
+    private final AtomicLong mRecordsParsed = new AtomicLong();
+    private final AtomicLong mParseNanos = new AtomicLong();
+    private final AtomicLong mRecordsDelivered = new AtomicLong();
+    private final AtomicLong mDeliveryNanos = new AtomicLong();
+
+    /**
+     * @param adapter the adapter that parses the lines.
+     * @param threads the number of worker threads.
+     * @param ordered true to deliver the values in the order
+     *                of the input, false to deliver them as
+     *                soon as they have been parsed.
+     */
+    public NdjsonPipeline(TypeAdapter<T> adapter, int threads, boolean ordered) {
+        this(adapter, threads, ordered, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param adapter   the adapter that parses the lines.
+     * @param threads   the number of worker threads.
+     * @param ordered   true to deliver the values in the order
+     *                  of the input, false to deliver them as
+     *                  soon as they have been parsed.
+     * @param blockSize the number of bytes that are read into a
+     *                  block, blocks grow to hold longer lines.
+     */
+    public NdjsonPipeline(TypeAdapter<T> adapter, int threads, boolean ordered, int blockSize) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be positive");
+        }
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("The block size must be positive");
+        }
+        mAdapter = adapter;
+        mThreads = threads;
+        mOrdered = ordered;
+        mBlockSize = blockSize;
+        final AtomicInteger count = new AtomicInteger();
+        mWorkers = new ThreadPoolExecutor(threads, threads, WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                                          new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "stag-ndjson-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        mWorkers.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Reads all the lines of the input and delivers their values
+     * to the sink. Blank lines are ignored. Returns once all values
+     * have been delivered, or the first error has occurred; the
+     * input is not closed.
+     *
+     * @param in   the UTF-8 input.
+     * @param sink the sink that receives the values.
+     * @throws IOException if the input could not be read or a
+     *                     line is not valid JSON.
+     */
+    public void run(InputStream in, Sink<? super T> sink) throws IOException {
+        Run run = new Run(sink);
+        try {
+            run.split(in);
+        } finally {
+            run.awaitDelivery();
+        }
+        run.rethrow();
+    }
+
+    /**
+     * @return the number of bytes split into blocks.
+     */
+    public long getBytesSplit() {
+        return mBytesSplit.get();
+    }
+
+    /**
+     * @return the number of blocks split from the input.
+     */
+    public long getBlocksSplit() {
+        return mBlocksSplit.get();
+    }
+
+    /**
+     * @return the time spent reading and splitting the input.
+     */
+    public long getSplitTimeNanos() {
+        return mSplitNanos.get();
+    }
+
+    /**
+     * @return the number of values parsed by the workers.
+     */
+    public long getRecordsParsed() {
+        return mRecordsParsed.get();
+    }
+
+    /**
+     * @return the time spent decoding and parsing blocks,
+     * summed over all the worker threads.
+     */
+    public long getParseTimeNanos() {
+        return mParseNanos.get();
+    }
+
+    /**
+     * @return the number of values delivered to the sink.
+     */
+    public long getRecordsDelivered() {
+        return mRecordsDelivered.get();
+    }
+
+    /**
+     * @return the time spent in the sink.
+     */
+    public long getDeliveryTimeNanos() {
+        return mDeliveryNanos.get();
+    }
+
+    /**
+     * The state of a single run of the pipeline.
+     */
+    private final class Run {
+
+        private final Sink<? super T> mSink;
+        private final Semaphore mBlocksInFlight;
+        private final int mMaxBlocksInFlight;
+        private final Object mDeliveryLock = new Object();
+        private final Map<Long, List<T>> mPending = new HashMap<>();
+        private long mNextBlock;
+        private volatile Throwable mError;
+
+        Run(Sink<? super T> sink) {
+            mSink = sink;
+            mMaxBlocksInFlight = mThreads * 2;
+            mBlocksInFlight = new Semaphore(mMaxBlocksInFlight);
+        }
+
+        /**
+         * Reads the input into blocks that end with a newline, carrying
+         * the incomplete last line of a block over to the next one. A
+         * block is only cut once it is full, or at the end of the input.
+         */
+        void split(InputStream in) throws IOException {
+            byte[] buffer = new byte[mBlockSize];
+            int length = 0;
+            long offset = 0;
+            long sequence = 0;
+            boolean endOfInput = false;
+            while (!endOfInput && mError == null) {
+                long start = System.nanoTime();
+                if (length == buffer.length) {
+                    // The block holds a single incomplete line
+                    byte[] grown = new byte[buffer.length * 2];
+                    System.arraycopy(buffer, 0, grown, 0, length);
+                    buffer = grown;
+                }
+                int read = in.read(buffer, length, buffer.length - length);
+                if (read < 0) {
+                    endOfInput = true;
+                } else {
+                    length += read;
+                }
+                int end = endOfInput ? length : length == buffer.length ? lastLineEnd(buffer, length) : 0;
+                if (end > 0) {
+                    int remaining = length - end;
+                    byte[] next = new byte[Math.max(mBlockSize, remaining * 2)];
+                    System.arraycopy(buffer, end, next, 0, remaining);
+                    mBytesSplit.addAndGet(end);
+                    mBlocksSplit.incrementAndGet();
+                    mSplitNanos.addAndGet(System.nanoTime() - start);
+                    submit(new Block(sequence++, offset, buffer, end));
+                    offset += end;
+                    buffer = next;
+                    length = remaining;
+                } else {
+                    mSplitNanos.addAndGet(System.nanoTime() - start);
+                }
+            }
+        }
+
+        private int lastLineEnd(byte[] buffer, int length) {
+            for (int n = length - 1; n >= 0; n--) {
+                if (buffer[n] == '\n') {
+                    return n + 1;
+                }
+            }
+            return 0;
+        }
+
+        private void submit(final Block block) throws IOException {
+            try {
+                mBlocksInFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the workers");
+            }
+            mWorkers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    List<T> values = null;
+                    try {
+                        if (mError == null) {
+                            values = parse(block);
+                        }
+                    } catch (Throwable e) {
+                        fail(e);
+                    }
+                    // Delivered even after an error, so that the block is no longer in flight
+                    deliver(block.mSequence, values);
+                }
+            });
+        }
+
+        private List<T> parse(Block block) throws IOException {
+            long start = System.nanoTime();
+            char[] chars = new char[block.mLength];
+            int end = decode(block, chars);
+            List<T> values = new ArrayList<>();
+            int line = 0;
+            for (int lineStart = 0; lineStart < end; line++) {
+                int lineEnd = lineStart;
+                while (lineEnd < end && chars[lineEnd] != '\n') {
+                    lineEnd++;
+                }
+                if (!isBlank(chars, lineStart, lineEnd)) {
+                    StagJsonReader reader = new StagJsonReader(chars, lineStart, lineEnd - lineStart);
+                    try {
+                        values.add(mAdapter.read(reader));
+                        if (reader.peek() != JsonToken.END_DOCUMENT) {
+                            throw new MalformedJsonException("Unexpected characters after the value");
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        throw new IOException("Invalid JSON on line " + (line + 1) + " of the block at byte " +
+                                              block.mOffset + ": " + e.getMessage(), e);
+                    }
+                }
+                lineStart = lineEnd + 1;
+            }
+            mRecordsParsed.addAndGet(values.size());
+            mParseNanos.addAndGet(System.nanoTime() - start);
+            return values;
+        }
+
+        /**
+         * Decodes the bytes of a block, which decode to at most as many
+         * characters, rejecting invalid UTF-8 rather than replacing it.
+         *
+         * @return the number of characters.
+         */
+        private int decode(Block block, char[] chars) throws IOException {
+            ByteBuffer bytes = ByteBuffer.wrap(block.mBytes, 0, block.mLength);
+            CharBuffer out = CharBuffer.wrap(chars);
+            CharsetDecoder decoder = Utf8.CHARSET.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT);
+            CoderResult result = decoder.decode(bytes, out, true);
+            if (!result.isError()) {
+                result = decoder.flush(out);
+            }
+            if (result.isError()) {
+                int line = 1;
+                for (int n = 0; n < bytes.position(); n++) {
+                    if (block.mBytes[n] == '\n') {
+                        line++;
+                    }
+                }
+                throw new IOException("Invalid UTF-8 on line " + line + " of the block at byte " +
+                                      block.mOffset);
+            }
+            return out.position();
+        }
+
+        private boolean isBlank(char[] chars, int start, int end) {
+            for (int n = start; n < end; n++) {
+                char c = chars[n];
+                if (c != ' ' && c != '\t' && c != '\r') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Delivers the values of a block, or holds them back until the
+         * preceding blocks have been delivered if the output is ordered.
+         * The values are null if the block was not parsed due to an error.
+         */
+        private void deliver(long sequence, List<T> values) {
+            synchronized (mDeliveryLock) {
+                if (!mOrdered) {
+                    deliver(values);
+                    mBlocksInFlight.release();
+                    return;
+                }
+                mPending.put(sequence, values);
+                while (mPending.containsKey(mNextBlock)) {
+                    deliver(mPending.remove(mNextBlock));
+                    mNextBlock++;
+                    mBlocksInFlight.release();
+                }
+            }
+        }
+
+        private void deliver(List<T> values) {
+            if (values == null || mError != null) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                for (T value : values) {
+                    mSink.accept(value);
+                }
+            } catch (Throwable e) {
+                fail(e);
+            } finally {
+                mRecordsDelivered.addAndGet(values.size());
+                mDeliveryNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+
+        private void fail(Throwable e) {
+            synchronized (mDeliveryLock) {
+                if (mError == null) {
+                    mError = e;
+                }
+            }
+        }
+
+        /**
+         * Waits until all blocks in flight have been delivered.
+         */
+        void awaitDelivery() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    mBlocksInFlight.acquire(mMaxBlocksInFlight);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void rethrow() throws IOException {
+            Throwable error = mError;
+            if (error instanceof IOException) {
+                throw (IOException) error;
+            } else if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            } else if (error instanceof Error) {
+                throw (Error) error;
+            } else if (error != null) {
+                throw new IOException(error);
+            }
+        }
+
+    }
+
+    private static final class Block {
+
+        final long mSequence;
+        final long mOffset;
+        final byte[] mBytes;
+        final int mLength;
+
+        Block(long sequence, long offset, byte[] bytes, int length) {
+            mSequence = sequence;
+            mOffset = offset;
+            mBytes = bytes;
+            mLength = length;
+        }
+
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.CharArrayWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes values as newline delimited JSON, one value per line,
+ * in the format read by {@link NdjsonPipeline}.
+ * <p/>
+ * The values are serialized with the supplied {@link TypeAdapter}
+ * into a batch, which is written to the underlying writer in one
+ * call once it has reached the batch size, rather than issuing a
+ * write for every value. The writer is not thread safe.
+ *
+ * @param <T> the type of the values.
+ */
+public final class NdjsonWriter<T> implements Closeable, Flushable {
+
+    private static final int DEFAULT_BATCH_SIZE = 64 * 1024;
+
+    private final Writer mOut;
+    private final TypeAdapter<T> mAdapter;
+    private final int mBatchSize;
+    private final CharArrayWriter mBatch;
+    private final JsonWriter mWriter;
+    private long mRecordsWritten;
+
+    /**
+     * @param out     the destination of the lines.
+     * @param adapter the adapter that serializes the values.
+     */
+    public NdjsonWriter(Writer out, TypeAdapter<T> adapter) {
+        this(out, adapter, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param out       the destination of the lines.
+     * @param adapter   the adapter that serializes the values.
+     * @param batchSize the number of characters that are
+     *                  batched before they are written.
+     */
+    public NdjsonWriter(Writer out, TypeAdapter<T> adapter, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batch size must be positive");
+        }
+        mOut = out;
+        mAdapter = adapter;
+        mBatchSize = batchSize;
+        mBatch = new CharArrayWriter(batchSize + batchSize / 4);
+        // Lenient so that the writer accepts a sequence of top-level values
+        mWriter = new JsonWriter(mBatch);
+        mWriter.setLenient(true);
+    }
+
+    /**
+     * Writes a value as a line.
+     *
+     * @param value the value, may be null.
+     * @throws IOException if a full batch could not be written.
+     */
+    public void write(T value) throws IOException {
+        mAdapter.write(mWriter, value);
+        mBatch.write('\n');
+        mRecordsWritten++;
+        if (mBatch.size() >= mBatchSize) {
+            writeBatch();
+        }
+    }
+
+    /**
+     * @return the number of values written.
+     */
+    public long getRecordsWritten() {
+        return mRecordsWritten;
+    }
+
+    private void writeBatch() throws IOException {
+        mBatch.writeTo(mOut);
+        mBatch.reset();
+    }
+
+    /**
+     * Writes the current batch and flushes the underlying writer.
+     *
+     * @throws IOException if the batch could not be written.
+     */
+    @Override
+    public void flush() throws IOException {
+        writeBatch();
+        mOut.flush();
+    }
+
+    /**
+     * Writes the current batch and closes the underlying writer.
+     *
+     * @throws IOException if the batch could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            writeBatch();
+        } finally {
+            mOut.close();
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+
+/**
+ * A bounded pool of model instances that can be reused
+ * when reading JSON with a {@link StagTypeAdapter}.
+ * <p/>
+ * A consumer that reads many objects of the same type, and
+ * that is done with each object before it reads the next,
+ * can release the objects back to the pool once it has used
+ * them. Subsequent reads then populate the released objects,
+ * including their nested objects and lists, instead of
+ * allocating new ones.
+ * <p/>
+ * The pool is thread safe. An object must not be used after
+ * it has been released.
+ *
+ * @param <T> the type of the pooled objects.
+ */
+public class ObjectPool<T> {
+
+    private final Object[] mPool;
+    private int mSize;
+
+    /**
+     * @param maxSize the maximum number of objects
+     *                that the pool retains.
+     */
+    public ObjectPool(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The size of the pool must be positive");
+        }
+        mPool = new Object[maxSize];
+    }
+
+    /**
+     * Removes an object from the pool.
+     *
+     * @return a released object, or null if the
+     * pool is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized T acquire() {
+        if (mSize == 0) {
+            return null;
+        }
+        mSize--;
+        T object = (T) mPool[mSize];
+        mPool[mSize] = null;
+        return object;
+    }
+
+    /**
+     * Returns an object to the pool, so that it
+     * can be reused by a subsequent read.
+     *
+     * @param object the object that is no longer used.
+     * @return true if the object was added to the
+     * pool, false if the pool is full.
+     */
+    public synchronized boolean release(T object) {
+        if (object == null || mSize == mPool.length) {
+            return false;
+        }
+        mPool[mSize] = object;
+        mSize++;
+        return true;
+    }
+
+    /**
+     * The number of objects in the pool.
+     *
+     * @return the number of released objects
+     * that have not been acquired again.
+     */
+    public synchronized int size() {
+        return mSize;
+    }
+
+    /**
+     * Reads the next JSON value into an object from the pool,
+     * or into a new object if the pool is empty.
+     *
+     * @param adapter the adapter for the type.
+     * @param reader  the reader positioned at the JSON value.
+     * @return the object that was read, or null if the
+     * JSON value was null.
+     * @throws IOException if the JSON could not be read.
+     */
+    public T read(TypeAdapter<T> adapter, JsonReader reader) throws IOException {
+        T target = acquire();
+        T object = StagTypeAdapter.readInto(adapter, reader, target);
+        if (target != null && object != target) {
+            release(target);
+        }
+        return object;
+    }
+
+}
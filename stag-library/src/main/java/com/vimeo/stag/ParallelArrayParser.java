@@ -0,0 +1,206 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.TypeAdapter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parses the elements of a single large JSON array in parallel.
+ * <p/>
+ * The boundaries of the elements are first found by a scan of the
+ * structure of the array, which is much faster than parsing it. The
+ * elements are then divided into ranges that are decoded and parsed
+ * by the threads of a {@link ForkJoinPool}, each with its own reader,
+ * using the supplied {@link TypeAdapter}, which for Stag models is the
+ * generated adapter and can be shared between threads.
+ * <p/>
+ * The whole input must be in memory, e.g. in a memory mapped file.
+ */
+public final class ParallelArrayParser {
+
+    /**
+     * The number of bytes of elements below which
+     * a range is parsed rather than divided.
+     */
+    private static final int RANGE_SIZE = 256 * 1024;
+
+    private ParallelArrayParser() {
+        throw new UnsupportedOperationException("This class is not instantiable");
+    }
+
+    /**
+     * Parses the elements of an array using a pool shared by all
+     * callers, with one thread for every available processor: the
+     * common pool on Java 8 and later, otherwise a pool created on
+     * first use.
+     *
+     * @param utf8    the array in UTF-8, from the position of
+     *                the buffer to its limit.
+     * @param adapter the adapter that parses the elements.
+     * @param <T>     the type of the elements.
+     * @return the elements in the order of the array.
+     * @throws IOException if the input is not a valid array
+     *                     of elements of the type.
+     */
+    public static <T> List<T> parse(ByteBuffer utf8, TypeAdapter<T> adapter) throws IOException {
+        return parse(utf8, adapter, SharedPool.INSTANCE);
+    }
+
+    /**
+     * Parses the elements of an array.
+     *
+     * @param utf8    the array in UTF-8, from the position of
+     *                the buffer to its limit.
+     * @param adapter the adapter that parses the elements.
+     * @param pool    the pool that parses the elements.
+     * @param <T>     the type of the elements.
+     * @return the elements in the order of the array.
+     * @throws IOException if the input is not a valid array
+     *                     of elements of the type.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> parse(ByteBuffer utf8, TypeAdapter<T> adapter, ForkJoinPool pool)
+            throws IOException {
+        int[] boundaries = JsonArrayScanner.scan(utf8);
+        Object[] elements = new Object[boundaries.length / 2];
+        try {
+            pool.invoke(new ParseRange(utf8, boundaries, adapter, elements, 0, elements.length));
+        } catch (RuntimeException e) {
+            // The pool may rethrow a copy of the exception, with the original as its cause
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+            }
+            throw e;
+        }
+        return Arrays.asList((T[]) elements);
+    }
+
+    /**
+     * Holds the pool used when the caller does not supply one, which
+     * is only looked up or created when it is first needed. Its
+     * threads are daemon threads, so it never needs to be shut down.
+     */
+    private static final class SharedPool {
+
+        static final ForkJoinPool INSTANCE = getPool();
+
+        private static ForkJoinPool getPool() {
+            try {
+                // Only available on Java 8 and later
+                return (ForkJoinPool) ForkJoinPool.class.getMethod("commonPool").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                return new ForkJoinPool();
+            }
+        }
+
+    }
+
+    /**
+     * Parses the elements in the range [from, to), after
+     * dividing the range if it is larger than {@link #RANGE_SIZE}.
+     */
+    private static final class ParseRange extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer mInput;
+        private final int[] mBoundaries;
+        private final TypeAdapter<?> mAdapter;
+        private final Object[] mElements;
+        private final int mFrom;
+        private final int mTo;
+
+        ParseRange(ByteBuffer input, int[] boundaries, TypeAdapter<?> adapter, Object[] elements, int from,
+                   int to) {
+            mInput = input;
+            mBoundaries = boundaries;
+            mAdapter = adapter;
+            mElements = elements;
+            mFrom = from;
+            mTo = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (mTo - mFrom > 1 && mBoundaries[2 * mTo - 1] - mBoundaries[2 * mFrom] > RANGE_SIZE) {
+                int middle = (mFrom + mTo) >>> 1;
+                invokeAll(new ParseRange(mInput, mBoundaries, mAdapter, mElements, mFrom, middle),
+                          new ParseRange(mInput, mBoundaries, mAdapter, mElements, middle, mTo));
+                return;
+            }
+            if (mFrom == mTo) {
+                return;
+            }
+            try {
+                parse();
+            } catch (IOException e) {
+                throw new ParseException(e);
+            }
+        }
+
+        /**
+         * Decodes the range, including the separators between its
+         * elements, into an array of its own and reads the elements.
+         */
+        private void parse() throws IOException {
+            int start = mBoundaries[2 * mFrom];
+            int end = mBoundaries[2 * mTo - 1];
+            char[] chars = new char[end - start + 2];
+            chars[0] = '[';
+            int length = Utf8.decode(mInput, start, end, chars, 1);
+            chars[length + 1] = ']';
+
+            StagJsonReader reader = new StagJsonReader(chars, 0, length + 2);
+            reader.beginArray();
+            for (int n = mFrom; n < mTo; n++) {
+                mElements[n] = mAdapter.read(reader);
+            }
+            reader.endArray();
+        }
+
+    }
+
+    /**
+     * Carries an {@link IOException} out of a task.
+     */
+    private static final class ParseException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        ParseException(IOException cause) {
+            super(cause);
+        }
+
+    }
+
+}
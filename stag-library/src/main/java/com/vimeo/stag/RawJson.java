@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * The JSON text of a value that is passed through without
+ * being parsed into objects, e.g. an opaque blob that is only
+ * relayed to another service.
+ * <p/>
+ * Stag reads a member variable of this type by capturing the
+ * text of the JSON value, and writes it by emitting the text
+ * verbatim. It also works in models that are not handled by
+ * Stag, through the {@link JsonAdapter} annotation.
+ * <p/>
+ * With a {@link StagJsonReader} or a {@link Utf8JsonReader}, the
+ * text is copied from the input as it is, including whitespace,
+ * without parsing the value. Like any value that these readers
+ * skip, it is then only checked for being terminated. With any
+ * other reader, the value is parsed and captured as compact JSON.
+ */
+@JsonAdapter(RawJson.RawJsonTypeAdapter.class)
+public final class RawJson {
+
+    private final String mJson;
+
+    /**
+     * @param json valid JSON text, which
+     *             is not validated.
+     */
+    public RawJson(String json) {
+        if (json == null) {
+            throw new NullPointerException("The JSON text must not be null");
+        }
+        mJson = json;
+    }
+
+    /**
+     * Captures the next JSON value as text, see {@link RawJson}.
+     *
+     * @param reader the reader positioned at the value.
+     * @return the captured value, or null if the
+     * JSON value was null.
+     * @throws IOException if the JSON could not be read.
+     */
+    public static RawJson read(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return new RawJson(JsonCapture.capture(reader));
+    }
+
+    /**
+     * Writes the JSON text of a value verbatim.
+     *
+     * @param writer the writer.
+     * @param value  the value to write, may be null.
+     * @throws IOException if the text could not be written.
+     */
+    public static void write(JsonWriter writer, RawJson value) throws IOException {
+        if (value == null) {
+            writer.nullValue();
+        } else {
+            writer.jsonValue(value.mJson);
+        }
+    }
+
+    /**
+     * @return the JSON text of the value.
+     */
+    public String getJson() {
+        return mJson;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof RawJson && mJson.equals(((RawJson) o).mJson));
+    }
+
+    @Override
+    public int hashCode() {
+        return mJson.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return mJson;
+    }
+
+    static final class RawJsonTypeAdapter extends TypeAdapter<RawJson> {
+
+        @Override
+        public void write(JsonWriter out, RawJson value) throws IOException {
+            RawJson.write(out, value);
+        }
+
+        @Override
+        public RawJson read(JsonReader in) throws IOException {
+            return RawJson.read(in);
+        }
+
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A predicate that decides whether an object is kept while it
+ * is being read, see {@link StagTypeAdapter#read(com.google.gson.TypeAdapter,
+ * com.google.gson.stream.JsonReader, ReadFilter)}.
+ * <p/>
+ * A filter declares the keys of the member variables it depends
+ * on, using the same keys as {@link GsonAdapterKey}, including
+ * paths such as {@code "stats.plays"}. The adapters generated by
+ * Stag evaluate the filter as soon as the values of all these keys
+ * have been read, on the partially read object. If the filter
+ * rejects the object, the rest of its JSON is skipped without
+ * reading any further values, and null is returned instead. If
+ * some of the keys are absent from the JSON, the filter is evaluated
+ * once the whole object has been read.
+ * <p/>
+ * Models created by a {@link StagCreator} only exist once all their
+ * values have been read, so they are always filtered as complete
+ * objects, as are the objects read by other adapters.
+ *
+ * @param <T> the type of the objects that are filtered.
+ */
+public abstract class ReadFilter<T> {
+
+    private final Set<String> mKeys;
+
+    /**
+     * @param keys the keys of the member variables
+     *             that the filter depends on.
+     */
+    protected ReadFilter(String... keys) {
+        mKeys = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(keys)));
+    }
+
+    /**
+     * Decides whether to keep an object. Only the member variables
+     * of the keys that the filter depends on are guaranteed to have
+     * been read; the others may still be unset.
+     *
+     * @param object the object being read.
+     * @return true to keep the object, false to skip the
+     * rest of it.
+     */
+    public abstract boolean accept(T object);
+
+    /**
+     * @return the number of keys that the filter depends on.
+     */
+    public final int getKeyCount() {
+        return mKeys.size();
+    }
+
+    /**
+     * @param key the key of a member variable.
+     * @return true if the filter depends on the key.
+     */
+    public final boolean dependsOn(String key) {
+        return mKeys.contains(key);
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+
+/**
+ * Use this annotation to tell Stag which method should be
+ * used to access a private member variable.
+ * <p/>
+ * Stag is able to populate and serialize private member variables
+ * annotated with {@link GsonAdapterKey} if the class declares
+ * non-private accessor methods for them. By default, Stag looks
+ * for methods following the JavaBeans naming conventions, e.g. a
+ * member variable named {@code mName} or {@code name} is read using
+ * {@code getName()} and written using {@code setName(String)}.
+ * <p/>
+ * If the accessor methods do not follow those conventions, annotate
+ * them with this annotation and supply the name of the member variable
+ * they access. A method that takes no parameters is used as the getter,
+ * and a method that takes a single parameter is used as the setter.
+ */
+@Target(ElementType.METHOD)
+public @interface StagAccessor {
+
+    /**
+     * The name of the member variable
+     * that the annotated method accesses.
+     *
+     * @return the name of the member variable.
+     */
+    String value();
+
+}
@@ -0,0 +1,51 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+
+/**
+ * Use this annotation to tell Stag how to create an instance
+ * of a model class instead of calling its zero argument constructor.
+ * <p/>
+ * The annotation may be applied to a non-private constructor, or
+ * to a non-private static method that returns an instance of the
+ * enclosing class. The generated TypeAdapter reads every annotated
+ * member variable into a local variable and then passes those values
+ * to the creator. This allows model classes to declare their
+ * annotated member variables as final.
+ * <p/>
+ * Each parameter of the creator must have the same name as the
+ * annotated member variable it populates, and its type must be
+ * assignable from the type of that member variable. Annotated member
+ * variables that are not populated by the creator are assigned after
+ * the instance has been created, so they must not be final.
+ * <p/>
+ * A class may only have one creator. See the sample code for an example.
+ */
+@Target({ElementType.CONSTRUCTOR, ElementType.METHOD})
+public @interface StagCreator {
+
+}
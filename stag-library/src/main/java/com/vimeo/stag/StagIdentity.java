@@ -0,0 +1,59 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+
+/**
+ * Use this annotation to mark the member variable that
+ * identifies an instance of a model, such as its URI or id.
+ * <p/>
+ * Objects that repeat throughout a response, e.g. the same
+ * user on hundreds of videos, are then only materialized once.
+ * The generated TypeAdapter keeps the most recently read
+ * instances in an {@link IdentityCache}, and when it reads
+ * an identity that is already cached, it skips the remaining
+ * values of the JSON object and returns the cached instance.
+ * Since values are skipped as soon as the identity is read, it
+ * is fastest if the identity is the first value of the object.
+ * <p/>
+ * Because cached instances are shared, models with an identity
+ * should be treated as immutable, and they are never populated
+ * by {@link StagTypeAdapter#readInto}. The member variable must be
+ * a String, an int or a long, must be annotated with
+ * {@link GsonAdapterKey}, and its key must not be a path.
+ */
+@Target(ElementType.FIELD)
+public @interface StagIdentity {
+
+    /**
+     * The maximum number of instances that
+     * the TypeAdapter keeps in its cache.
+     *
+     * @return the size of the cache.
+     */
+    int cacheSize() default 256;
+
+}
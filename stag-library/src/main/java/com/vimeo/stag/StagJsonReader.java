@@ -0,0 +1,232 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+
+/**
+ * A {@link JsonReader} that reads a JSON document which is held
+ * in memory in its entirety, e.g. the body of a response.
+ * <p/>
+ * Because it retains the input, string values can be returned as
+ * {@link JsonSlice}s that refer to the input instead of copying
+ * every value into its own String, see {@link #nextSlice()}.
+ * Member variables of type {@link JsonSlice} or {@link CharSequence}
+ * are read this way by the generated TypeAdapters. Any other
+ * TypeAdapter can use this reader like a regular JsonReader, except
+ * that maps must be read with {@link StagMapTypeAdapterFactory},
+ * which the generated {@code Stag.Factory} includes.
+ * <p/>
+ * The reader only accepts standard JSON. Lenient mode allows
+ * several top level values in one document, and numbers that
+ * are too large for a double, but none of the other syntax
+ * extensions of {@link JsonReader}. Arrays and objects that are
+ * skipped, e.g. the values of unknown members, are only checked
+ * for being terminated, see {@link #skipValue()}.
+ */
+public final class StagJsonReader extends BufferedJsonReader {
+
+    private final char[] mBuffer;
+
+    /**
+     * @param json the JSON document.
+     */
+    public StagJsonReader(String json) {
+        this(json.toCharArray());
+    }
+
+    /**
+     * @param buffer the JSON document, which
+     *               must not be modified while
+     *               it is read or while slices
+     *               of it are used.
+     */
+    public StagJsonReader(char[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    /**
+     * @param buffer the buffer holding the JSON document,
+     *               which must not be modified while it is
+     *               read or while slices of it are used.
+     * @param offset the start of the document.
+     * @param length the length of the document.
+     */
+    public StagJsonReader(char[] buffer, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > buffer.length) {
+            throw new IndexOutOfBoundsException("Invalid range " + offset + '+' + length + " of buffer with length " +
+                                                buffer.length);
+        }
+        mBuffer = buffer;
+        mPos = offset;
+        mLimit = offset + length;
+    }
+
+    /**
+     * Returns the next string value, or the literal of the next
+     * number value, as a slice of the input. The characters are
+     * not copied, and escape sequences are only decoded once the
+     * slice is converted to a String.
+     *
+     * @return a slice of the input.
+     * @throws IOException if the next value is neither a string
+     *                     nor a number, or if it is malformed.
+     */
+    public JsonSlice nextSlice() throws IOException {
+        int peeked = peekInternal();
+        JsonSlice slice;
+        if (peeked == PEEKED_STRING) {
+            int end = scanString();
+            slice = new JsonSlice(mBuffer, mPos, end - mPos, mEscaped);
+            mPos = end + 1;
+        } else if (peeked == PEEKED_NUMBER) {
+            slice = new JsonSlice(mBuffer, mPos, mNumberEnd - mPos, false);
+            mPos = mNumberEnd;
+        } else {
+            throw unexpected("a string");
+        }
+        endValue();
+        return slice;
+    }
+
+    @Override
+    boolean fill(int minimum) {
+        return mLimit - mPos >= minimum;
+    }
+
+    @Override
+    int charAt(int position) {
+        return mBuffer[position];
+    }
+
+    @Override
+    boolean skipWhitespace() {
+        char[] buffer = mBuffer;
+        int p = mPos;
+        while (p < mLimit) {
+            char c = buffer[p];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                break;
+            }
+            p++;
+        }
+        mPos = p;
+        return p < mLimit;
+    }
+
+    @Override
+    int scanString() throws IOException {
+        char[] buffer = mBuffer;
+        boolean escaped = false;
+        int p = mPos;
+        while (p < mLimit) {
+            char c = buffer[p];
+            if (c == '"') {
+                mEscaped = escaped;
+                return p;
+            } else if (c != '\\') {
+                p++;
+                continue;
+            }
+            escaped = true;
+            if (++p == mLimit) {
+                break;
+            }
+            switch (buffer[p]) {
+                case '"':
+                case '\\':
+                case '/':
+                case 'b':
+                case 'f':
+                case 'n':
+                case 'r':
+                case 't':
+                    p++;
+                    break;
+                case 'u':
+                    if (p + 4 >= mLimit) {
+                        throw syntaxError("Unterminated escape sequence");
+                    }
+                    for (int i = 1; i <= 4; i++) {
+                        if (Character.digit(buffer[p + i], 16) < 0) {
+                            throw syntaxError("Malformed Unicode escape sequence");
+                        }
+                    }
+                    p += 5;
+                    break;
+                default:
+                    throw syntaxError("Invalid escape sequence");
+            }
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    @Override
+    String decodeString(int end) {
+        return mEscaped ? JsonSlice.unescape(mBuffer, mPos, end) : new String(mBuffer, mPos, end - mPos);
+    }
+
+    @Override
+    String asciiString(int start, int end) {
+        return new String(mBuffer, start, end - start);
+    }
+
+    @Override
+    void skipNested() throws IOException {
+        char[] buffer = mBuffer;
+        int depth = 1;
+        int p = mPos;
+        while (p < mLimit) {
+            char c = buffer[p++];
+            if (c == '"') {
+                while (p < mLimit && (c = buffer[p]) != '"') {
+                    p += c == '\\' ? 2 : 1;
+                }
+                if (p >= mLimit) {
+                    break;
+                }
+                p++;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if ((c == '}' || c == ']') && --depth == 0) {
+                mPos = p;
+                return;
+            }
+        }
+        throw syntaxError("Unterminated value");
+    }
+
+    @Override
+    String source(int start, int end) {
+        return new String(mBuffer, start, end - start);
+    }
+
+    @Override
+    String getPosition() {
+        return " at position " + mPos;
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.internal.$Gson$Types;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+/**
+ * Creates the TypeAdapters of maps that can read maps from the
+ * readers that parse their input themselves, {@link StagJsonReader}
+ * and {@link Utf8JsonReader}.
+ * <p/>
+ * Gson's own map adapter reads the keys of a JSON object through the
+ * internals of {@link JsonReader}, which these readers do not use.
+ * The adapters created here read the keys of such an object by their
+ * names instead, and convert them with the adapter of the key type,
+ * as Gson does. Everything else, including writing maps and reading
+ * from any other reader, is delegated to Gson's map adapter.
+ * <p/>
+ * The generated {@code Stag.Factory} includes this factory, otherwise
+ * it has to be registered with the {@link com.google.gson.GsonBuilder}.
+ */
+public final class StagMapTypeAdapterFactory implements TypeAdapterFactory {
+
+    private final TypeAdapterFactory mRegisteredFactory;
+
+    /**
+     * Creates a factory that is registered with Gson itself.
+     */
+    public StagMapTypeAdapterFactory() {
+        mRegisteredFactory = this;
+    }
+
+    /**
+     * Creates a factory whose adapters are created through another
+     * factory, such as the generated {@code Stag.Factory}. The
+     * delegate adapters are looked up past that factory.
+     *
+     * @param registeredFactory the factory that is
+     *                          registered with Gson.
+     */
+    public StagMapTypeAdapterFactory(TypeAdapterFactory registeredFactory) {
+        mRegisteredFactory = registeredFactory;
+    }
+
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        if (!Map.class.isAssignableFrom(rawType)) {
+            return null;
+        }
+        Type[] keyAndValueTypes = $Gson$Types.getMapKeyAndValueTypes(type.getType(), rawType);
+        return new MapTypeAdapter<>(gson.getDelegateAdapter(mRegisteredFactory, type),
+                                    gson.getAdapter(TypeToken.get(keyAndValueTypes[0])),
+                                    gson.getAdapter(TypeToken.get(keyAndValueTypes[1])));
+    }
+
+    private static final class MapTypeAdapter<T> extends TypeAdapter<T> {
+
+        private final TypeAdapter<T> mDelegate;
+        private final TypeAdapter<?> mKeyAdapter;
+        private final TypeAdapter<?> mValueAdapter;
+
+        MapTypeAdapter(TypeAdapter<T> delegate, TypeAdapter<?> keyAdapter, TypeAdapter<?> valueAdapter) {
+            mDelegate = delegate;
+            mKeyAdapter = keyAdapter;
+            mValueAdapter = valueAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            mDelegate.write(out, value);
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            if (!(in instanceof BufferedJsonReader) || in.peek() != JsonToken.BEGIN_OBJECT) {
+                // Arrays of entries and nulls are read without the internals
+                return mDelegate.read(in);
+            }
+            // Gson's adapter creates the empty map with the constructor it would use
+            T result = mDelegate.fromJsonTree(new JsonObject());
+            @SuppressWarnings("unchecked")
+            Map<Object, Object> map = (Map<Object, Object>) result;
+            in.beginObject();
+            while (in.hasNext()) {
+                Object key = mKeyAdapter.fromJsonTree(new JsonPrimitive(in.nextName()));
+                Object value = mValueAdapter.read(in);
+                if (map.put(key, value) != null) {
+                    throw new JsonSyntaxException("duplicate key: " + key);
+                }
+            }
+            in.endObject();
+            return result;
+        }
+
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+
+/**
+ * Use this annotation to tell Stag to generate a TypeAdapter
+ * for a class that cannot be annotated, e.g. a class from a
+ * third party library.
+ * <p/>
+ * Apply the annotation to a mirror class that declares a member
+ * variable for each field of the third party class that should be
+ * (de)serialized. The member variables of the mirror class must be
+ * annotated with {@link GsonAdapterKey} and must have the same names
+ * and types as the fields of the third party class. Stag will then
+ * generate a TypeAdapter for the third party class and register it
+ * with the {@code Stag.Factory}.
+ * <p/>
+ * The fields of the third party class must either be public, or have
+ * public accessor methods (see {@link StagAccessor}). If the third party
+ * class cannot be created using a zero argument constructor, or if some
+ * of its fields are final, the mirror class can declare a static method
+ * annotated with {@link StagCreator} that returns an instance of the
+ * third party class.
+ */
+@Target(ElementType.TYPE)
+public @interface StagMirror {
+
+    /**
+     * The class which this mirror class describes.
+     *
+     * @return the mirrored class.
+     */
+    Class<?> value();
+
+}
@@ -0,0 +1,59 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+
+/**
+ * Use this annotation to tell Stag to generate a TypeAdapter
+ * that only reads a subset of the values of another model.
+ * <p/>
+ * Apply the annotation to a projection class that declares a
+ * member variable for each value of the projected model that
+ * should be read. The member variables must have the same names
+ * and types as member variables of the projected model that are
+ * annotated with {@link GsonAdapterKey}, and must not be annotated
+ * themselves: their keys, and annotations such as {@link StagIntern},
+ * are taken from the projected model. All other values of the JSON
+ * object, including nested objects, are skipped without being
+ * materialized.
+ * <p/>
+ * The generated TypeAdapter creates instances of the projection
+ * class, and is registered with the {@code Stag.Factory} like
+ * the TypeAdapter of any other model. The member variables of
+ * a projection may be accessed through accessor methods, and a
+ * projection may declare a {@link StagCreator}.
+ */
+@Target(ElementType.TYPE)
+public @interface StagProjection {
+
+    /**
+     * The model which this class is a projection of.
+     *
+     * @return the projected class.
+     */
+    Class<?> value();
+
+}
@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+
+/**
+ * The base class of the TypeAdapters generated by Stag.
+ * <p/>
+ * In addition to {@link #read(JsonReader)}, which creates a new
+ * instance of the model for every JSON object, it can read a JSON
+ * object into an existing instance using {@link #readInto(JsonReader, Object)}.
+ * This allows consumers that read many objects of the same type, such
+ * as the messages of a stream, to reuse their model objects instead of
+ * allocating new ones. See {@link ObjectPool} for a simple way to do so.
+ *
+ * @param <T> the type of the model.
+ */
+public abstract class StagTypeAdapter<T> extends TypeAdapter<T> {
+
+    /**
+     * Reads the next JSON object into an existing instance of
+     * the model. All member variables of the instance are reset
+     * to their default values (null, 0 or false) before the JSON
+     * is read, so that no values of the previously read object
+     * are kept. Nested objects and lists held by the instance
+     * are reused for the nested JSON values, lists keep their
+     * capacity.
+     * <p/>
+     * Models that are created by a {@link StagCreator} cannot be
+     * reused, in which case a new instance is always returned.
+     *
+     * @param reader the reader positioned at the JSON object.
+     * @param target the instance to populate, or null to
+     *               create a new instance.
+     * @return the populated instance, which is either the target
+     * or a new instance, or null if the JSON value was null.
+     * @throws IOException if the JSON could not be read.
+     */
+    public abstract T readInto(JsonReader reader, T target) throws IOException;
+
+    /**
+     * Reads the next JSON object like {@link #readInto(JsonReader, Object)},
+     * but only keeps it if the filter accepts it. This implementation
+     * reads the whole object before evaluating the filter; the generated
+     * adapters evaluate it as soon as the values it depends on have been
+     * read, and skip the rest of a rejected object.
+     *
+     * @param reader the reader positioned at the JSON object.
+     * @param target the instance to populate, or null to create
+     *               a new instance. If the object is rejected, the
+     *               target may have been partially populated.
+     * @param filter the filter, or null to keep every object.
+     * @return the populated instance, or null if the object was
+     * rejected or the JSON value was null.
+     * @throws IOException if the JSON could not be read.
+     */
+    public T readInto(JsonReader reader, T target, ReadFilter<? super T> filter) throws IOException {
+        T object = readInto(reader, target);
+        return object == null || filter == null || filter.accept(object) ? object : null;
+    }
+
+    @Override
+    public T read(JsonReader reader) throws IOException {
+        return readInto(reader, null);
+    }
+
+    /**
+     * Reads the next JSON value into an existing instance if the
+     * adapter was generated by Stag. Any other adapter simply
+     * reads a new instance.
+     *
+     * @param adapter the adapter for the type.
+     * @param reader  the reader positioned at the JSON value.
+     * @param target  the instance to populate, may be null.
+     * @param <T>     the type to read.
+     * @return the populated instance, see {@link #readInto(JsonReader, Object)}.
+     * @throws IOException if the JSON could not be read.
+     */
+    public static <T> T readInto(TypeAdapter<T> adapter, JsonReader reader, T target) throws IOException {
+        if (target != null && adapter instanceof StagTypeAdapter) {
+            return ((StagTypeAdapter<T>) adapter).readInto(reader, target);
+        }
+        return adapter.read(reader);
+    }
+
+    /**
+     * Reads the next JSON value and only keeps it if the filter
+     * accepts it. If the adapter was generated by Stag, the rest
+     * of a rejected object is skipped, see {@link ReadFilter}.
+     *
+     * @param adapter the adapter for the type.
+     * @param reader  the reader positioned at the JSON value.
+     * @param filter  the filter, or null to keep every value.
+     * @param <T>     the type to read.
+     * @return the value, or null if it was rejected
+     * or the JSON value was null.
+     * @throws IOException if the JSON could not be read.
+     */
+    public static <T> T read(TypeAdapter<T> adapter, JsonReader reader, ReadFilter<? super T> filter)
+            throws IOException {
+        if (adapter instanceof StagTypeAdapter) {
+            return ((StagTypeAdapter<T>) adapter).readInto(reader, null, filter);
+        }
+        T object = adapter.read(reader);
+        return object == null || filter == null || filter.accept(object) ? object : null;
+    }
+
+}
@@ -0,0 +1,46 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+
+/**
+ * Use this annotation to mark a member variable of type
+ * {@link UnknownFields} that retains the values of the
+ * JSON object whose keys are not mapped to any member
+ * variable, instead of skipping them.
+ * <p/>
+ * The generated TypeAdapter only creates the holder if the
+ * JSON object contains unknown keys, otherwise the member
+ * variable is set to null. When the model is written, the
+ * unknown values are emitted after the known ones. Only the
+ * keys of the model's own JSON object are retained, not the
+ * unknown keys of nested objects described by a path key.
+ * The member variable must not be annotated with
+ * {@link GsonAdapterKey}, and a class may only declare one.
+ */
+@Target(ElementType.FIELD)
+public @interface StagUnknownFields {
+}
@@ -0,0 +1,253 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded cache of canonical String instances, used to
+ * deduplicate values that repeat across the objects that
+ * are read, see {@link StagIntern}.
+ * <p/>
+ * The cache is a direct mapped table: each String has a single
+ * slot determined by its hash, and a String replaces whatever
+ * occupies its slot. This keeps the cache bounded and lock free,
+ * at the cost of evicting values whose hashes collide. It is safe
+ * to use from multiple threads; concurrent updates of a slot may
+ * lose one of the values, which only costs a later miss.
+ * <p/>
+ * Values can be looked up by the characters of a token, in which
+ * case a hit returns the canonical instance without allocating
+ * a new String.
+ * <p/>
+ * Counting hits and misses is opt in, as every thread that uses
+ * the cache would contend on the counters. It is meant for tuning
+ * the capacity and maximum length, not for production use.
+ */
+public final class StringCache {
+
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final int DEFAULT_MAX_LENGTH = 64;
+
+    private static final StringCache DEFAULT = new StringCache(DEFAULT_CAPACITY, DEFAULT_MAX_LENGTH);
+
+    private final AtomicReferenceArray<String> mTable;
+    private final int mMask;
+    private final int mMaxLength;
+
+    // Null unless the cache records statistics
+    private final AtomicLong mHits;
+    private final AtomicLong mMisses;
+
+    /**
+     * Creates a cache that does not record statistics.
+     *
+     * @param capacity  the number of slots, rounded up to
+     *                  a power of two.
+     * @param maxLength the maximum length of the Strings that
+     *                  are cached, longer ones are unlikely to
+     *                  repeat and are returned as they are.
+     */
+    public StringCache(int capacity, int maxLength) {
+        this(capacity, maxLength, false);
+    }
+
+    /**
+     * @param capacity    the number of slots, rounded up to
+     *                    a power of two.
+     * @param maxLength   the maximum length of the Strings that
+     *                    are cached, longer ones are unlikely to
+     *                    repeat and are returned as they are.
+     * @param recordStats true to count the hits and misses.
+     */
+    public StringCache(int capacity, int maxLength, boolean recordStats) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity of the cache must be positive");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        mTable = new AtomicReferenceArray<>(size);
+        mMask = size - 1;
+        mMaxLength = maxLength;
+        mHits = recordStats ? new AtomicLong() : null;
+        mMisses = recordStats ? new AtomicLong() : null;
+    }
+
+    /**
+     * The cache used by the generated adapters for
+     * member variables annotated with {@link StagIntern},
+     * which does not record statistics.
+     *
+     * @return the shared cache.
+     */
+    public static StringCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the canonical instance of a String.
+     *
+     * @param value the String to look up, may be null.
+     * @return an equal String, which is the same instance
+     * for all equal values while it remains cached.
+     */
+    public String intern(String value) {
+        if (value == null || value.length() > mMaxLength) {
+            return value;
+        }
+        int index = spread(value.hashCode()) & mMask;
+        String cached = mTable.get(index);
+        if (cached != null && cached.equals(value)) {
+            if (mHits != null) {
+                mHits.incrementAndGet();
+            }
+            return cached;
+        }
+        if (mMisses != null) {
+            mMisses.incrementAndGet();
+        }
+        mTable.lazySet(index, value);
+        return value;
+    }
+
+    /**
+     * Returns the canonical instance of the String made up of
+     * a range of characters. A String is only allocated if the
+     * value is not cached.
+     *
+     * @param buffer the characters.
+     * @param offset the index of the first character.
+     * @param length the number of characters.
+     * @return the String made up of the characters.
+     */
+    public String intern(char[] buffer, int offset, int length) {
+        if (length > mMaxLength) {
+            return new String(buffer, offset, length);
+        }
+        int hash = 0;
+        for (int n = offset, end = offset + length; n < end; n++) {
+            hash = 31 * hash + buffer[n];
+        }
+        int index = spread(hash) & mMask;
+        String cached = mTable.get(index);
+        if (cached != null && contentEquals(cached, buffer, offset, length)) {
+            if (mHits != null) {
+                mHits.incrementAndGet();
+            }
+            return cached;
+        }
+        if (mMisses != null) {
+            mMisses.incrementAndGet();
+        }
+        String value = new String(buffer, offset, length);
+        mTable.lazySet(index, value);
+        return value;
+    }
+
+    /**
+     * Reads the next String from the reader and returns its
+     * canonical instance. If the reader is a {@link StagJsonReader},
+     * the value is looked up without copying it first.
+     *
+     * @param reader the reader positioned at a String.
+     * @return the canonical instance of the String.
+     * @throws IOException if the value could not be read.
+     */
+    public String nextString(JsonReader reader) throws IOException {
+        if (reader instanceof StagJsonReader) {
+            return intern(((StagJsonReader) reader).nextSlice());
+        }
+        return intern(reader.nextString());
+    }
+
+    private String intern(JsonSlice slice) {
+        if (slice.isEscaped()) {
+            return intern(slice.toString());
+        }
+        return intern(slice.getBuffer(), slice.getOffset(), slice.length());
+    }
+
+    /**
+     * @return the number of lookups that returned a cached
+     * instance, or 0 if the cache does not record statistics.
+     */
+    public long getHitCount() {
+        return mHits != null ? mHits.get() : 0;
+    }
+
+    /**
+     * @return the number of lookups of values that were not
+     * cached, or 0 if the cache does not record statistics.
+     */
+    public long getMissCount() {
+        return mMisses != null ? mMisses.get() : 0;
+    }
+
+    /**
+     * @return the fraction of lookups that returned a cached
+     * instance, or 0 if there were none or the cache does
+     * not record statistics.
+     */
+    public double getHitRate() {
+        long hits = getHitCount();
+        long total = hits + getMissCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Removes all cached values and resets the counters.
+     */
+    public void clear() {
+        for (int n = 0; n < mTable.length(); n++) {
+            mTable.set(n, null);
+        }
+        if (mHits != null) {
+            mHits.set(0);
+            mMisses.set(0);
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean contentEquals(String value, char[] buffer, int offset, int length) {
+        if (value.length() != length) {
+            return false;
+        }
+        for (int n = 0; n < length; n++) {
+            if (value.charAt(n) != buffer[offset + n]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
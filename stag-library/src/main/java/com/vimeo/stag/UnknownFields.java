@@ -0,0 +1,287 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The values of a JSON object whose keys are not
+ * mapped to any member variable of the model.
+ * <p/>
+ * The values are kept as JSON text in the order in which
+ * they were read, and are written back out verbatim after
+ * the known values, so that a model can be read and written
+ * again without losing data. Declare a member variable of
+ * this type annotated with {@link StagUnknownFields} to
+ * retain the unknown values of a model.
+ * <p/>
+ * The unknown values of the nested objects that hold member
+ * variables with compound keys, such as {@code "stats.plays"},
+ * are kept in nested unknown fields named by the key of the
+ * nested object, and are written back out into that object.
+ * <p/>
+ * The values of known keys that cannot be read into their member
+ * variable, because they are null or of another type, are kept as
+ * mismatched values. They are written in place of the value of the
+ * member variable, until they are removed.
+ */
+public final class UnknownFields {
+
+    private final Map<String, RawJson> mFields = new LinkedHashMap<>();
+    private Map<String, RawJson> mMismatched;
+    private Map<String, UnknownFields> mNested;
+
+    /**
+     * Captures the next JSON value as the value of a key,
+     * replacing the previous value of that key.
+     *
+     * @param name   the key of the value.
+     * @param reader the reader positioned at the value.
+     * @throws IOException if the JSON could not be read.
+     */
+    public void read(String name, JsonReader reader) throws IOException {
+        mFields.put(name, new RawJson(JsonCapture.capture(reader)));
+    }
+
+    /**
+     * Writes the names and values of the unknown fields
+     * into the JSON object that is currently being written.
+     * The nested unknown fields are not written, as they
+     * belong to the nested objects.
+     *
+     * @param writer the writer.
+     * @throws IOException if the values could not be written.
+     */
+    public void write(JsonWriter writer) throws IOException {
+        for (Map.Entry<String, RawJson> field : mFields.entrySet()) {
+            writer.name(field.getKey());
+            writer.jsonValue(field.getValue().getJson());
+        }
+    }
+
+    /**
+     * Captures the next JSON value as the mismatched value
+     * of a known key, replacing the previous value of that key.
+     *
+     * @param name   the key of the value.
+     * @param reader the reader positioned at the value.
+     * @throws IOException if the JSON could not be read.
+     */
+    public void readMismatched(String name, JsonReader reader) throws IOException {
+        if (mMismatched == null) {
+            mMismatched = new LinkedHashMap<>();
+        }
+        mMismatched.put(name, new RawJson(JsonCapture.capture(reader)));
+    }
+
+    /**
+     * Writes the name and the mismatched value of a known key
+     * if there is one, in place of its member variable.
+     *
+     * @param writer the writer.
+     * @param name   the key of the value.
+     * @return true if the value was written, false if
+     * there is no mismatched value with that key.
+     * @throws IOException if the value could not be written.
+     */
+    public boolean writeMismatched(JsonWriter writer, String name) throws IOException {
+        RawJson value = getMismatched(name);
+        if (value == null) {
+            return false;
+        }
+        writer.name(name);
+        writer.jsonValue(value.getJson());
+        return true;
+    }
+
+    /**
+     * @param name the key of the value.
+     * @return the mismatched value of the key, or null
+     * if the value of the key was read successfully.
+     */
+    public RawJson getMismatched(String name) {
+        return mMismatched != null ? mMismatched.get(name) : null;
+    }
+
+    /**
+     * Removes the mismatched value of a known key, so that
+     * the value of its member variable is written instead.
+     *
+     * @param name the key of the value to remove.
+     * @return the removed value, or null if there
+     * was no mismatched value with that key.
+     */
+    public RawJson removeMismatched(String name) {
+        return mMismatched != null ? mMismatched.remove(name) : null;
+    }
+
+    /**
+     * @param name the key of the nested object.
+     * @return the unknown fields of the nested object,
+     * which are created if they do not exist yet.
+     */
+    public UnknownFields nested(String name) {
+        if (mNested == null) {
+            mNested = new LinkedHashMap<>();
+        }
+        UnknownFields nested = mNested.get(name);
+        if (nested == null) {
+            nested = new UnknownFields();
+            mNested.put(name, nested);
+        }
+        return nested;
+    }
+
+    /**
+     * @param name the key of the nested object.
+     * @return the unknown fields of the nested object,
+     * or null if none were read or created.
+     */
+    public UnknownFields getNested(String name) {
+        return mNested != null ? mNested.get(name) : null;
+    }
+
+    /**
+     * @param name the key of the value.
+     * @return the value of the key, or null if
+     * there is no unknown field with that key.
+     */
+    public RawJson get(String name) {
+        return mFields.get(name);
+    }
+
+    /**
+     * Sets the value of a key.
+     *
+     * @param name  the key of the value.
+     * @param value the value.
+     */
+    public void put(String name, RawJson value) {
+        if (value == null) {
+            throw new NullPointerException("The value must not be null");
+        }
+        mFields.put(name, value);
+    }
+
+    /**
+     * @param name the key of the value to remove.
+     * @return the removed value, or null if there
+     * was no unknown field with that key.
+     */
+    public RawJson remove(String name) {
+        return mFields.remove(name);
+    }
+
+    /**
+     * @return the keys of the unknown fields,
+     * in the order in which they were read.
+     */
+    public Set<String> names() {
+        return Collections.unmodifiableSet(mFields.keySet());
+    }
+
+    public int size() {
+        return mFields.size();
+    }
+
+    /**
+     * @return true if there are neither unknown fields nor
+     * mismatched values, not even in the nested unknown fields.
+     */
+    public boolean isEmpty() {
+        if (!mFields.isEmpty() || (mMismatched != null && !mMismatched.isEmpty())) {
+            return false;
+        }
+        if (mNested != null) {
+            for (UnknownFields nested : mNested.values()) {
+                if (!nested.isEmpty()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public void clear() {
+        mFields.clear();
+        mMismatched = null;
+        mNested = null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UnknownFields)) {
+            return false;
+        }
+        UnknownFields that = (UnknownFields) o;
+        return mFields.equals(that.mFields) && getMismatched().equals(that.getMismatched()) &&
+               getNonEmptyNested().equals(that.getNonEmptyNested());
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * mFields.hashCode() + getMismatched().hashCode()) + getNonEmptyNested().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(mFields.toString());
+        if (mMismatched != null && !mMismatched.isEmpty()) {
+            builder.append(" mismatched ").append(mMismatched);
+        }
+        if (mNested != null) {
+            builder.append(' ').append(mNested);
+        }
+        return builder.toString();
+    }
+
+    private Map<String, RawJson> getMismatched() {
+        return mMismatched != null ? mMismatched : Collections.<String, RawJson>emptyMap();
+    }
+
+    private Map<String, UnknownFields> getNonEmptyNested() {
+        if (mNested == null) {
+            return Collections.emptyMap();
+        }
+        // Empty nested unknown fields are equal to missing ones
+        Map<String, UnknownFields> nested = new LinkedHashMap<>();
+        for (Map.Entry<String, UnknownFields> entry : mNested.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                nested.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return nested;
+    }
+
+}
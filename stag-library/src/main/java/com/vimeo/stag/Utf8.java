@@ -0,0 +1,78 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.stream.MalformedJsonException;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Decodes ranges of UTF-8 input, e.g. the elements
+ * of an array that were found by {@link JsonArrayScanner}.
+ */
+final class Utf8 {
+
+    static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private Utf8() {
+        throw new UnsupportedOperationException("This class is not instantiable");
+    }
+
+    /**
+     * Decodes a range of bytes into an array of characters. The
+     * array must have room for at least as many characters as
+     * there are bytes, which is the most that they can decode to.
+     *
+     * @param in     the input.
+     * @param start  the absolute index of the first byte.
+     * @param end    the absolute index that follows the last byte.
+     * @param out    the destination of the characters.
+     * @param offset the index in the destination of the
+     *               first character.
+     * @return the number of characters.
+     * @throws MalformedJsonException if the bytes are not valid UTF-8.
+     */
+    static int decode(ByteBuffer in, int start, int end, char[] out, int offset) throws MalformedJsonException {
+        ByteBuffer bytes = in.duplicate();
+        bytes.limit(end).position(start);
+        CharBuffer chars = CharBuffer.wrap(out, offset, end - start);
+        CharsetDecoder decoder = CHARSET.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        CoderResult result = decoder.decode(bytes, chars, true);
+        if (!result.isError()) {
+            result = decoder.flush(chars);
+        }
+        if (result.isError()) {
+            throw new MalformedJsonException("Invalid UTF-8 input at byte " + bytes.position());
+        }
+        return chars.position() - offset;
+    }
+
+}
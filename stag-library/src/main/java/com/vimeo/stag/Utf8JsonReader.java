@@ -0,0 +1,425 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A {@link JsonReader} that parses UTF-8 input as bytes, from
+ * a byte array or a stream, rather than decoding it to chars first.
+ * <p/>
+ * Everything that makes up the structure of JSON is ASCII, as are
+ * the literals and numbers, so only string values are decoded: numbers
+ * are parsed from their bytes, and names, which repeat across objects,
+ * are looked up in a small cache by their bytes, which returns the same
+ * String for every occurrence of a name without decoding it again. The
+ * adapters generated by Stag, and any other TypeAdapter, can use this
+ * reader like a regular JsonReader, except that maps must be read with
+ * {@link StagMapTypeAdapterFactory}, which the generated
+ * {@code Stag.Factory} includes.
+ * <p/>
+ * The reader only accepts standard JSON, with an optional leading byte
+ * order mark. Lenient mode allows several top level values in one
+ * document, and numbers that are too large for a double, but none
+ * of the other syntax extensions of {@link JsonReader}. Arrays and
+ * objects that are skipped, e.g. the values of unknown members, are
+ * only checked for being terminated, see {@link #skipValue()}.
+ */
+public final class Utf8JsonReader extends BufferedJsonReader {
+
+    private static final int STREAM_BUFFER_SIZE = 8192;
+    private static final int NAME_CACHE_SIZE = 256;
+    private static final int MAX_CACHED_NAME_LENGTH = 32;
+
+    private final InputStream mIn;
+    private byte[] mBuffer;
+
+    /**
+     * The number of bytes of the stream that
+     * were discarded from the buffer.
+     */
+    private long mDiscarded;
+
+    /**
+     * Whether the string that was last
+     * scanned contains only ASCII bytes.
+     */
+    private boolean mAscii;
+
+    private char[] mChars = new char[64];
+    private final String[] mNames = new String[NAME_CACHE_SIZE];
+    private final byte[][] mNameBytes = new byte[NAME_CACHE_SIZE][];
+
+    /**
+     * @param buffer the UTF-8 JSON document, which must
+     *               not be modified while it is read.
+     */
+    public Utf8JsonReader(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    /**
+     * @param buffer the buffer holding the UTF-8 JSON document,
+     *               which must not be modified while it is read.
+     * @param offset the start of the document.
+     * @param length the length of the document.
+     */
+    public Utf8JsonReader(byte[] buffer, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > buffer.length) {
+            throw new IndexOutOfBoundsException("Invalid range " + offset + '+' + length + " of buffer with length " +
+                                                buffer.length);
+        }
+        mIn = null;
+        mBuffer = buffer;
+        mPos = offset;
+        mLimit = offset + length;
+    }
+
+    /**
+     * @param in the stream of the UTF-8 JSON document, which is
+     *           read in blocks as needed, and is closed when the
+     *           reader is closed.
+     */
+    public Utf8JsonReader(InputStream in) {
+        if (in == null) {
+            throw new NullPointerException("The input stream must not be null");
+        }
+        mIn = in;
+        mBuffer = new byte[STREAM_BUFFER_SIZE];
+    }
+
+    @Override
+    public void close() throws IOException {
+        super.close();
+        if (mIn != null) {
+            mIn.close();
+        }
+    }
+
+    @Override
+    void beginDocument() throws IOException {
+        if (fill(3) && mBuffer[mPos] == (byte) 0xEF && mBuffer[mPos + 1] == (byte) 0xBB &&
+            mBuffer[mPos + 2] == (byte) 0xBF) {
+            mPos += 3;
+        }
+    }
+
+    @Override
+    boolean fill(int minimum) throws IOException {
+        if (mIn == null) {
+            return mLimit - mPos >= minimum;
+        }
+        while (mLimit - mPos < minimum) {
+            // The bytes of a value that is being captured are kept
+            int keep = mMark >= 0 ? Math.min(mMark, mPos) : mPos;
+            if (keep > 0) {
+                System.arraycopy(mBuffer, keep, mBuffer, 0, mLimit - keep);
+                mDiscarded += keep;
+                mLimit -= keep;
+                mPos -= keep;
+                if (mMark >= 0) {
+                    mMark -= keep;
+                }
+            }
+            if (mLimit == mBuffer.length) {
+                mBuffer = Arrays.copyOf(mBuffer, mBuffer.length * 2);
+            }
+            int count = mIn.read(mBuffer, mLimit, mBuffer.length - mLimit);
+            if (count == -1) {
+                return false;
+            }
+            mLimit += count;
+        }
+        return true;
+    }
+
+    @Override
+    int charAt(int position) {
+        return mBuffer[position];
+    }
+
+    @Override
+    boolean skipWhitespace() throws IOException {
+        while (mPos < mLimit || fill(1)) {
+            byte c = mBuffer[mPos];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return true;
+            }
+            mPos++;
+        }
+        return false;
+    }
+
+    /**
+     * Also sets {@link #mAscii}.
+     */
+    @Override
+    int scanString() throws IOException {
+        boolean escaped = false;
+        boolean ascii = true;
+        int p = mPos;
+        while (true) {
+            if (p == mLimit) {
+                int offset = p - mPos;
+                if (!fill(offset + 1)) {
+                    throw syntaxError("Unterminated string");
+                }
+                p = mPos + offset;
+            }
+            byte b = mBuffer[p];
+            if (b == '"') {
+                mEscaped = escaped;
+                mAscii = ascii;
+                return p;
+            } else if (b != '\\') {
+                ascii &= b >= 0;
+                p++;
+                continue;
+            }
+            escaped = true;
+            int offset = p - mPos;
+            if (!fill(offset + 2)) {
+                throw syntaxError("Unterminated string");
+            }
+            p = mPos + offset;
+            switch (mBuffer[p + 1]) {
+                case '"':
+                case '\\':
+                case '/':
+                case 'b':
+                case 'f':
+                case 'n':
+                case 'r':
+                case 't':
+                    p += 2;
+                    break;
+                case 'u':
+                    if (!fill(offset + 6)) {
+                        throw syntaxError("Unterminated escape sequence");
+                    }
+                    p = mPos + offset;
+                    for (int i = 2; i <= 5; i++) {
+                        if (Character.digit(mBuffer[p + i], 16) < 0) {
+                            throw syntaxError("Malformed Unicode escape sequence");
+                        }
+                    }
+                    p += 6;
+                    break;
+                default:
+                    throw syntaxError("Invalid escape sequence");
+            }
+        }
+    }
+
+    @Override
+    String decodeString(int end) throws IOException {
+        if (mAscii && !mEscaped) {
+            return asciiString(mPos, end);
+        }
+        byte[] buffer = mBuffer;
+        char[] chars = chars(end - mPos);
+        int length = 0;
+        int p = mPos;
+        while (p < end) {
+            int b = buffer[p];
+            if (b == '\\') {
+                byte c = buffer[p + 1];
+                p += 2;
+                switch (c) {
+                    case 'b':
+                        chars[length++] = '\b';
+                        break;
+                    case 'f':
+                        chars[length++] = '\f';
+                        break;
+                    case 'n':
+                        chars[length++] = '\n';
+                        break;
+                    case 'r':
+                        chars[length++] = '\r';
+                        break;
+                    case 't':
+                        chars[length++] = '\t';
+                        break;
+                    case 'u':
+                        int value = 0;
+                        for (int i = 0; i < 4; i++) {
+                            value = (value << 4) | Character.digit(buffer[p++], 16);
+                        }
+                        chars[length++] = (char) value;
+                        break;
+                    default:
+                        chars[length++] = (char) c;
+                        break;
+                }
+            } else if (b >= 0) {
+                chars[length++] = (char) b;
+                p++;
+            } else {
+                b &= 0xFF;
+                if (b >= 0xC2 && b <= 0xDF && p + 1 < end && isContinuation(buffer[p + 1])) {
+                    chars[length++] = (char) (((b & 0x1F) << 6) | (buffer[p + 1] & 0x3F));
+                    p += 2;
+                } else if (b >= 0xE0 && b <= 0xEF && p + 2 < end && isContinuation(buffer[p + 1]) &&
+                           isContinuation(buffer[p + 2])) {
+                    int c = ((b & 0x0F) << 12) | ((buffer[p + 1] & 0x3F) << 6) | (buffer[p + 2] & 0x3F);
+                    if (c < 0x800 || (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE)) {
+                        throw invalidUtf8(p);
+                    }
+                    chars[length++] = (char) c;
+                    p += 3;
+                } else if (b >= 0xF0 && b <= 0xF4 && p + 3 < end && isContinuation(buffer[p + 1]) &&
+                           isContinuation(buffer[p + 2]) && isContinuation(buffer[p + 3])) {
+                    int c = ((b & 0x07) << 18) | ((buffer[p + 1] & 0x3F) << 12) | ((buffer[p + 2] & 0x3F) << 6) |
+                            (buffer[p + 3] & 0x3F);
+                    if (c < Character.MIN_SUPPLEMENTARY_CODE_POINT || c > Character.MAX_CODE_POINT) {
+                        throw invalidUtf8(p);
+                    }
+                    chars[length++] = Character.highSurrogate(c);
+                    chars[length++] = Character.lowSurrogate(c);
+                    p += 4;
+                } else {
+                    throw invalidUtf8(p);
+                }
+            }
+        }
+        return new String(chars, 0, length);
+    }
+
+    @Override
+    String decodeName(int end) throws IOException {
+        return mEscaped || end - mPos > MAX_CACHED_NAME_LENGTH ? decodeString(end) : lookUpName(end);
+    }
+
+    /**
+     * Returns the name between the current position and its closing
+     * quote at the end, which contains no escape sequences, from the
+     * cache of names if the same bytes were read before.
+     */
+    private String lookUpName(int end) throws IOException {
+        byte[] buffer = mBuffer;
+        int hash = 0;
+        for (int p = mPos; p < end; p++) {
+            hash = 31 * hash + buffer[p];
+        }
+        int index = (hash ^ (hash >>> 16)) & (NAME_CACHE_SIZE - 1);
+        byte[] cached = mNameBytes[index];
+        if (cached != null && cached.length == end - mPos) {
+            int i = 0;
+            while (i < cached.length && cached[i] == buffer[mPos + i]) {
+                i++;
+            }
+            if (i == cached.length) {
+                return mNames[index];
+            }
+        }
+        String name = decodeString(end);
+        mNameBytes[index] = Arrays.copyOfRange(buffer, mPos, end);
+        mNames[index] = name;
+        return name;
+    }
+
+    @Override
+    String asciiString(int start, int end) {
+        char[] chars = chars(end - start);
+        byte[] buffer = mBuffer;
+        for (int p = start; p < end; p++) {
+            chars[p - start] = (char) buffer[p];
+        }
+        return new String(chars, 0, end - start);
+    }
+
+    private char[] chars(int length) {
+        if (mChars.length < length) {
+            mChars = new char[Math.max(length, mChars.length * 2)];
+        }
+        return mChars;
+    }
+
+    /**
+     * The bytes that were skipped are released before more of the
+     * stream is read, so a large value does not grow the buffer,
+     * unless it is being captured by {@link #nextSource()}.
+     */
+    @Override
+    void skipNested() throws IOException {
+        int depth = 1;
+        boolean inString = false;
+        int p = mPos;
+        while (true) {
+            if (p >= mLimit) {
+                // The byte that follows a backslash may be past the limit
+                int skip = p - mLimit;
+                mPos = mLimit;
+                if (!fill(skip + 1)) {
+                    throw syntaxError("Unterminated value");
+                }
+                p = mPos + skip;
+            }
+            byte b = mBuffer[p++];
+            if (inString) {
+                if (b == '"') {
+                    inString = false;
+                } else if (b == '\\') {
+                    p++;
+                }
+            } else if (b == '"') {
+                inString = true;
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if ((b == '}' || b == ']') && --depth == 0) {
+                mPos = p;
+                return;
+            }
+        }
+    }
+
+    @Override
+    String source(int start, int end) throws IOException {
+        char[] chars = chars(end - start);
+        int length = Utf8.decode(ByteBuffer.wrap(mBuffer), start, end, chars, 0);
+        return new String(chars, 0, length);
+    }
+
+    @Override
+    String getPosition() {
+        return " at byte " + (mDiscarded + mPos);
+    }
+
+    private static boolean isContinuation(byte b) {
+        return (b & 0xC0) == 0x80;
+    }
+
+    private MalformedJsonException invalidUtf8(int position) {
+        return new MalformedJsonException("Invalid UTF-8 input at byte " + (mDiscarded + position) + " path " +
+                                          getPath());
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.MalformedJsonException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+public class ByteBufferReaderUnitTest {
+
+    private static final TypeAdapter<JsonElement> ELEMENT_ADAPTER = new Gson().getAdapter(JsonElement.class);
+
+    private static final String TEXT = "caf\u00e9 \u20ac \ud83d\ude00!";
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(Charset.forName("UTF-8"));
+    }
+
+    private static String readAll(ByteBufferReader reader, int chunk) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        char[] buffer = new char[chunk];
+        int count;
+        while ((count = reader.read(buffer, 0, chunk)) != -1) {
+            builder.append(buffer, 0, count);
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testRead_chunks() throws Exception {
+        for (int chunk = 1; chunk <= 4; chunk++) {
+            Assert.assertEquals(TEXT, readAll(new ByteBufferReader(ByteBuffer.wrap(utf8(TEXT))), chunk));
+        }
+        Assert.assertEquals("", readAll(new ByteBufferReader(ByteBuffer.allocate(0)), 8));
+    }
+
+    @Test
+    public void testRead_directBuffer() throws Exception {
+        byte[] bytes = utf8(TEXT);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length + 4);
+        buffer.put(new byte[]{'x', 'x'}).put(bytes).put(new byte[]{'y', 'y'});
+        buffer.position(2).limit(2 + bytes.length);
+        ByteBufferReader reader = new ByteBufferReader(buffer);
+        Assert.assertEquals(bytes.length, reader.remaining());
+        Assert.assertEquals(TEXT, readAll(reader, 1024));
+        Assert.assertEquals(2, buffer.position());
+        Assert.assertEquals(2 + bytes.length, buffer.limit());
+    }
+
+    @Test
+    public void testRead_byteOrderMark() throws Exception {
+        byte[] bytes = utf8("\ufeff[1]");
+        Assert.assertEquals("[1]", readAll(new ByteBufferReader(ByteBuffer.wrap(bytes)), 16));
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testRead_malformed() throws Exception {
+        readAll(new ByteBufferReader(ByteBuffer.wrap(new byte[]{'"', 'a', (byte) 0xC3, '"'})), 16);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRead_closed() throws Exception {
+        ByteBufferReader reader = new ByteBufferReader(ByteBuffer.wrap(utf8(TEXT)));
+        reader.close();
+        reader.read(new char[4], 0, 4);
+    }
+
+    @Test
+    public void testRead_adapter() throws Exception {
+        StringBuilder builder = new StringBuilder("[");
+        for (int n = 0; n < 5000; n++) {
+            builder.append(n == 0 ? "" : ",").append("{\"id\":").append(n).append(",\"name\":\"").append(TEXT)
+                    .append("\"}");
+        }
+        String json = builder.append(']').toString();
+        JsonElement element = ByteBufferReader.read(ByteBuffer.wrap(utf8(json)), ELEMENT_ADAPTER);
+        Assert.assertEquals(new JsonParser().parse(json), element);
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testRead_trailingValue() throws Exception {
+        ByteBufferReader.read(ByteBuffer.wrap(utf8("[1] [2]")), ELEMENT_ADAPTER);
+    }
+
+}
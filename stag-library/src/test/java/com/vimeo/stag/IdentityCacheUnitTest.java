@@ -0,0 +1,68 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IdentityCacheUnitTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_invalidSize() throws Exception {
+        new IdentityCache<String, Object>(0);
+    }
+
+    @Test
+    public void testGetPut() throws Exception {
+        IdentityCache<String, Object> cache = new IdentityCache<>(2);
+        Object value = new Object();
+        Assert.assertNull(cache.get("a"));
+        cache.put("a", value);
+        cache.put(null, new Object());
+        Assert.assertSame(value, cache.get("a"));
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testPut_evictsLeastRecentlyUsed() throws Exception {
+        IdentityCache<Long, Object> cache = new IdentityCache<>(2);
+        Object first = new Object();
+        Object second = new Object();
+        cache.put(1L, first);
+        cache.put(2L, second);
+        Assert.assertSame(first, cache.get(1L));
+
+        cache.put(3L, new Object());
+        Assert.assertEquals(2, cache.size());
+        Assert.assertSame(first, cache.get(1L));
+        Assert.assertNull(cache.get(2L));
+    }
+
+}
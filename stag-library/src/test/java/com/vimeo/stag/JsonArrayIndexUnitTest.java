@@ -0,0 +1,154 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.MalformedJsonException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+public class JsonArrayIndexUnitTest {
+
+    private static final TypeAdapter<JsonElement> ELEMENT_ADAPTER = new Gson().getAdapter(JsonElement.class);
+
+    private static final String ARRAY = "[{\"id\": \"a\", \"name\": \"caf\\u00e9\"}, 7, " +
+                                        "{\"tags\": [\"id\"], \"id\": 42, \"name\": \"\u00e9\u20ac\"}, " +
+                                        "{\"id\": \"\\u0062\"}, {\"id\": null}, {\"id\": \"a\", \"name\": \"dup\"}]";
+
+    private static ByteBuffer utf8(String json) {
+        return ByteBuffer.wrap(json.getBytes(Charset.forName("UTF-8")));
+    }
+
+    @Test
+    public void testRead_byIndex() throws Exception {
+        ByteBuffer buffer = utf8(ARRAY);
+        JsonArrayIndex index = JsonArrayIndex.build(buffer);
+        Assert.assertEquals(6, index.size());
+        Assert.assertNull(index.getKeyName());
+        Assert.assertEquals(-1, index.indexOf("a"));
+        Assert.assertEquals(1, index.getStart(0));
+        Assert.assertEquals("7", index.read(buffer, 1, ELEMENT_ADAPTER).toString());
+        Assert.assertEquals("\u00e9\u20ac",
+                            index.read(buffer, 2, ELEMENT_ADAPTER).getAsJsonObject().get("name").getAsString());
+        Assert.assertEquals(0, buffer.position());
+        Assert.assertEquals(buffer.capacity(), buffer.limit());
+    }
+
+    @Test
+    public void testRead_byKey() throws Exception {
+        ByteBuffer buffer = utf8(ARRAY);
+        JsonArrayIndex index = JsonArrayIndex.build(buffer, "id");
+        Assert.assertEquals("id", index.getKeyName());
+        Assert.assertEquals(0, index.indexOf("a"));
+        Assert.assertEquals(2, index.indexOf("42"));
+        Assert.assertEquals(3, index.indexOf("b"));
+        Assert.assertEquals(-1, index.indexOf("null"));
+        Assert.assertEquals("caf\u00e9", index.read(buffer, "a", ELEMENT_ADAPTER)
+                .getAsJsonObject().get("name").getAsString());
+        Assert.assertNull(index.read(buffer, "missing", ELEMENT_ADAPTER));
+    }
+
+    @Test
+    public void testWriteTo_readFrom() throws Exception {
+        ByteBuffer buffer = utf8(ARRAY);
+        JsonArrayIndex index = JsonArrayIndex.build(buffer, "id");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.writeTo(out);
+
+        JsonArrayIndex copy = JsonArrayIndex.readFrom(new ByteArrayInputStream(out.toByteArray()));
+        Assert.assertEquals(index.size(), copy.size());
+        Assert.assertEquals("id", copy.getKeyName());
+        for (int n = 0; n < index.size(); n++) {
+            Assert.assertEquals(index.getStart(n), copy.getStart(n));
+            Assert.assertEquals(index.getEnd(n), copy.getEnd(n));
+        }
+        Assert.assertEquals(2, copy.indexOf("42"));
+        Assert.assertEquals(index.read(buffer, "b", ELEMENT_ADAPTER), copy.read(buffer, "b", ELEMENT_ADAPTER));
+
+        out.reset();
+        JsonArrayIndex.build(buffer).writeTo(out);
+        copy = JsonArrayIndex.readFrom(new ByteArrayInputStream(out.toByteArray()));
+        Assert.assertNull(copy.getKeyName());
+        Assert.assertEquals(6, copy.size());
+    }
+
+    @Test
+    public void testWriteTo_readFrom_longKey() throws Exception {
+        StringBuilder key = new StringBuilder();
+        for (int n = 0; n < 30000; n++) {
+            key.append("\u00e9");
+        }
+        ByteBuffer buffer = utf8("[{\"id\": \"" + key + "\"}, {\"id\": \"a\"}]");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonArrayIndex.build(buffer, "id").writeTo(out);
+
+        JsonArrayIndex copy = JsonArrayIndex.readFrom(new ByteArrayInputStream(out.toByteArray()));
+        Assert.assertEquals(0, copy.indexOf(key.toString()));
+        Assert.assertEquals(1, copy.indexOf("a"));
+    }
+
+    @Test
+    public void testReadFrom_stopsAtEndOfIndex() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonArrayIndex.build(utf8(ARRAY), "id").writeTo(out);
+        out.write(new byte[]{1, 2, 3});
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        JsonArrayIndex.readFrom(in);
+        Assert.assertEquals(3, in.available());
+        Assert.assertEquals(1, in.read());
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadFrom_notAnIndex() throws Exception {
+        JsonArrayIndex.readFrom(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRead_differentInput() throws Exception {
+        JsonArrayIndex index = JsonArrayIndex.build(utf8(ARRAY));
+        index.read(utf8("[1, 2]"), 0, ELEMENT_ADAPTER);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRead_outOfBounds() throws Exception {
+        ByteBuffer buffer = utf8("[1, 2]");
+        JsonArrayIndex.build(buffer).read(buffer, 2, ELEMENT_ADAPTER);
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testBuild_notAnArray() throws Exception {
+        JsonArrayIndex.build(utf8("{\"id\": 1}"), "id");
+    }
+
+}
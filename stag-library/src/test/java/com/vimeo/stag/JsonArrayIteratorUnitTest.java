@@ -0,0 +1,114 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public class JsonArrayIteratorUnitTest {
+
+    private static final TypeAdapter<Integer> INTEGER_ADAPTER = new Gson().getAdapter(Integer.class);
+
+    private static JsonReader reader(String json) {
+        return new JsonReader(new StringReader(json));
+    }
+
+    private static <T> List<T> toList(JsonArrayIterator<T> iterator) {
+        List<T> list = new ArrayList<>();
+        while (iterator.hasNext()) {
+            list.add(iterator.next());
+        }
+        return list;
+    }
+
+    @Test
+    public void testOf_topLevelArray() throws Exception {
+        JsonArrayIterator<Integer> iterator = JsonArrayIterator.of(reader("[1, 2, null, 3]"), INTEGER_ADAPTER);
+        Assert.assertEquals(Arrays.asList(1, 2, null, 3), toList(iterator));
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testOf_leavesReaderAfterArray() throws Exception {
+        JsonReader reader = reader("[[1, 2], 3]");
+        reader.beginArray();
+        Assert.assertEquals(Arrays.asList(1, 2), toList(JsonArrayIterator.of(reader, INTEGER_ADAPTER)));
+        Assert.assertEquals(3, reader.nextInt());
+        reader.endArray();
+    }
+
+    @Test
+    public void testOf_null() throws Exception {
+        Assert.assertFalse(JsonArrayIterator.of(reader("null"), INTEGER_ADAPTER).hasNext());
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testOf_notAnArray() throws Exception {
+        JsonArrayIterator.of(reader("{}"), INTEGER_ADAPTER);
+    }
+
+    @Test
+    public void testOf_path() throws Exception {
+        String json = "{\"total\": 2, \"data\": [4, 5], \"paging\": {\"next\": null}}";
+        JsonArrayIterator<Integer> iterator = JsonArrayIterator.of(reader(json), JsonPath.compile("data"),
+                                                                   INTEGER_ADAPTER);
+        Assert.assertEquals(Arrays.asList(4, 5), toList(iterator));
+
+        iterator = JsonArrayIterator.of(reader(json), JsonPath.compile("missing"), INTEGER_ADAPTER);
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testNext_exhausted() throws Exception {
+        JsonArrayIterator<Integer> iterator = JsonArrayIterator.of(reader("[]"), INTEGER_ADAPTER);
+        iterator.next();
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void testNext_malformedElement() throws Exception {
+        JsonArrayIterator<Integer> iterator = JsonArrayIterator.of(reader("[{}]"), INTEGER_ADAPTER);
+        iterator.next();
+    }
+
+    @Test
+    public void testClose_stopsIteration() throws Exception {
+        JsonArrayIterator<Integer> iterator = JsonArrayIterator.of(reader("[1, 2]"), INTEGER_ADAPTER);
+        Assert.assertEquals(Integer.valueOf(1), iterator.next());
+        iterator.close();
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+public class JsonArrayPublisherUnitTest {
+
+    private static final TypeAdapter<Integer> INTEGER_ADAPTER = new Gson().getAdapter(Integer.class);
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private static JsonArrayPublisher<Integer> publisher(String json) {
+        return new JsonArrayPublisher<>(new JsonReader(new StringReader(json)), INTEGER_ADAPTER, DIRECT_EXECUTOR);
+    }
+
+    private static class RecordingSubscriber implements JsonArrayPublisher.Subscriber<Integer> {
+
+        final List<Integer> mItems = new ArrayList<>();
+        JsonArrayPublisher.Subscription mSubscription;
+        Throwable mError;
+        boolean mComplete;
+
+        @Override
+        public void onSubscribe(JsonArrayPublisher.Subscription subscription) {
+            mSubscription = subscription;
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            mItems.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            mError = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            mComplete = true;
+        }
+    }
+
+    @Test
+    public void testRequest_deliversOnlyDemand() throws Exception {
+        // The malformed tail is only read once more elements are requested
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher("[1, 2, }").subscribe(subscriber);
+        Assert.assertTrue(subscriber.mItems.isEmpty());
+
+        subscriber.mSubscription.request(2);
+        Assert.assertEquals(Arrays.asList(1, 2), subscriber.mItems);
+        Assert.assertNull(subscriber.mError);
+
+        subscriber.mSubscription.request(1);
+        Assert.assertNotNull(subscriber.mError);
+        Assert.assertFalse(subscriber.mComplete);
+    }
+
+    @Test
+    public void testRequest_completes() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher("[1, null, 2, 3]").subscribe(subscriber);
+        subscriber.mSubscription.request(3);
+        Assert.assertEquals(Arrays.asList(1, 2, 3), subscriber.mItems);
+        Assert.assertTrue(subscriber.mComplete);
+        Assert.assertNull(subscriber.mError);
+    }
+
+    @Test
+    public void testRequest_fromOnNext() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber() {
+            @Override
+            public void onNext(Integer item) {
+                super.onNext(item);
+                mSubscription.request(1);
+            }
+        };
+        publisher("[1, 2, 3]").subscribe(subscriber);
+        subscriber.mSubscription.request(1);
+        Assert.assertEquals(Arrays.asList(1, 2, 3), subscriber.mItems);
+        Assert.assertTrue(subscriber.mComplete);
+    }
+
+    @Test
+    public void testRequest_invalid() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher("[1]").subscribe(subscriber);
+        subscriber.mSubscription.request(0);
+        Assert.assertTrue(subscriber.mError instanceof IllegalArgumentException);
+        subscriber.mSubscription.request(1);
+        Assert.assertTrue(subscriber.mItems.isEmpty());
+    }
+
+    @Test
+    public void testCancel_stopsDelivery() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher("[1, 2, 3]").subscribe(subscriber);
+        subscriber.mSubscription.request(1);
+        subscriber.mSubscription.cancel();
+        subscriber.mSubscription.request(2);
+        Assert.assertEquals(Arrays.asList(1), subscriber.mItems);
+        Assert.assertFalse(subscriber.mComplete);
+        Assert.assertNull(subscriber.mError);
+    }
+
+    @Test
+    public void testSubscribe_path() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        new JsonArrayPublisher<>(new JsonReader(new StringReader("{\"data\": [4, 5]}")), JsonPath.compile("data"),
+                                 INTEGER_ADAPTER, DIRECT_EXECUTOR).subscribe(subscriber);
+        subscriber.mSubscription.request(5);
+        Assert.assertEquals(Arrays.asList(4, 5), subscriber.mItems);
+        Assert.assertTrue(subscriber.mComplete);
+    }
+
+    @Test
+    public void testSubscribe_twice() throws Exception {
+        JsonArrayPublisher<Integer> publisher = publisher("[1]");
+        publisher.subscribe(new RecordingSubscriber());
+        RecordingSubscriber second = new RecordingSubscriber();
+        publisher.subscribe(second);
+        Assert.assertNotNull(second.mSubscription);
+        Assert.assertTrue(second.mError instanceof IllegalStateException);
+    }
+
+}
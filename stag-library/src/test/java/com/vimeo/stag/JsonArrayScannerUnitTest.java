@@ -0,0 +1,108 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.stream.MalformedJsonException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+public class JsonArrayScannerUnitTest {
+
+    private static ByteBuffer utf8(String json) {
+        return ByteBuffer.wrap(json.getBytes(Charset.forName("UTF-8")));
+    }
+
+    @Test
+    public void testScan_boundaries() throws Exception {
+        String json = " [ {\"a\":\"]}\\\"\"} ,12,\"x\\\\\",[[]],true , -1.5e3,\"long string with, commas\"]\n";
+        int[] boundaries = JsonArrayScanner.scan(utf8(json));
+        String[] elements = {"{\"a\":\"]}\\\"\"}", "12", "\"x\\\\\"", "[[]]", "true", "-1.5e3",
+                             "\"long string with, commas\""};
+        Assert.assertEquals(elements.length * 2, boundaries.length);
+        for (int n = 0; n < elements.length; n++) {
+            Assert.assertEquals(elements[n], json.substring(boundaries[2 * n], boundaries[2 * n + 1]));
+        }
+    }
+
+    @Test
+    public void testScan_empty() throws Exception {
+        Assert.assertEquals(0, JsonArrayScanner.scan(utf8(" [ ] ")).length);
+    }
+
+    @Test
+    public void testScan_respectsPosition() throws Exception {
+        ByteBuffer buffer = utf8("xx[1]");
+        buffer.position(2);
+        Assert.assertArrayEquals(new int[]{3, 4}, JsonArrayScanner.scan(buffer));
+        Assert.assertEquals(2, buffer.position());
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testScan_notAnArray() throws Exception {
+        JsonArrayScanner.scan(utf8("{}"));
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testScan_missingComma() throws Exception {
+        JsonArrayScanner.scan(utf8("[1 2]"));
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testScan_trailingComma() throws Exception {
+        JsonArrayScanner.scan(utf8("[1,]"));
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testScan_unterminated() throws Exception {
+        JsonArrayScanner.scan(utf8("[{\"a\":[1]}"));
+    }
+
+    @Test
+    public void testScan_byteOrders() throws Exception {
+        StringBuilder builder = new StringBuilder("[");
+        for (int n = 0; n < 200; n++) {
+            builder.append(n == 0 ? "" : ", ").append("{\"text\": \"").append(n).append("\\\"caf\u00e9\\\\ [{\", ")
+                    .append("\"nested\": [[").append(n).append("], {\"x\": \"]\"}]}");
+        }
+        byte[] json = builder.append(']').toString().getBytes(Charset.forName("UTF-8"));
+        int[] expected = JsonArrayScanner.scan(ByteBuffer.wrap(json));
+        Assert.assertEquals(400, expected.length);
+        Assert.assertArrayEquals(expected, JsonArrayScanner.scan(ByteBuffer.wrap(json).order(ByteOrder.LITTLE_ENDIAN)));
+        for (int n = 0; n < expected.length; n += 2) {
+            String element = new String(json, expected[n], expected[n + 1] - expected[n], Charset.forName("UTF-8"));
+            Assert.assertTrue(element.endsWith("{\"x\": \"]\"}]}"));
+        }
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testScan_trailingCharacters() throws Exception {
+        JsonArrayScanner.scan(utf8("[1] 2"));
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+public class JsonCaptureUnitTest {
+
+    @Test
+    public void testCapture_keepsValues() throws Exception {
+        String json = "{\"a\":[1.50,-2e3,null,true,false],\"b\":{\"c\":\"d\\\"e\"},\"f\":{}}";
+        JsonReader reader = new JsonReader(new StringReader(json));
+        Assert.assertEquals(json, JsonCapture.capture(reader));
+    }
+
+    @Test
+    public void testCapture_onlyCapturesNextValue() throws Exception {
+        JsonReader reader = new JsonReader(new StringReader("[{\"a\":1}, \"b\", 3]"));
+        reader.beginArray();
+        Assert.assertEquals("{\"a\":1}", JsonCapture.capture(reader));
+        Assert.assertEquals("\"b\"", JsonCapture.capture(reader));
+        Assert.assertEquals("3", JsonCapture.capture(reader));
+        reader.endArray();
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.MalformedJsonException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class JsonFeedParserUnitTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final TypeAdapter<JsonElement> ELEMENT_ADAPTER = new Gson().getAdapter(JsonElement.class);
+
+    private static List<String> feedInChunks(JsonFeedParser<JsonElement> parser, String json, int chunkSize)
+            throws Exception {
+        byte[] bytes = json.getBytes(UTF_8);
+        List<JsonElement> results = new ArrayList<>();
+        for (int n = 0; n < bytes.length; n += chunkSize) {
+            parser.feed(ByteBuffer.wrap(bytes, n, Math.min(chunkSize, bytes.length - n)), results);
+        }
+        parser.finish(results);
+        List<String> strings = new ArrayList<>();
+        for (JsonElement element : results) {
+            strings.add(element.toString());
+        }
+        return strings;
+    }
+
+    @Test
+    public void testForValues_anyChunkSize() throws Exception {
+        String json = "{\"a\":\"x]}\\\"\"}\n[1,{\"b\":[]}]\n\"\u00e9\u20ac\ud83d\ude00\" 12 true null\n";
+        List<String> expected = Arrays.asList("{\"a\":\"x]}\\\"\"}", "[1,{\"b\":[]}]",
+                                              "\"\u00e9\u20ac\ud83d\ude00\"", "12", "true", "null");
+        for (int chunkSize = 1; chunkSize <= 8; chunkSize++) {
+            Assert.assertEquals(expected, feedInChunks(JsonFeedParser.forValues(ELEMENT_ADAPTER), json, chunkSize));
+        }
+    }
+
+    @Test
+    public void testForValues_completesValuesEagerly() throws Exception {
+        JsonFeedParser<JsonElement> parser = JsonFeedParser.forValues(ELEMENT_ADAPTER);
+        List<JsonElement> results = new ArrayList<>();
+        Assert.assertEquals(0, parser.feed(ByteBuffer.wrap("{\"a\":".getBytes(UTF_8)), results));
+        Assert.assertEquals(1, parser.feed(ByteBuffer.wrap("1}{".getBytes(UTF_8)), results));
+        Assert.assertEquals("{\"a\":1}", results.get(0).toString());
+    }
+
+    @Test
+    public void testForArrayElements() throws Exception {
+        String json = " [ {\"a\": [1, 2]}, \"s,]\", 3 , [] ] ";
+        List<String> expected = Arrays.asList("{\"a\":[1,2]}", "\"s,]\"", "3", "[]");
+        for (int chunkSize = 1; chunkSize <= 5; chunkSize++) {
+            Assert.assertEquals(expected, feedInChunks(JsonFeedParser.forArrayElements(ELEMENT_ADAPTER), json,
+                                                       chunkSize));
+        }
+        Assert.assertEquals(new ArrayList<String>(),
+                            feedInChunks(JsonFeedParser.forArrayElements(ELEMENT_ADAPTER), "[]", 1));
+    }
+
+    @Test
+    public void testForArrayElements_largeInput() throws Exception {
+        StringBuilder builder = new StringBuilder("[");
+        for (int n = 0; n < 5000; n++) {
+            builder.append(n == 0 ? "" : ",").append("{\"id\":").append(n).append('}');
+        }
+        builder.append(']');
+        List<String> results = feedInChunks(JsonFeedParser.forArrayElements(ELEMENT_ADAPTER), builder.toString(),
+                                            777);
+        Assert.assertEquals(5000, results.size());
+        Assert.assertEquals("{\"id\":4999}", results.get(4999));
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testForArrayElements_notAnArray() throws Exception {
+        feedInChunks(JsonFeedParser.forArrayElements(ELEMENT_ADAPTER), "{}", 4);
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testForArrayElements_missingComma() throws Exception {
+        feedInChunks(JsonFeedParser.forArrayElements(ELEMENT_ADAPTER), "[1 2]", 4);
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testForArrayElements_trailingComma() throws Exception {
+        feedInChunks(JsonFeedParser.forArrayElements(ELEMENT_ADAPTER), "[1,]", 4);
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testForArrayElements_unterminated() throws Exception {
+        feedInChunks(JsonFeedParser.forArrayElements(ELEMENT_ADAPTER), "[1, 2", 4);
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testForValues_unterminatedValue() throws Exception {
+        feedInChunks(JsonFeedParser.forValues(ELEMENT_ADAPTER), "{\"a\": [1}", 4);
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testForValues_invalidUtf8() throws Exception {
+        JsonFeedParser.forValues(ELEMENT_ADAPTER).feed(ByteBuffer.wrap(new byte[]{'"', (byte) 0xff, '"'}),
+                                                       new ArrayList<JsonElement>());
+    }
+
+}
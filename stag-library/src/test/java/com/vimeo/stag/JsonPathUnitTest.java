@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class JsonPathUnitTest {
+
+    private static final String JSON = "{\"total\": 3, \"data\": [" +
+                                       "{\"user\": {\"name\": \"a\", \"tags\": [1, 2]}}," +
+                                       "{\"user\": null}," +
+                                       "{\"other\": {\"name\": \"x\"}, \"user\": {\"name\": \"b\"}}]," +
+                                       "\"paging\": {\"next\": \"/page/2\", \"previous\": null}}";
+
+    private static final TypeAdapter<String> STRING_ADAPTER = new Gson().getAdapter(String.class);
+
+    private static JsonReader reader(String json) {
+        return new JsonReader(new StringReader(json));
+    }
+
+    @Test
+    public void testReadAll_wildcardArray() throws Exception {
+        List<String> names = JsonPath.compile("data[*].user.name").readAll(reader(JSON), STRING_ADAPTER);
+        Assert.assertEquals(Arrays.asList("a", "b"), names);
+    }
+
+    @Test
+    public void testReadAll_consumesDocument() throws Exception {
+        JsonReader reader = reader("[" + JSON + ", 1]");
+        reader.beginArray();
+        JsonPath.compile("$.data[*].user.name").readAll(reader, STRING_ADAPTER);
+        Assert.assertEquals(1, reader.nextInt());
+        reader.endArray();
+    }
+
+    @Test
+    public void testReadAll_wildcardMember() throws Exception {
+        List<String> names = JsonPath.compile("data[2].*.name").readAll(reader(JSON), STRING_ADAPTER);
+        Assert.assertEquals(Arrays.asList("x", "b"), names);
+    }
+
+    @Test
+    public void testReadAll_noMatch() throws Exception {
+        List<String> names = JsonPath.compile("data[*].missing").readAll(reader(JSON), STRING_ADAPTER);
+        Assert.assertEquals(Collections.<String>emptyList(), names);
+        names = JsonPath.compile("total.name").readAll(reader(JSON), STRING_ADAPTER);
+        Assert.assertEquals(Collections.<String>emptyList(), names);
+    }
+
+    @Test
+    public void testReadAll_filter() throws Exception {
+        ReadFilter<String> filter = new ReadFilter<String>() {
+            @Override
+            public boolean accept(String object) {
+                return !object.equals("a");
+            }
+        };
+        List<String> names = JsonPath.compile("data[*].*.name").readAll(reader(JSON), STRING_ADAPTER, filter);
+        Assert.assertEquals(Arrays.asList("x", "b"), names);
+    }
+
+    @Test
+    public void testReadFirst() throws Exception {
+        Assert.assertEquals("/page/2", JsonPath.compile("paging.next").readFirst(reader(JSON), STRING_ADAPTER));
+        Assert.assertEquals("/page/2", JsonPath.compile("['paging'][\"next\"]").readFirst(reader(JSON),
+                                                                                            STRING_ADAPTER));
+        Assert.assertEquals("b", JsonPath.compile("data[2].user.name").readFirst(reader(JSON), STRING_ADAPTER));
+        Assert.assertNull(JsonPath.compile("paging.previous").readFirst(reader(JSON), STRING_ADAPTER));
+        Assert.assertNull(JsonPath.compile("data[5]").readFirst(reader(JSON), STRING_ADAPTER));
+    }
+
+    @Test
+    public void testReadFirst_typedValue() throws Exception {
+        TypeAdapter<Integer[]> adapter = new Gson().getAdapter(Integer[].class);
+        Integer[] tags = JsonPath.compile("data[0].user.tags").readFirst(reader(JSON), adapter);
+        Assert.assertArrayEquals(new Integer[]{1, 2}, tags);
+    }
+
+    @Test
+    public void testSeek() throws Exception {
+        JsonReader reader = reader("{\"a\": {\"b\": [1, {\"c\": 7}]}}");
+        Assert.assertTrue(JsonPath.compile("a.b[1].c").seek(reader));
+        Assert.assertEquals(7, reader.nextInt());
+        Assert.assertFalse(JsonPath.compile("a.x").seek(reader("{\"a\": {\"b\": 1}}")));
+    }
+    @Test
+    public void testCompile_root() throws Exception {
+        TypeAdapter<Integer> adapter = new Gson().getAdapter(Integer.class);
+        Assert.assertEquals(Integer.valueOf(7), JsonPath.compile("$").readFirst(reader("7"), adapter));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompile_unterminatedBracket() throws Exception {
+        JsonPath.compile("data[*");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompile_emptyName() throws Exception {
+        JsonPath.compile("data..name");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompile_invalidIndex() throws Exception {
+        JsonPath.compile("data[a]");
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JsonSliceUnitTest {
+
+    @Test
+    public void testCharSequence_readsFromBuffer() throws Exception {
+        char[] buffer = "xhello".toCharArray();
+        JsonSlice slice = new JsonSlice(buffer, 1, 5, false);
+        Assert.assertEquals(5, slice.length());
+        Assert.assertEquals('e', slice.charAt(1));
+        Assert.assertEquals("ell", slice.subSequence(1, 4).toString());
+        Assert.assertTrue(slice.contentEquals("hello"));
+        Assert.assertEquals("hello".hashCode(), slice.hashCode());
+        Assert.assertEquals(new JsonSlice("hello"), slice);
+        Assert.assertSame(slice.toString(), slice.toString());
+    }
+
+    @Test
+    public void testEscaped_decodedOnDemand() throws Exception {
+        char[] buffer = "a\\\"b\\u0041\\\\".toCharArray();
+        JsonSlice slice = new JsonSlice(buffer, 0, buffer.length, true);
+        Assert.assertEquals("a\"bA\\", slice.toString());
+        Assert.assertEquals(5, slice.length());
+        Assert.assertEquals('A', slice.charAt(3));
+    }
+
+    @Test
+    public void testGson_roundTrip() throws Exception {
+        Gson gson = new Gson();
+        JsonSlice slice = gson.fromJson(new StagJsonReader("\"value\""), JsonSlice.class);
+        Assert.assertEquals("value", slice.toString());
+        Assert.assertEquals("\"value\"", gson.toJson(slice));
+        Assert.assertEquals("value", gson.fromJson("\"value\"", JsonSlice.class).toString());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testCharAt_outOfBounds() throws Exception {
+        new JsonSlice("abc".toCharArray(), 0, 2, false).charAt(2);
+    }
+
+}
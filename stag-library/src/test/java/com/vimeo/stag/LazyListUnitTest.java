@@ -0,0 +1,132 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class LazyListUnitTest {
+
+    private static final TypeToken<LazyList<List<Integer>>> LAZY_LIST =
+            new TypeToken<LazyList<List<Integer>>>() {};
+
+    private static final Gson GSON = new GsonBuilder().registerTypeAdapterFactory(new LazyList.Factory()).create();
+
+    @Test
+    public void testRead_decodesElementsOnAccess() throws Exception {
+        LazyList<List<Integer>> list = GSON.fromJson("[[1], [2, 3], null, []]", LAZY_LIST.getType());
+        Assert.assertEquals(4, list.size());
+        Assert.assertFalse(list.isDecoded(1));
+
+        List<Integer> element = list.get(1);
+        Assert.assertEquals(2, element.size());
+        Assert.assertTrue(list.isDecoded(1));
+        Assert.assertFalse(list.isDecoded(0));
+        Assert.assertSame(element, list.get(1));
+        Assert.assertNull(list.get(2));
+        Assert.assertTrue(list.get(3).isEmpty());
+    }
+
+    @Test
+    public void testRead_adjacentNumbersAreSeparated() throws Exception {
+        LazyList<Integer> list = GSON.fromJson("[12, 34]", new TypeToken<LazyList<Integer>>() {}.getType());
+        Assert.assertEquals(Integer.valueOf(12), list.get(0));
+        Assert.assertEquals(Integer.valueOf(34), list.get(1));
+    }
+
+    @Test
+    public void testWrite_untouchedElementsAreWrittenAsCaptured() throws Exception {
+        LazyList<List<Integer>> list = GSON.fromJson("[[1.0], [2.0]]", LAZY_LIST.getType());
+        list.get(1);
+        Assert.assertEquals("[[1.0],[2]]", GSON.toJson(list, LAZY_LIST.getType()));
+    }
+
+    @Test
+    public void testRead_stagJsonReader_capturesSource() throws Exception {
+        TypeAdapter<LazyList<List<Integer>>> adapter = GSON.getAdapter(LAZY_LIST);
+        LazyList<List<Integer>> list = adapter.read(new StagJsonReader("[ [1.0,  2] , null ]"));
+        Assert.assertEquals(2, list.size());
+        Assert.assertEquals("[[1.0,  2],null]", GSON.toJson(list, LAZY_LIST.getType()));
+        Assert.assertNull(list.get(1));
+        Assert.assertTrue(list.isDecoded(1));
+    }
+
+    @Test
+    public void testGet_concurrentAccessReturnsSameElement() throws Exception {
+        final LazyList<List<Integer>> list = GSON.fromJson("[[1, 2, 3]]", LAZY_LIST.getType());
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Integer>>> results = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int n = 0; n < 8; n++) {
+                results.add(executor.submit(new Callable<List<Integer>>() {
+                    @Override
+                    public List<Integer> call() throws Exception {
+                        start.await();
+                        return list.get(0);
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<List<Integer>> result : results) {
+                Assert.assertSame(list.get(0), result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testReadEmptyAndNull() throws Exception {
+        Assert.assertTrue(((LazyList<?>) GSON.fromJson("[]", LAZY_LIST.getType())).isEmpty());
+        Assert.assertNull(GSON.fromJson("null", LAZY_LIST.getType()));
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testGet_invalidElement() throws Exception {
+        LazyList<List<Integer>> list = GSON.fromJson("[[\"a\"]]", LAZY_LIST.getType());
+        list.get(0);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAdd_unsupported() throws Exception {
+        LazyList<List<Integer>> list = GSON.fromJson("[]", LAZY_LIST.getType());
+        list.add(null);
+    }
+
+}
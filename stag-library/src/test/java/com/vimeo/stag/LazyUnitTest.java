@@ -0,0 +1,91 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class LazyUnitTest {
+
+    private static final TypeToken<Lazy<List<Integer>>> LAZY_LIST = new TypeToken<Lazy<List<Integer>>>() {};
+
+    @Test
+    public void testRead_decodesOnFirstAccess() throws Exception {
+        Gson gson = new Gson();
+        Lazy<List<Integer>> lazy = gson.fromJson("[1, 2, 3]", LAZY_LIST.getType());
+        Assert.assertFalse(lazy.isDecoded());
+
+        List<Integer> value = lazy.get();
+        Assert.assertTrue(lazy.isDecoded());
+        Assert.assertEquals(3, value.size());
+        Assert.assertSame(value, lazy.get());
+    }
+
+    @Test
+    public void testWrite_untouchedValueIsWrittenAsCaptured() throws Exception {
+        Gson gson = new Gson();
+        Lazy<List<Integer>> lazy = gson.fromJson("[1.0, 2]", LAZY_LIST.getType());
+        Assert.assertEquals("[1.0,2]", gson.toJson(lazy, LAZY_LIST.getType()));
+
+        lazy.get();
+        Assert.assertEquals("[1,2]", gson.toJson(lazy, LAZY_LIST.getType()));
+    }
+
+    @Test
+    public void testRead_stagJsonReader_capturesSource() throws Exception {
+        Gson gson = new Gson();
+        TypeAdapter<Lazy<List<Integer>>> adapter = gson.getAdapter(LAZY_LIST);
+        Lazy<List<Integer>> lazy = adapter.read(new StagJsonReader("[1.0,  2]"));
+        Assert.assertFalse(lazy.isDecoded());
+        Assert.assertEquals("[1.0,  2]", gson.toJson(lazy, LAZY_LIST.getType()));
+        Assert.assertEquals(2, lazy.get().size());
+    }
+
+    @Test
+    public void testOf() throws Exception {
+        Lazy<String> lazy = Lazy.of("value");
+        Assert.assertTrue(lazy.isDecoded());
+        Assert.assertEquals("value", lazy.get());
+        Assert.assertEquals("\"value\"", new Gson().toJson(lazy, new TypeToken<Lazy<String>>() {}.getType()));
+    }
+
+    @Test
+    public void testReadNull() throws Exception {
+        Assert.assertNull(new Gson().fromJson("null", LAZY_LIST.getType()));
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testGet_invalidValue() throws Exception {
+        Lazy<List<Integer>> lazy = new Gson().fromJson("[\"a\"]", LAZY_LIST.getType());
+        lazy.get();
+    }
+
+}
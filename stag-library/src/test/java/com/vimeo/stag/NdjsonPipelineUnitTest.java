@@ -0,0 +1,187 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class NdjsonPipelineUnitTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final TypeAdapter<Integer> INTEGER_ADAPTER = new Gson().getAdapter(Integer.class);
+
+    private static InputStream input(int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int n = 0; n < count; n++) {
+            builder.append(n).append(n % 7 == 0 ? "\r\n\n  \n" : "\n");
+        }
+        // The last line is not terminated
+        builder.append(count);
+        return new ByteArrayInputStream(builder.toString().getBytes(UTF_8));
+    }
+
+    /**
+     * Returns at most a few bytes per read, like a slow stream.
+     */
+    private static InputStream trickle(final InputStream in) {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                return in.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return in.read(b, off, Math.min(len, 3));
+            }
+        };
+    }
+
+    private static final class CollectingSink implements NdjsonPipeline.Sink<Integer> {
+
+        final List<Integer> mValues = new ArrayList<>();
+
+        @Override
+        public void accept(Integer value) {
+            mValues.add(value);
+        }
+    }
+
+    private static final class CollectingStringSink implements NdjsonPipeline.Sink<String> {
+
+        final List<String> mValues = new ArrayList<>();
+
+        @Override
+        public void accept(String value) {
+            mValues.add(value);
+        }
+    }
+
+    @Test
+    public void testRun_ordered() throws Exception {
+        NdjsonPipeline<Integer> pipeline = new NdjsonPipeline<>(INTEGER_ADAPTER, 4, true, 64);
+        CollectingSink sink = new CollectingSink();
+        pipeline.run(input(10000), sink);
+        Assert.assertEquals(10001, sink.mValues.size());
+        for (int n = 0; n <= 10000; n++) {
+            Assert.assertEquals(Integer.valueOf(n), sink.mValues.get(n));
+        }
+        Assert.assertEquals(10001, pipeline.getRecordsParsed());
+        Assert.assertEquals(10001, pipeline.getRecordsDelivered());
+        Assert.assertTrue(pipeline.getBlocksSplit() > 1);
+    }
+
+    @Test
+    public void testRun_unordered() throws Exception {
+        NdjsonPipeline<Integer> pipeline = new NdjsonPipeline<>(INTEGER_ADAPTER, 3, false, 50);
+        CollectingSink sink = new CollectingSink();
+        pipeline.run(trickle(input(2000)), sink);
+        Collections.sort(sink.mValues);
+        Assert.assertEquals(2001, sink.mValues.size());
+        for (int n = 0; n <= 2000; n++) {
+            Assert.assertEquals(Integer.valueOf(n), sink.mValues.get(n));
+        }
+    }
+
+    @Test
+    public void testRun_reusesWorkers() throws Exception {
+        NdjsonPipeline<Integer> pipeline = new NdjsonPipeline<>(INTEGER_ADAPTER, 1, true, 16);
+        final List<Thread> threads = new ArrayList<>();
+        NdjsonPipeline.Sink<Integer> sink = new NdjsonPipeline.Sink<Integer>() {
+            @Override
+            public void accept(Integer value) {
+                threads.add(Thread.currentThread());
+            }
+        };
+        pipeline.run(input(100), sink);
+        pipeline.run(input(100), sink);
+        Assert.assertEquals(202, threads.size());
+        Assert.assertSame(threads.get(0), threads.get(201));
+    }
+
+    @Test
+    public void testRun_lineLongerThanBlock() throws Exception {
+        NdjsonPipeline<String> pipeline = new NdjsonPipeline<>(new Gson().getAdapter(String.class), 2, true, 4);
+        final List<String> values = new ArrayList<>();
+        pipeline.run(new ByteArrayInputStream("\"short\"\n\"a much longer line\"\n\"x\"\n".getBytes(UTF_8)),
+                     new NdjsonPipeline.Sink<String>() {
+                         @Override
+                         public void accept(String value) {
+                             values.add(value);
+                         }
+                     });
+        Assert.assertEquals(3, values.size());
+        Assert.assertEquals("a much longer line", values.get(1));
+    }
+
+    @Test(expected = IOException.class)
+    public void testRun_invalidLine() throws Exception {
+        new NdjsonPipeline<>(INTEGER_ADAPTER, 2, true, 16)
+                .run(new ByteArrayInputStream("1\n2\n[3]\n4\n".getBytes(UTF_8)), new CollectingSink());
+    }
+
+    @Test(expected = IOException.class)
+    public void testRun_trailingCharacters() throws Exception {
+        new NdjsonPipeline<>(INTEGER_ADAPTER, 1, false)
+                .run(new ByteArrayInputStream("1 2\n".getBytes(UTF_8)), new CollectingSink());
+    }
+
+    @Test
+    public void testRun_invalidUtf8() throws Exception {
+        byte[] bytes = "\"a\"\n\"b?c\"\n\"d\"\n".getBytes(UTF_8);
+        bytes[6] = (byte) 0xff;
+        CollectingStringSink sink = new CollectingStringSink();
+        try {
+            new NdjsonPipeline<>(new Gson().getAdapter(String.class), 1, true).run(new ByteArrayInputStream(bytes),
+                                                                                    sink);
+            Assert.fail("The invalid byte was not reported");
+        } catch (IOException e) {
+            Assert.assertEquals("Invalid UTF-8 on line 2 of the block at byte 0", e.getMessage());
+        }
+        Assert.assertTrue(sink.mValues.isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRun_sinkFailure() throws Exception {
+        new NdjsonPipeline<>(INTEGER_ADAPTER, 2, false, 8).run(input(100), new NdjsonPipeline.Sink<Integer>() {
+            @Override
+            public void accept(Integer value) {
+                throw new IllegalStateException();
+            }
+        });
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class NdjsonWriterUnitTest {
+
+    private static final TypeAdapter<JsonElement> ELEMENT_ADAPTER = new Gson().getAdapter(JsonElement.class);
+
+    /**
+     * Records how many times the characters were written.
+     */
+    private static final class CountingWriter extends StringWriter {
+
+        int mWrites;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            mWrites++;
+            super.write(cbuf, off, len);
+        }
+    }
+
+    @Test
+    public void testWrite_oneValuePerLine() throws Exception {
+        StringWriter out = new StringWriter();
+        NdjsonWriter<JsonElement> writer = new NdjsonWriter<>(out, ELEMENT_ADAPTER);
+        writer.write(new JsonParser().parse("{\"a\": \"x\\ny\"}"));
+        writer.write(null);
+        writer.write(new JsonParser().parse("[1, 2]"));
+        Assert.assertEquals("", out.toString());
+        writer.flush();
+        Assert.assertEquals("{\"a\":\"x\\ny\"}\nnull\n[1,2]\n", out.toString());
+        Assert.assertEquals(3, writer.getRecordsWritten());
+    }
+
+    @Test
+    public void testWrite_batches() throws Exception {
+        CountingWriter out = new CountingWriter();
+        NdjsonWriter<JsonElement> writer = new NdjsonWriter<>(out, ELEMENT_ADAPTER, 100);
+        for (int n = 0; n < 100; n++) {
+            writer.write(new JsonParser().parse("{\"id\":" + n + '}'));
+        }
+        writer.close();
+        Assert.assertTrue(out.mWrites > 1);
+        Assert.assertTrue(out.mWrites < 30);
+        Assert.assertTrue(out.toString().endsWith("{\"id\":99}\n"));
+    }
+
+    @Test
+    public void testWrite_readByPipeline() throws Exception {
+        StringWriter out = new StringWriter();
+        NdjsonWriter<JsonElement> writer = new NdjsonWriter<>(out, ELEMENT_ADAPTER, 16);
+        List<String> expected = Arrays.asList("{\"a\":1}", "\"b\"", "[true]");
+        for (String json : expected) {
+            writer.write(new JsonParser().parse(json));
+        }
+        writer.close();
+
+        final List<String> values = new ArrayList<>();
+        new NdjsonPipeline<>(ELEMENT_ADAPTER, 2, true)
+                .run(new ByteArrayInputStream(out.toString().getBytes(Charset.forName("UTF-8"))),
+                     new NdjsonPipeline.Sink<JsonElement>() {
+                         @Override
+                         public void accept(JsonElement value) {
+                             values.add(value.toString());
+                         }
+                     });
+        Assert.assertEquals(expected, values);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_invalidBatchSize() throws Exception {
+        new NdjsonWriter<>(new StringWriter(), ELEMENT_ADAPTER, 0);
+    }
+
+}
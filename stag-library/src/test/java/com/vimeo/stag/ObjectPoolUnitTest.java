@@ -0,0 +1,111 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+public class ObjectPoolUnitTest {
+
+    static final class Counter {
+
+        int mCount;
+
+    }
+
+    /**
+     * A hand written equivalent of a generated
+     * adapter for the {@link Counter} class.
+     */
+    static final class CounterTypeAdapter extends StagTypeAdapter<Counter> {
+
+        @Override
+        public void write(JsonWriter writer, Counter object) throws IOException {
+            writer.beginObject();
+            writer.name("count");
+            writer.value(object.mCount);
+            writer.endObject();
+        }
+
+        @Override
+        public Counter readInto(JsonReader reader, Counter target) throws IOException {
+            Counter object = target != null ? target : new Counter();
+            object.mCount = 0;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("count")) {
+                    object.mCount = reader.nextInt();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return object;
+        }
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_invalidSize() throws Exception {
+        new ObjectPool<Counter>(0);
+    }
+
+    @Test
+    public void testAcquireRelease() throws Exception {
+        ObjectPool<Counter> pool = new ObjectPool<>(1);
+        Assert.assertNull(pool.acquire());
+
+        Counter counter = new Counter();
+        Assert.assertTrue(pool.release(counter));
+        Assert.assertFalse(pool.release(new Counter()));
+        Assert.assertFalse(pool.release(null));
+        Assert.assertEquals(1, pool.size());
+
+        Assert.assertSame(counter, pool.acquire());
+        Assert.assertEquals(0, pool.size());
+        Assert.assertNull(pool.acquire());
+    }
+
+    @Test
+    public void testRead_reusesReleasedObjects() throws Exception {
+        ObjectPool<Counter> pool = new ObjectPool<>(2);
+        CounterTypeAdapter adapter = new CounterTypeAdapter();
+
+        Counter first = pool.read(adapter, new JsonReader(new StringReader("{\"count\":1}")));
+        Assert.assertEquals(1, first.mCount);
+        pool.release(first);
+
+        Counter second = pool.read(adapter, new JsonReader(new StringReader("{\"count\":2}")));
+        Assert.assertSame(first, second);
+        Assert.assertEquals(2, second.mCount);
+        Assert.assertEquals(0, pool.size());
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.MalformedJsonException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class ParallelArrayParserUnitTest {
+
+    private static final TypeAdapter<JsonElement> ELEMENT_ADAPTER = new Gson().getAdapter(JsonElement.class);
+
+    private static ByteBuffer utf8(String json) {
+        return ByteBuffer.wrap(json.getBytes(Charset.forName("UTF-8")));
+    }
+
+    @Test
+    public void testParse_preservesOrder() throws Exception {
+        StringBuilder builder = new StringBuilder("[");
+        for (int n = 0; n < 20000; n++) {
+            builder.append(n == 0 ? "" : ", ")
+                    .append("{\"id\":").append(n).append(",\"name\":\"caf\\u00e9 \u00e9\u20ac\ud83d\ude00 ")
+                    .append(n).append("\",\"tags\":[\"a\",\"b\"]}");
+        }
+        builder.append(']');
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<JsonElement> elements = ParallelArrayParser.parse(utf8(builder.toString()), ELEMENT_ADAPTER, pool);
+            Assert.assertEquals(20000, elements.size());
+            for (int n = 0; n < elements.size(); n++) {
+                JsonElement element = elements.get(n);
+                Assert.assertEquals(n, element.getAsJsonObject().get("id").getAsInt());
+                Assert.assertEquals("caf\u00e9 \u00e9\u20ac\ud83d\ude00 " + n,
+                                    element.getAsJsonObject().get("name").getAsString());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testParse_smallArray() throws Exception {
+        List<JsonElement> elements = ParallelArrayParser.parse(utf8("[1, \"a\", null, [true]]"), ELEMENT_ADAPTER);
+        Assert.assertEquals(new JsonParser().parse("[1, \"a\", null, [true]]").getAsJsonArray().size(),
+                            elements.size());
+        Assert.assertEquals("[true]", elements.get(3).toString());
+        Assert.assertTrue(ParallelArrayParser.parse(utf8("[]"), ELEMENT_ADAPTER).isEmpty());
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testParse_notAnArray() throws Exception {
+        ParallelArrayParser.parse(utf8("{\"a\": 1}"), ELEMENT_ADAPTER);
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testParse_invalidUtf8() throws Exception {
+        ParallelArrayParser.parse(ByteBuffer.wrap(new byte[]{'[', '"', (byte) 0xff, '"', ']'}), ELEMENT_ADAPTER);
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+public class RawJsonUnitTest {
+
+    @Test
+    public void testRead_capturesValue() throws Exception {
+        JsonReader reader = new JsonReader(new StringReader("[{\"a\":[1.50,null]}, null]"));
+        reader.beginArray();
+        RawJson rawJson = RawJson.read(reader);
+        Assert.assertNotNull(rawJson);
+        Assert.assertEquals("{\"a\":[1.50,null]}", rawJson.getJson());
+        Assert.assertNull(RawJson.read(reader));
+        reader.endArray();
+    }
+
+    @Test
+    public void testRead_stagJsonReader_capturesSource() throws Exception {
+        StagJsonReader reader = new StagJsonReader("[{\"a\": [1.50, null]}, \"\\u0062\", -0, true, false, null]");
+        reader.beginArray();
+        Assert.assertEquals("{\"a\": [1.50, null]}", RawJson.read(reader).getJson());
+        Assert.assertEquals("\"\\u0062\"", RawJson.read(reader).getJson());
+        Assert.assertEquals("-0", RawJson.read(reader).getJson());
+        Assert.assertEquals("true", RawJson.read(reader).getJson());
+        Assert.assertEquals("false", RawJson.read(reader).getJson());
+        Assert.assertNull(RawJson.read(reader));
+        Assert.assertEquals("$[6]", reader.getPath());
+        reader.endArray();
+    }
+
+    @Test
+    public void testRead_utf8JsonReader_capturesSource() throws Exception {
+        StringBuilder value = new StringBuilder("{\"\u00e9\": [");
+        for (int n = 0; n < 5000; n++) {
+            value.append(n).append(", ");
+        }
+        value.append("\"]\"]}");
+        String json = "[" + value + ", 2]";
+        // A stream that is read one byte at a time refills the buffer while the value is captured
+        InputStream in = new ByteArrayInputStream(json.getBytes("UTF-8")) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+        Utf8JsonReader reader = new Utf8JsonReader(in);
+        reader.beginArray();
+        Assert.assertEquals(value.toString(), RawJson.read(reader).getJson());
+        Assert.assertEquals(2, reader.nextInt());
+        reader.endArray();
+    }
+
+    @Test
+    public void testWrite_writesVerbatim() throws Exception {
+        StringWriter stringWriter = new StringWriter();
+        JsonWriter writer = new JsonWriter(stringWriter);
+        writer.beginArray();
+        RawJson.write(writer, new RawJson("{\"a\":1e3}"));
+        RawJson.write(writer, null);
+        writer.endArray();
+        writer.close();
+        Assert.assertEquals("[{\"a\":1e3},null]", stringWriter.toString());
+    }
+
+    @Test
+    public void testGson_roundTrip() throws Exception {
+        Gson gson = new Gson();
+        RawJson rawJson = gson.fromJson("{\"b\": [true, \"c\"]}", RawJson.class);
+        Assert.assertEquals(new RawJson("{\"b\":[true,\"c\"]}"), rawJson);
+        Assert.assertEquals("{\"b\":[true,\"c\"]}", gson.toJson(rawJson));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructor_nullJson() throws Exception {
+        new RawJson(null);
+    }
+
+}
@@ -0,0 +1,248 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+public class StagJsonReaderUnitTest {
+
+    private static final Gson GSON =
+            new GsonBuilder().registerTypeAdapterFactory(new StagMapTypeAdapterFactory()).create();
+
+    private static final String DOCUMENT = "{\"a\": [1, -2.5, 3e2, 0, true, false, null, \"s\\u00e9\\n\"],\n" +
+                                           "\t\"b\": {\"c\": {}, \"d\": [], \"e\": [[{}]]}, \"\": \"\\\"\\\\\\/\"}";
+
+    private static final String NESTED = "{\"a\": {\"b\": [\"]}\\\\\", \"\\\"[{\"], \"c\": {}}, \"d\": [], " +
+                                         "\"e\": [[[{\"f\": \"\\u007d\"}]]], \"g\": \"}\", \"h\": 1}";
+
+    @Test
+    public void testTokens_matchJsonReader() throws Exception {
+        Assert.assertEquals(getTokens(new JsonReader(new StringReader(DOCUMENT))),
+                            getTokens(new StagJsonReader(DOCUMENT)));
+    }
+
+    @Test
+    public void testSkipValue_matchesJsonReader() throws Exception {
+        JsonReader expected = new JsonReader(new StringReader(DOCUMENT));
+        StagJsonReader actual = new StagJsonReader(DOCUMENT);
+        expected.beginObject();
+        actual.beginObject();
+        Assert.assertEquals(expected.nextName(), actual.nextName());
+        expected.skipValue();
+        actual.skipValue();
+        Assert.assertEquals(expected.nextName(), actual.nextName());
+        Assert.assertEquals(expected.getPath(), actual.getPath());
+        Assert.assertEquals(getTokens(expected), getTokens(actual));
+    }
+
+    @Test
+    public void testSkipValue_nested() throws Exception {
+        JsonReader expected = new JsonReader(new StringReader(NESTED));
+        StagJsonReader actual = new StagJsonReader(NESTED);
+        expected.beginObject();
+        actual.beginObject();
+        while (expected.hasNext()) {
+            Assert.assertEquals(expected.nextName(), actual.nextName());
+            Assert.assertEquals(expected.getPath(), actual.getPath());
+            expected.skipValue();
+            actual.skipValue();
+        }
+        expected.endObject();
+        actual.endObject();
+        Assert.assertEquals(JsonToken.END_DOCUMENT, actual.peek());
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testSkipValue_unterminated() throws Exception {
+        StagJsonReader reader = new StagJsonReader("{\"a\": [1, {\"b\": \"]\"}");
+        reader.beginObject();
+        reader.nextName();
+        reader.skipValue();
+    }
+
+    @Test
+    public void testNextDouble_negativeZero() throws Exception {
+        StagJsonReader reader = new StagJsonReader("[-0, -0.0]");
+        reader.beginArray();
+        // Gson 2.7 reads -0 as a long, and therefore as 0.0
+        Assert.assertEquals(Double.doubleToLongBits(0.0), Double.doubleToLongBits(reader.nextDouble()));
+        Assert.assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(reader.nextDouble()));
+        reader.endArray();
+    }
+
+    @Test
+    public void testNumbers() throws Exception {
+        StagJsonReader reader = new StagJsonReader("[12, \"34\", 1.0, -9223372036854775808, 1.5, 1e2]");
+        reader.beginArray();
+        Assert.assertEquals(12, reader.nextInt());
+        Assert.assertEquals(34, reader.nextInt());
+        Assert.assertEquals(1L, reader.nextLong());
+        Assert.assertEquals(Long.MIN_VALUE, reader.nextLong());
+        try {
+            reader.nextInt();
+            Assert.fail();
+        } catch (NumberFormatException e) {
+            // expected, the value is not consumed
+        }
+        Assert.assertEquals(1.5, reader.nextDouble(), 0);
+        Assert.assertEquals("1e2", reader.nextString());
+        reader.endArray();
+        Assert.assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    public void testNextSlice() throws Exception {
+        StagJsonReader reader = new StagJsonReader("[\"plain\", \"a\\tb\", 42]");
+        reader.beginArray();
+        JsonSlice plain = reader.nextSlice();
+        Assert.assertFalse(plain.isEscaped());
+        Assert.assertEquals("plain", plain.toString());
+        JsonSlice escaped = reader.nextSlice();
+        Assert.assertTrue(escaped.isEscaped());
+        Assert.assertEquals("a\tb", escaped.toString());
+        Assert.assertEquals("42", reader.nextSlice().toString());
+        reader.endArray();
+    }
+
+    @Test
+    public void testGson_readsMapsAndLists() throws Exception {
+        Map<String, List<Integer>> map = GSON.fromJson(new StagJsonReader("{\"a\": [1, 2], \"b\": []}"),
+                                                         new TypeToken<Map<String, List<Integer>>>() {}.getType());
+        Assert.assertEquals(2, map.size());
+        Assert.assertEquals(2, map.get("a").size());
+    }
+
+    @Test
+    public void testGetPath() throws Exception {
+        StagJsonReader reader = new StagJsonReader("{\"a\": [1, {\"b\": 2}]}");
+        reader.beginObject();
+        reader.nextName();
+        reader.beginArray();
+        reader.nextInt();
+        reader.beginObject();
+        reader.nextName();
+        Assert.assertEquals("$.a[1].b", reader.getPath());
+    }
+
+    @Test(expected = EOFException.class)
+    public void testEmptyDocument() throws Exception {
+        new StagJsonReader("  ").peek();
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testTrailingComma() throws Exception {
+        StagJsonReader reader = new StagJsonReader("[1,]");
+        reader.beginArray();
+        reader.nextInt();
+        reader.peek();
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testUnterminatedString() throws Exception {
+        new StagJsonReader("\"abc").nextString();
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testInvalidEscape() throws Exception {
+        new StagJsonReader("\"\\x\"").nextString();
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testMalformedNumber() throws Exception {
+        StagJsonReader reader = new StagJsonReader("[01]");
+        reader.beginArray();
+        reader.skipValue();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnexpectedToken() throws Exception {
+        new StagJsonReader("true").nextString();
+    }
+
+    @Test
+    public void testLenient_multipleDocuments() throws Exception {
+        StagJsonReader reader = new StagJsonReader("1 2");
+        reader.setLenient(true);
+        Assert.assertEquals(1, reader.nextInt());
+        Assert.assertEquals(2, reader.nextInt());
+        Assert.assertFalse(reader.hasNext());
+    }
+
+    /**
+     * Reads all tokens of the document and returns
+     * them, including their values, as a String.
+     */
+    private static String getTokens(JsonReader reader) throws Exception {
+        StringBuilder tokens = new StringBuilder();
+        JsonToken token;
+        while ((token = reader.peek()) != JsonToken.END_DOCUMENT) {
+            tokens.append(token).append(' ');
+            switch (token) {
+                case BEGIN_ARRAY:
+                    reader.beginArray();
+                    break;
+                case END_ARRAY:
+                    reader.endArray();
+                    break;
+                case BEGIN_OBJECT:
+                    reader.beginObject();
+                    break;
+                case END_OBJECT:
+                    reader.endObject();
+                    break;
+                case NAME:
+                    tokens.append(reader.nextName());
+                    break;
+                case STRING:
+                case NUMBER:
+                    tokens.append(reader.nextString());
+                    break;
+                case BOOLEAN:
+                    tokens.append(reader.nextBoolean());
+                    break;
+                case NULL:
+                    reader.nextNull();
+                    break;
+                default:
+                    break;
+            }
+            tokens.append(" @ ").append(reader.getPath()).append('\n');
+        }
+        return tokens.toString();
+    }
+
+}
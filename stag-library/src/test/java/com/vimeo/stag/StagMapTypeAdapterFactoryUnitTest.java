@@ -0,0 +1,106 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+public class StagMapTypeAdapterFactoryUnitTest {
+
+    private static final Gson GSON =
+            new GsonBuilder().registerTypeAdapterFactory(new StagMapTypeAdapterFactory()).create();
+
+    private static final Type SORTED_MAP = new TypeToken<SortedMap<Integer, List<String>>>() {}.getType();
+
+    private static final String JSON = "{\"2\": [\"b\"], \"1\": [], \"10\": null}";
+
+    @Test
+    public void testRead_convertsKeys() throws Exception {
+        SortedMap<Integer, List<String>> map = GSON.fromJson(new StagJsonReader(JSON), SORTED_MAP);
+        Assert.assertTrue(map instanceof TreeMap);
+        Assert.assertEquals(3, map.size());
+        Assert.assertEquals(Integer.valueOf(1), map.firstKey());
+        Assert.assertEquals("b", map.get(2).get(0));
+        Assert.assertTrue(map.containsKey(10));
+        Assert.assertNull(map.get(10));
+    }
+
+    @Test
+    public void testRead_sameAsGson() throws Exception {
+        Map<Integer, List<String>> expected = new Gson().fromJson(new JsonReader(new StringReader(JSON)), SORTED_MAP);
+        Assert.assertEquals(expected, GSON.fromJson(new StagJsonReader(JSON), SORTED_MAP));
+        Assert.assertEquals(expected, GSON.fromJson(new JsonReader(new StringReader(JSON)), SORTED_MAP));
+    }
+
+    @Test
+    public void testRead_arrayOfEntries() throws Exception {
+        Map<Integer, List<String>> map = GSON.fromJson(new StagJsonReader("[[1, [\"a\"]], [2, []]]"), SORTED_MAP);
+        Assert.assertEquals(2, map.size());
+        Assert.assertEquals("a", map.get(1).get(0));
+    }
+
+    @Test
+    public void testRead_null() throws Exception {
+        StagJsonReader reader = new StagJsonReader("null");
+        Assert.assertNull(GSON.getAdapter(TypeToken.get(SORTED_MAP)).read(reader));
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void testRead_duplicateKey() throws Exception {
+        GSON.fromJson(new StagJsonReader("{\"1\": [], \"01\": []}"), SORTED_MAP);
+    }
+
+    @Test
+    public void testWrite_delegatesToGson() throws Exception {
+        Map<Integer, List<String>> map = GSON.fromJson(new StagJsonReader(JSON), SORTED_MAP);
+        Assert.assertEquals(new Gson().toJson(map, SORTED_MAP), GSON.toJson(map, SORTED_MAP));
+    }
+
+    @Test
+    public void testRead_withoutFactory() throws Exception {
+        try {
+            new Gson().fromJson(new StagJsonReader(JSON), SORTED_MAP);
+            Assert.fail();
+        } catch (RuntimeException e) {
+            // Gson wraps the exception thrown when its map adapter uses the internals of JsonReader
+            Assert.assertTrue(e.getCause() instanceof IOException);
+            Assert.assertTrue(e.getCause().getMessage().contains(StagMapTypeAdapterFactory.class.getName()));
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.vimeo.stag.ObjectPoolUnitTest.Counter;
+import com.vimeo.stag.ObjectPoolUnitTest.CounterTypeAdapter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+public class StagTypeAdapterUnitTest {
+
+    @Test
+    public void testRead_createsNewInstance() throws Exception {
+        Counter counter = new CounterTypeAdapter().read(new JsonReader(new StringReader("{\"count\":3}")));
+        Assert.assertNotNull(counter);
+        Assert.assertEquals(3, counter.mCount);
+    }
+
+    @Test
+    public void testReadInto_stagAdapter_reusesTarget() throws Exception {
+        Counter target = new Counter();
+        target.mCount = 5;
+        Counter counter = StagTypeAdapter.readInto(new CounterTypeAdapter(),
+                                                   new JsonReader(new StringReader("{}")), target);
+        Assert.assertSame(target, counter);
+        Assert.assertEquals(0, counter.mCount);
+    }
+
+    @Test
+    public void testReadInto_otherAdapter_createsNewInstance() throws Exception {
+        final CounterTypeAdapter delegate = new CounterTypeAdapter();
+        TypeAdapter<Counter> adapter = new TypeAdapter<Counter>() {
+            @Override
+            public void write(JsonWriter out, Counter value) throws IOException {
+                delegate.write(out, value);
+            }
+
+            @Override
+            public Counter read(JsonReader in) throws IOException {
+                return delegate.read(in);
+            }
+        };
+
+        Counter target = new Counter();
+        Counter counter = StagTypeAdapter.readInto(adapter, new JsonReader(new StringReader("{\"count\":4}")), target);
+        Assert.assertNotSame(target, counter);
+        Assert.assertEquals(4, counter.mCount);
+    }
+
+    @Test
+    public void testRead_filter() throws Exception {
+        ReadFilter<Counter> filter = new ReadFilter<Counter>("count") {
+            @Override
+            public boolean accept(Counter object) {
+                return object.mCount > 2;
+            }
+        };
+        JsonReader reader = new JsonReader(new StringReader("[{\"count\":1},{\"count\":3}]"));
+        reader.beginArray();
+        Assert.assertNull(StagTypeAdapter.read(new CounterTypeAdapter(), reader, filter));
+        Counter counter = StagTypeAdapter.read(new CounterTypeAdapter(), reader, filter);
+        Assert.assertNotNull(counter);
+        Assert.assertEquals(3, counter.mCount);
+        reader.endArray();
+    }
+
+    @Test
+    public void testRead_nullFilter() throws Exception {
+        Counter counter = StagTypeAdapter.read(new CounterTypeAdapter(),
+                                               new JsonReader(new StringReader("{\"count\":1}")), null);
+        Assert.assertNotNull(counter);
+        Assert.assertEquals(1, counter.mCount);
+    }
+
+    @Test
+    public void testReadFilter_keys() throws Exception {
+        ReadFilter<Counter> filter = new ReadFilter<Counter>("count", "stats.plays") {
+            @Override
+            public boolean accept(Counter object) {
+                return true;
+            }
+        };
+        Assert.assertEquals(2, filter.getKeyCount());
+        Assert.assertTrue(filter.dependsOn("stats.plays"));
+        Assert.assertFalse(filter.dependsOn("stats"));
+    }
+
+}
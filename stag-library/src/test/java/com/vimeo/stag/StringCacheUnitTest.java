@@ -0,0 +1,102 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+public class StringCacheUnitTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_invalidCapacity() throws Exception {
+        new StringCache(0, 10);
+    }
+
+    @Test
+    public void testIntern_returnsCanonicalInstance() throws Exception {
+        StringCache cache = new StringCache(16, 10, true);
+        String first = new String("public");
+        String second = new String("public");
+
+        Assert.assertSame(first, cache.intern(first));
+        Assert.assertSame(first, cache.intern(second));
+        Assert.assertNull(cache.intern((String) null));
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(0.5, cache.getHitRate(), 0);
+    }
+
+    @Test
+    public void testIntern_withoutStats() throws Exception {
+        StringCache cache = new StringCache(16, 10);
+        String value = cache.intern(new String("public"));
+        Assert.assertSame(value, cache.intern(new String("public")));
+        Assert.assertEquals(0, cache.getHitCount());
+        Assert.assertEquals(0, cache.getMissCount());
+        Assert.assertEquals(0, cache.getHitRate(), 0);
+    }
+
+    @Test
+    public void testIntern_characters() throws Exception {
+        StringCache cache = new StringCache(16, 10);
+        String value = cache.intern("xxpublicxx".toCharArray(), 2, 6);
+        Assert.assertEquals("public", value);
+        Assert.assertSame(value, cache.intern("public".toCharArray(), 0, 6));
+        Assert.assertSame(value, cache.intern(new String("public")));
+    }
+
+    @Test
+    public void testIntern_longValuesAreNotCached() throws Exception {
+        StringCache cache = new StringCache(16, 3, true);
+        String value = new String("long");
+        Assert.assertSame(value, cache.intern(value));
+        Assert.assertNotSame(value, cache.intern(new String("long")));
+        Assert.assertEquals(0, cache.getHitCount());
+        Assert.assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void testNextString() throws Exception {
+        StringCache cache = new StringCache(16, 10);
+        JsonReader reader = new JsonReader(new StringReader("[\"a\",\"a\"]"));
+        reader.beginArray();
+        Assert.assertSame(cache.nextString(reader), cache.nextString(reader));
+        reader.endArray();
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        StringCache cache = new StringCache(16, 10, true);
+        String value = cache.intern(new String("a"));
+        cache.clear();
+        Assert.assertEquals(0, cache.getMissCount());
+        Assert.assertEquals(0, cache.getHitRate(), 0);
+        Assert.assertNotSame(value, cache.intern(new String("a")));
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+public class UnknownFieldsUnitTest {
+
+    @Test
+    public void testReadAndWrite_keepsOrderAndValues() throws Exception {
+        JsonReader reader = new JsonReader(new StringReader("{\"b\": {\"c\": [1.50]}, \"a\": null, \"d\": \"e\"}"));
+        UnknownFields unknownFields = new UnknownFields();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            unknownFields.read(reader.nextName(), reader);
+        }
+        reader.endObject();
+        Assert.assertEquals(3, unknownFields.size());
+        Assert.assertEquals(new RawJson("null"), unknownFields.get("a"));
+
+        StringWriter stringWriter = new StringWriter();
+        JsonWriter writer = new JsonWriter(stringWriter);
+        writer.beginObject();
+        unknownFields.write(writer);
+        writer.endObject();
+        writer.close();
+        Assert.assertEquals("{\"b\":{\"c\":[1.50]},\"a\":null,\"d\":\"e\"}", stringWriter.toString());
+    }
+
+    @Test
+    public void testPutAndRemove() throws Exception {
+        UnknownFields unknownFields = new UnknownFields();
+        Assert.assertTrue(unknownFields.isEmpty());
+        unknownFields.put("a", new RawJson("1"));
+        Assert.assertTrue(unknownFields.names().contains("a"));
+        Assert.assertEquals(new RawJson("1"), unknownFields.remove("a"));
+        Assert.assertNull(unknownFields.get("a"));
+        Assert.assertTrue(unknownFields.isEmpty());
+    }
+
+    @Test
+    public void testNested() throws Exception {
+        UnknownFields unknownFields = new UnknownFields();
+        Assert.assertNull(unknownFields.getNested("a"));
+        UnknownFields nested = unknownFields.nested("a");
+        Assert.assertSame(nested, unknownFields.nested("a"));
+        Assert.assertSame(nested, unknownFields.getNested("a"));
+        Assert.assertTrue(unknownFields.isEmpty());
+        Assert.assertEquals(new UnknownFields(), unknownFields);
+
+        nested.put("b", new RawJson("1"));
+        Assert.assertFalse(unknownFields.isEmpty());
+        Assert.assertEquals(0, unknownFields.size());
+        Assert.assertNotEquals(new UnknownFields(), unknownFields);
+
+        UnknownFields other = new UnknownFields();
+        other.nested("a").put("b", new RawJson("1"));
+        Assert.assertEquals(other, unknownFields);
+        Assert.assertEquals(other.hashCode(), unknownFields.hashCode());
+
+        unknownFields.clear();
+        Assert.assertNull(unknownFields.getNested("a"));
+        Assert.assertTrue(unknownFields.isEmpty());
+    }
+
+    @Test
+    public void testMismatched() throws Exception {
+        UnknownFields unknownFields = new UnknownFields();
+        JsonReader reader = new JsonReader(new StringReader("\"n/a\""));
+        unknownFields.readMismatched("plays", reader);
+        Assert.assertEquals(new RawJson("\"n/a\""), unknownFields.getMismatched("plays"));
+        Assert.assertNull(unknownFields.get("plays"));
+        Assert.assertFalse(unknownFields.isEmpty());
+        Assert.assertNotEquals(new UnknownFields(), unknownFields);
+
+        StringWriter stringWriter = new StringWriter();
+        JsonWriter writer = new JsonWriter(stringWriter);
+        writer.beginObject();
+        Assert.assertTrue(unknownFields.writeMismatched(writer, "plays"));
+        Assert.assertFalse(unknownFields.writeMismatched(writer, "name"));
+        unknownFields.write(writer);
+        writer.endObject();
+        writer.close();
+        Assert.assertEquals("{\"plays\":\"n/a\"}", stringWriter.toString());
+
+        Assert.assertEquals(new RawJson("\"n/a\""), unknownFields.removeMismatched("plays"));
+        Assert.assertNull(unknownFields.getMismatched("plays"));
+        Assert.assertTrue(unknownFields.isEmpty());
+        Assert.assertEquals(new UnknownFields(), unknownFields);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testPut_nullValue() throws Exception {
+        new UnknownFields().put("a", null);
+    }
+
+}
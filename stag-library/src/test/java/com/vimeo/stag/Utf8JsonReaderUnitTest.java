@@ -0,0 +1,314 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class Utf8JsonReaderUnitTest {
+
+    private static final Gson GSON =
+            new GsonBuilder().registerTypeAdapterFactory(new StagMapTypeAdapterFactory()).create();
+
+    private static final String DOCUMENT = "{\"a\": [1, -2.5, 3e2, 0, true, false, null, \"s\\u00e9\\n\"],\n" +
+                                           "\t\"b\": {\"c\": {}, \"d\": [], \"e\": [[{}]]}, \"\": \"\\\"\\\\\\/\"," +
+                                           "\"caf\u00e9\": \"\u00e9\u20ac\ud83d\ude00\", \"a\\u0062\": 1}";
+
+    private static byte[] utf8(String json) {
+        return json.getBytes(Charset.forName("UTF-8"));
+    }
+
+    /**
+     * A stream that returns a single byte per read,
+     * to exercise the refilling of the buffer.
+     */
+    private static InputStream trickle(String json) {
+        return new ByteArrayInputStream(utf8(json)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+    }
+
+    private static final String NESTED = "{\"a\": {\"b\": [\"]}\\\\\", \"\\\"[{\"], \"c\": {}}, \"d\": [], " +
+                                         "\"e\": [[[{\"f\": \"\\u007d\"}]]], \"g\": \"}\", \"h\": 1}";
+
+    @Test
+    public void testTokens_matchJsonReader() throws Exception {
+        String expected = getTokens(new JsonReader(new StringReader(DOCUMENT)));
+        Assert.assertEquals(expected, getTokens(new Utf8JsonReader(utf8(DOCUMENT))));
+        Assert.assertEquals(expected, getTokens(new Utf8JsonReader(trickle(DOCUMENT))));
+    }
+
+    @Test
+    public void testTokens_longStream() throws Exception {
+        StringBuilder builder = new StringBuilder("[");
+        for (int n = 0; n < 5000; n++) {
+            builder.append(n == 0 ? "" : ",").append("{\"id\":").append(n).append(",\"name\":\"caf\u00e9 ")
+                    .append(n).append("\",\"ratio\":").append(n / 8.0).append('}');
+        }
+        String json = builder.append(']').toString();
+        Assert.assertEquals(getTokens(new JsonReader(new StringReader(json))),
+                            getTokens(new Utf8JsonReader(new ByteArrayInputStream(utf8(json)))));
+    }
+
+    @Test
+    public void testSkipValue_matchesJsonReader() throws Exception {
+        JsonReader expected = new JsonReader(new StringReader(DOCUMENT));
+        Utf8JsonReader actual = new Utf8JsonReader(utf8(DOCUMENT));
+        expected.beginObject();
+        actual.beginObject();
+        Assert.assertEquals(expected.nextName(), actual.nextName());
+        expected.skipValue();
+        actual.skipValue();
+        Assert.assertEquals(expected.nextName(), actual.nextName());
+        Assert.assertEquals(expected.getPath(), actual.getPath());
+        Assert.assertEquals(getTokens(expected), getTokens(actual));
+    }
+
+    @Test
+    public void testNames_cached() throws Exception {
+        Utf8JsonReader reader = new Utf8JsonReader(utf8("[{\"name\": 1}, {\"name\": 2}]"));
+        reader.beginArray();
+        reader.beginObject();
+        String first = reader.nextName();
+        reader.nextInt();
+        reader.endObject();
+        reader.beginObject();
+        Assert.assertSame(first, reader.nextName());
+    }
+
+    @Test
+    public void testSkipValue_nested() throws Exception {
+        JsonReader expected = new JsonReader(new StringReader(NESTED));
+        Utf8JsonReader actual = new Utf8JsonReader(trickle(NESTED));
+        expected.beginObject();
+        actual.beginObject();
+        while (expected.hasNext()) {
+            Assert.assertEquals(expected.nextName(), actual.nextName());
+            Assert.assertEquals(expected.getPath(), actual.getPath());
+            expected.skipValue();
+            actual.skipValue();
+        }
+        expected.endObject();
+        actual.endObject();
+        Assert.assertEquals(JsonToken.END_DOCUMENT, actual.peek());
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testSkipValue_unterminated() throws Exception {
+        Utf8JsonReader reader = new Utf8JsonReader(trickle("{\"a\": [1, {\"b\": \"]\"}"));
+        reader.beginObject();
+        reader.nextName();
+        reader.skipValue();
+    }
+
+    @Test
+    public void testNumbers() throws Exception {
+        Utf8JsonReader reader = new Utf8JsonReader(utf8("[12, \"34\", 1.0, -9223372036854775808, 1.5, 1e2]"));
+        reader.beginArray();
+        Assert.assertEquals(12, reader.nextInt());
+        Assert.assertEquals(34, reader.nextInt());
+        Assert.assertEquals(1L, reader.nextLong());
+        Assert.assertEquals(Long.MIN_VALUE, reader.nextLong());
+        try {
+            reader.nextInt();
+            Assert.fail();
+        } catch (NumberFormatException e) {
+            // expected, the value is not consumed
+        }
+        Assert.assertEquals(1.5, reader.nextDouble(), 0);
+        Assert.assertEquals("1e2", reader.nextString());
+        reader.endArray();
+        Assert.assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    public void testNextDouble_matchesParseDouble() throws Exception {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder("[0.1, 1e22, 1e23, 123456789012345678, 1.7976931348623157e308, " +
+                                                  "4.9e-324, 2.2250738585072014E-308, 1E+2, -0.000001");
+        for (int n = 0; n < 10000; n++) {
+            builder.append(", ").append(random.nextInt(2000000) - 1000000).append('.').append(random.nextInt(1000));
+            builder.append(", ").append(random.nextDouble() * Math.pow(10, random.nextInt(60) - 30));
+        }
+        String json = builder.append(']').toString();
+        JsonReader expected = new JsonReader(new StringReader(json));
+        Utf8JsonReader actual = new Utf8JsonReader(utf8(json));
+        expected.beginArray();
+        actual.beginArray();
+        while (expected.hasNext()) {
+            double value = expected.nextDouble();
+            Assert.assertEquals(Double.doubleToLongBits(value), Double.doubleToLongBits(actual.nextDouble()));
+        }
+        actual.endArray();
+    }
+
+    @Test
+    public void testNextDouble_negativeZero() throws Exception {
+        Utf8JsonReader reader = new Utf8JsonReader(utf8("[-0, -0.0, -0e0, \"-0\"]"));
+        reader.beginArray();
+        // Gson 2.7 reads -0 as a long, and therefore as 0.0
+        Assert.assertEquals(Double.doubleToLongBits(0.0), Double.doubleToLongBits(reader.nextDouble()));
+        Assert.assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(reader.nextDouble()));
+        Assert.assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(reader.nextDouble()));
+        Assert.assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(reader.nextDouble()));
+        reader.endArray();
+    }
+
+    @Test
+    public void testGson_readsMapsAndLists() throws Exception {
+        Map<String, List<Integer>> map = GSON.fromJson(new Utf8JsonReader(utf8("{\"a\": [1, 2], \"b\": []}")),
+                                                         new TypeToken<Map<String, List<Integer>>>() {}.getType());
+        Assert.assertEquals(2, map.size());
+        Assert.assertEquals(2, map.get("a").size());
+    }
+
+    @Test
+    public void testGetPath() throws Exception {
+        Utf8JsonReader reader = new Utf8JsonReader(utf8("{\"a\": [1, {\"b\": 2}]}"));
+        reader.beginObject();
+        reader.nextName();
+        reader.beginArray();
+        reader.nextInt();
+        reader.beginObject();
+        reader.nextName();
+        Assert.assertEquals("$.a[1].b", reader.getPath());
+    }
+
+    @Test
+    public void testByteOrderMark() throws Exception {
+        Assert.assertEquals(7, new Utf8JsonReader(trickle("\ufeff 7")).nextInt());
+    }
+
+    @Test(expected = EOFException.class)
+    public void testEmptyDocument() throws Exception {
+        new Utf8JsonReader(trickle("  ")).peek();
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testTrailingComma() throws Exception {
+        Utf8JsonReader reader = new Utf8JsonReader(utf8("[1,]"));
+        reader.beginArray();
+        reader.nextInt();
+        reader.peek();
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testUnterminatedString() throws Exception {
+        new Utf8JsonReader(trickle("\"abc")).nextString();
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testInvalidEscape() throws Exception {
+        new Utf8JsonReader(utf8("\"\\x\"")).nextString();
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testInvalidUtf8() throws Exception {
+        new Utf8JsonReader(new byte[]{'"', (byte) 0xE2, (byte) 0x82, '"'}).nextString();
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void testMalformedNumber() throws Exception {
+        Utf8JsonReader reader = new Utf8JsonReader(utf8("[01]"));
+        reader.beginArray();
+        reader.skipValue();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnexpectedToken() throws Exception {
+        new Utf8JsonReader(utf8("true")).nextString();
+    }
+
+    @Test
+    public void testLenient_multipleDocuments() throws Exception {
+        Utf8JsonReader reader = new Utf8JsonReader(trickle("1 2"));
+        reader.setLenient(true);
+        Assert.assertEquals(1, reader.nextInt());
+        Assert.assertEquals(2, reader.nextInt());
+        Assert.assertFalse(reader.hasNext());
+    }
+
+    /**
+     * Reads all tokens of the document and returns
+     * them, including their values, as a String.
+     */
+    private static String getTokens(JsonReader reader) throws Exception {
+        StringBuilder tokens = new StringBuilder();
+        JsonToken token;
+        while ((token = reader.peek()) != JsonToken.END_DOCUMENT) {
+            tokens.append(token).append(' ');
+            switch (token) {
+                case BEGIN_ARRAY:
+                    reader.beginArray();
+                    break;
+                case END_ARRAY:
+                    reader.endArray();
+                    break;
+                case BEGIN_OBJECT:
+                    reader.beginObject();
+                    break;
+                case END_OBJECT:
+                    reader.endObject();
+                    break;
+                case NAME:
+                    tokens.append(reader.nextName());
+                    break;
+                case STRING:
+                case NUMBER:
+                    tokens.append(reader.nextString());
+                    break;
+                case BOOLEAN:
+                    tokens.append(reader.nextBoolean());
+                    break;
+                case NULL:
+                    reader.nextNull();
+                    break;
+                default:
+                    break;
+            }
+            tokens.append(" @ ").append(reader.getPath()).append('\n');
+        }
+        return tokens.toString();
+    }
+
+}